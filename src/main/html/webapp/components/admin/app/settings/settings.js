@@ -36,12 +36,14 @@ export default Control.extend({
     var nextflowConfig = $('#nextflow-config').val();
     var nextflowWork = $('#nextflow-work').val();
     var nextflowEnv = $('#nextflow-env').val();
+    var nextflowProgress = $('#nextflow-progress').val();
 
 
     this.application.attr('config').attr('nextflow.profile', nextflowProfile);
     this.application.attr('config').attr('nextflow.config', nextflowConfig);
     this.application.attr('config').attr('nextflow.work', nextflowWork);
     this.application.attr('config').attr('nextflow.env', nextflowEnv);
+    this.application.attr('config').attr('nextflow.progress', nextflowProgress);
     this.application.save(function (data) {
       bootbox.alert("Application settings updated.");
     },
@@ -3,6 +3,8 @@ import Control from 'can-control';
 import domData from 'can-util/dom/data/data';
 import bootbox from 'bootbox';
 
+import { renderTreeItem } from 'helpers/helpers';
+
 import template from './results.stache';
 import templateShareFolder from './share-folder.stache';
 import templateShareFile from './share-file.stache';
@@ -16,6 +18,39 @@ export default Control.extend({
     $(element).html(template({
       job: options.job
     }));
+    var that = this;
+    $(element).find('.browse-folder').each(function() {
+      that.browse($(this), 1);
+    });
+  },
+
+  // large outputs are loaded folder by folder and page by page
+
+  browse: function(folder, page) {
+    var hash = folder.attr('data-hash');
+    var path = folder.attr('data-path');
+    folder.data('loaded', true);
+    $.get('api/v2/browse/' + hash, {
+      path: path,
+      page: page
+    }).then(function(response) {
+      folder.children('.browse-more').remove();
+      // sub folders are loaded when they are opened
+      var html = renderTreeItem(null, response.data, path ? 1 : 0, function(item) {
+        return '<div class="browse-folder" data-hash="' + hash + '" data-path="' + item.path + '"></div>';
+      });
+      $(html).appendTo(folder).show();
+      if (response.next) {
+        var more = $('<a class="browse-more text-muted" href="#">Show more (' + (response.count - response.page * response.pageSize) + ' left)</a>');
+        more.data('page', response.next);
+        folder.append(more);
+      }
+    });
+  },
+
+  '.browse-more click': function(el, ev) {
+    ev.preventDefault();
+    this.browse($(el).parent(), $(el).data('page'));
   },
 
   '.share-file-btn click': function(el) {
@@ -43,31 +78,24 @@ export default Control.extend({
     new ShareFolder("#card-share-folder");
   },
 
-  // file tree (collapsible folders)
+  // file tree (collapsible folders), browsed folders are loaded on first open
 
-  '.folder-item click': function(el) {
-    var ul = $(el).parent().children('UL');
-    ul.slideToggle();
-    if ($(el).hasClass('fa-angle-down')) {
-      $(el).addClass('fa-angle-right ');
-      $(el).removeClass('fa-angle-down');
+  toggleFolder: function(li) {
+    var folder = li.children('.browse-folder');
+    if (folder.length > 0 && !folder.data('loaded')) {
+      this.browse(folder, 1);
     } else {
-      $(el).addClass('fa-angle-down');
-      $(el).removeClass('fa-angle-right');
+      li.children('UL, .browse-folder').slideToggle();
     }
+    li.children('i').toggleClass('fa-angle-right fa-angle-down');
+  },
+
+  '.folder-item click': function(el) {
+    this.toggleFolder($(el).parent());
   },
 
   '.folder-item-text click': function(el) {
-    var item = $(el).parent().children('i')
-    var ul = $(el).parent().children('UL');
-    ul.slideToggle();
-    if ($(item).hasClass('fa-angle-down')) {
-      $(item).addClass('fa-angle-right ');
-      $(item).removeClass('fa-angle-down');
-    } else {
-      $(item).addClass('fa-angle-down');
-      $(item).removeClass('fa-angle-right');
-    }
+    this.toggleFolder($(el).parent());
   }
 
 });
@@ -30,14 +30,20 @@ String.prototype.replaceAll = function(search, replacement) {
   return target.replace(new RegExp(search, 'g'), replacement);
 };
 
-function renderTreeItem(jobId, items, level) {
+// renders files and folders, the content of a folder is rendered by renderFolder
+// (default: its childs)
+export function renderTreeItem(jobId, items, level, renderFolder) {
   var html = '<ul class="folder ' + (level > 0 ? 'sub-folder' : 'root-folder') + '">';
   for (var i = 0; i < items.length; i++) {
     html += '<li>';
     if (items[i].folder == true) {
       html += '<i class="fas fa-angle-right folder-item text-muted fa-fw"></i>&nbsp;';
       html += '<span class="folder-item-text fa-fw"><i class="fas fa-folder text-muted"></i>&nbsp' + items[i].name + '</span>';
-      html += renderTreeItem(jobId, items[i].childs, level + 1);
+      if (renderFolder) {
+        html += renderFolder(items[i]);
+      } else {
+        html += renderTreeItem(jobId, items[i].childs, level + 1);
+      }
     } else {
       html += '<i class="far fa-file-alt text-muted fa-fw file-item-icon""></i>&nbsp;'
       html += '<a class="file-item" href="' + items[i].path + '" target="_blank">' + items[i].name + '</a>';
@@ -80,6 +86,22 @@ stache.registerHelper('prettyTime', function(executionTime) {
 
 });
 
+stache.registerHelper('prettySize', function(bytes) {
+  if (bytes < 0) {
+    return 'unknown size';
+  }
+  if (!bytes) {
+    return '0 bytes';
+  }
+  var units = ['bytes', 'KB', 'MB', 'GB', 'TB'];
+  var unit = 0;
+  while (bytes >= 1024 && unit < units.length - 1) {
+    bytes = bytes / 1024;
+    unit++;
+  }
+  return (unit > 0 ? Math.round(bytes * 10) / 10 : bytes) + ' ' + units[unit];
+});
+
 String.prototype.endsWith = function(s) {
   return this.length >= s.length && this.substr(this.length - s.length) == s;
 };
@@ -11,6 +11,7 @@ import org.slf4j.LoggerFactory;
 import cloudgene.mapred.database.util.Database;
 import cloudgene.mapred.database.util.IRowMapper;
 import cloudgene.mapred.database.util.JdbcDataAccessObject;
+import cloudgene.mapred.jobs.AbstractJob;
 import cloudgene.mapred.jobs.CloudgeneParameterOutput;
 import cloudgene.mapred.jobs.Download;
 
@@ -18,25 +19,31 @@ public class DownloadDao extends JdbcDataAccessObject {
 
 	private static final Logger log = LoggerFactory.getLogger(DownloadDao.class);
 
+	// through parameter, downloads of old jobs have no job id
+	private static final String TOUCH_JOB_BY_HASH = "update job set version = version + 1 where id in (select parameter.job_id from parameter, downloads where downloads.hash = ? and parameter.id = downloads.parameter_id)";
+
+	public static int BATCH_SIZE = 1000;
+
 	public DownloadDao(Database database) {
 		super(database);
 	}
 
 	public boolean insert(Download download) {
 		StringBuilder sql = new StringBuilder();
-		sql.append("insert into downloads (parameter_id, name, path, hash, count, size, job_id) ");
-		sql.append("values (?,?,?,?,?,?,?)");
+		sql.append("insert into downloads (parameter_id, name, path, hash, count, size, bytes, job_id) ");
+		sql.append("values (?,?,?,?,?,?,?,?)");
 
 		try {
 
-			Object[] params = new Object[7];
+			Object[] params = new Object[8];
 			params[0] = download.getParameter().getId();
 			params[1] = download.getName();
 			params[2] = download.getPath();
 			params[3] = download.getHash();
 			params[4] = download.getCount();
 			params[5] = download.getSize();
-			params[6] = -1;
+			params[6] = download.getBytes();
+			params[7] = getJobId(download);
 
 			update(sql.toString(), params);
 
@@ -50,6 +57,38 @@ public class DownloadDao extends JdbcDataAccessObject {
 		return true;
 	}
 
+	public boolean insertAll(List<Download> downloads) {
+		StringBuilder sql = new StringBuilder();
+		sql.append("insert into downloads (parameter_id, name, path, hash, count, size, bytes, job_id) ");
+		sql.append("values (?,?,?,?,?,?,?,?)");
+
+		try {
+
+			for (int offset = 0; offset < downloads.size(); offset += BATCH_SIZE) {
+
+				int end = Math.min(offset + BATCH_SIZE, downloads.size());
+				Object[][] params = new Object[end - offset][];
+				for (int i = offset; i < end; i++) {
+					Download download = downloads.get(i);
+					params[i - offset] = new Object[] { download.getParameter().getId(), download.getName(),
+							download.getPath(), download.getHash(), download.getCount(), download.getSize(),
+							download.getBytes(), getJobId(download) };
+				}
+
+				batch(sql.toString(), params);
+
+			}
+
+			log.debug("insert " + downloads.size() + " downloads successful.");
+
+		} catch (SQLException e) {
+			log.error("insert downloads failed.", e);
+			return false;
+		}
+
+		return true;
+	}
+
 	public boolean update(Download download) {
 		StringBuilder sql = new StringBuilder();
 		sql.append("update downloads set count = ? where hash = ? ");
@@ -61,6 +100,7 @@ public class DownloadDao extends JdbcDataAccessObject {
 			params[1] = download.getHash();
 
 			update(sql.toString(), params);
+			touchJobByHash(download.getHash());
 
 			log.debug("update download successful.");
 
@@ -72,6 +112,37 @@ public class DownloadDao extends JdbcDataAccessObject {
 		return true;
 	}
 
+	public boolean decCounts(List<Download> downloads) {
+		StringBuilder sql = new StringBuilder();
+		sql.append("update downloads set count = count - 1 where hash = ? and count > 0");
+
+		List<Object[]> params = new Vector<Object[]>();
+		for (Download download : downloads) {
+			// unlimited downloads are not counted
+			if (download.getCount() != -1) {
+				params.add(new Object[] { download.getHash() });
+			}
+		}
+
+		if (params.isEmpty()) {
+			return true;
+		}
+
+		try {
+
+			batch(sql.toString(), params.toArray(new Object[0][]));
+			batch(TOUCH_JOB_BY_HASH, params.toArray(new Object[0][]));
+
+			log.debug("update " + params.size() + " download counters successful.");
+
+		} catch (SQLException e) {
+			log.error("update download counters failed.", e);
+			return false;
+		}
+
+		return true;
+	}
+
 	@SuppressWarnings("unchecked")
 	public List<Download> findAllByParameter(CloudgeneParameterOutput parameter) {
 
@@ -82,7 +153,7 @@ public class DownloadDao extends JdbcDataAccessObject {
 		sql.append("order by path ");
 
 		Object[] params = new Object[1];
-		params[0] = parameter.getId();
+		params[0] = getParameterId(parameter);
 
 		List<Download> result = new Vector<Download>();
 
@@ -164,7 +235,7 @@ public class DownloadDao extends JdbcDataAccessObject {
 
 		Object[] params = new Object[2];
 		params[0] = filename;
-		params[1] = param.getId();
+		params[1] = getParameterId(param);
 
 		Download result = null;
 
@@ -183,16 +254,391 @@ public class DownloadDao extends JdbcDataAccessObject {
 		}
     }
 
+	/**
+	 * Returns the names of the folders directly below the path, without the
+	 * path. The path is empty or ends with a slash.
+	 */
+	@SuppressWarnings("unchecked")
+	public List<String> findFoldersByParameter(CloudgeneParameterOutput param, String path) {
+
+		StringBuilder sql = new StringBuilder();
+		sql.append("select distinct substring(name, 1, locate('/', name, ?) - 1) ");
+		sql.append("from downloads ");
+		sql.append("where parameter_id = ? and name like ? escape '!' and locate('/', name, ?) > 0");
+
+		Object[] params = new Object[4];
+		params[0] = path.length() + 1;
+		params[1] = getParameterId(param);
+		params[2] = escapeLike(path) + "%";
+		params[3] = path.length() + 1;
+
+		List<String> result = new Vector<String>();
+
+		try {
+
+			List<String> folders = query(sql.toString(), params, new StringMapper());
+			for (String folder : folders) {
+				result.add(folder.substring(path.length()));
+			}
+
+			log.debug("find folders by param " + param.getId() + " and path " + path + " successful. results: "
+					+ result.size());
+
+		} catch (SQLException e) {
+			log.error("find folders by param and path failed", e);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Counts the files directly below the path whose name contains the filter
+	 * (ignoring case). The filter can be null.
+	 */
+	public int countFilesByParameter(CloudgeneParameterOutput param, String path, String filter) {
+
+		StringBuilder sql = new StringBuilder();
+		sql.append("select count(*) ");
+		sql.append("from downloads ");
+		appendFilesByParameter(sql, filter);
+
+		try {
+
+			int result = (Integer) queryForObject(sql.toString(), getFilesByParameterParams(param, path, filter),
+					new IntegerMapper());
+
+			log.debug("count files by param " + param.getId() + " and path " + path + " successful. results: "
+					+ result);
+
+			return result;
+
+		} catch (SQLException e) {
+			log.error("count files by param and path failed", e);
+			return 0;
+		}
+	}
+
+	/**
+	 * Returns a page of the files directly below the path whose name contains the
+	 * filter (ignoring case), ordered by name or by size.
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Download> findFilesByParameter(CloudgeneParameterOutput param, String path, String filter,
+			boolean orderBySize, boolean descending, int offset, int limit) {
+
+		StringBuilder sql = new StringBuilder();
+		sql.append("select * ");
+		sql.append("from downloads ");
+		appendFilesByParameter(sql, filter);
+		String direction = descending ? "desc" : "asc";
+		if (orderBySize) {
+			sql.append("order by bytes " + direction + ", name " + direction + " ");
+		} else {
+			sql.append("order by name " + direction + " ");
+		}
+		sql.append("limit ?,?");
+
+		Object[] where = getFilesByParameterParams(param, path, filter);
+		Object[] params = new Object[where.length + 2];
+		System.arraycopy(where, 0, params, 0, where.length);
+		params[where.length] = offset;
+		params[where.length + 1] = limit;
+
+		List<Download> result = new Vector<Download>();
+
+		try {
+
+			result = query(sql.toString(), params, new DownloadMapper());
+
+			log.debug("find files by param " + param.getId() + " and path " + path + " successful. results: "
+					+ result.size());
+
+		} catch (SQLException e) {
+			log.error("find files by param and path failed", e);
+		}
+
+		return result;
+	}
+
+	// range scan on idx_downloads_parameter_name
+	protected void appendFilesByParameter(StringBuilder sql, String filter) {
+		sql.append("where parameter_id = ? and name like ? escape '!' and name not like ? escape '!' ");
+		if (filter != null) {
+			sql.append("and lower(name) like ? escape '!' ");
+		}
+	}
+
+	protected Object[] getFilesByParameterParams(CloudgeneParameterOutput param, String path, String filter) {
+		Object[] params = new Object[filter != null ? 4 : 3];
+		params[0] = getParameterId(param);
+		params[1] = escapeLike(path) + "%";
+		params[2] = escapeLike(path) + "%/%";
+		if (filter != null) {
+			params[3] = escapeLike(path.toLowerCase()) + "%" + escapeLike(filter.toLowerCase()) + "%";
+		}
+		return params;
+	}
+
+	// downloads of parameters without job (e.g. in tests) keep the old placeholder
+	protected static String getJobId(Download download) {
+		String job = download.getParameter().getJobId();
+		return job != null ? job : "-1";
+	}
+
+	// parameter_id is a varchar column, a numeric value would prevent the use of its index
+	protected static String getParameterId(CloudgeneParameterOutput param) {
+		return String.valueOf(param.getId());
+	}
+
+	protected static String escapeLike(String value) {
+		return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+	}
+
+	/**
+	 * Returns all downloads of the job that are stored in its local workspace,
+	 * except logs.
+	 */
+	@SuppressWarnings("unchecked")
+	public List<Download> findAllLocalByJob(String job) {
+
+		StringBuilder sql = new StringBuilder();
+		sql.append("select * ");
+		sql.append("from downloads ");
+		sql.append("where job_id = ? and path like ? and path not like ? ");
+		sql.append("order by path ");
+
+		Object[] params = new Object[3];
+		params[0] = job;
+		params[1] = job + "/%";
+		params[2] = job + "/logs/%";
+
+		List<Download> result = new Vector<Download>();
+
+		try {
+
+			result = query(sql.toString(), params, new DownloadMapper());
+
+			log.debug("find all local downloads successful. results: " + result.size());
+
+		} catch (SQLException e) {
+			log.error("find all local downloads failed", e);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns the ids of finished jobs with downloads in their local workspace,
+	 * oldest first.
+	 */
+	@SuppressWarnings("unchecked")
+	public List<String> findJobsWithLocalDownloads(long finishedBefore, int limit) {
+
+		StringBuilder sql = new StringBuilder();
+		sql.append("select job.id ");
+		sql.append("from job ");
+		sql.append("where job.state in (?,?,?,?) and job.finished_on != 0 and job.finished_on < ? ");
+		sql.append("and exists (select 1 from downloads where downloads.job_id = job.id ");
+		sql.append("and downloads.path like concat(job.id, '/%') ");
+		sql.append("and downloads.path not like concat(job.id, '/logs/%')) ");
+		sql.append("order by job.finished_on ");
+		sql.append("limit ?");
+
+		Object[] params = new Object[6];
+		params[0] = AbstractJob.STATE_SUCCESS;
+		params[1] = AbstractJob.STATE_FAILED;
+		params[2] = AbstractJob.STATE_SUCESS_AND_NOTIFICATION_SEND;
+		params[3] = AbstractJob.STATE_FAILED_AND_NOTIFICATION_SEND;
+		params[4] = finishedBefore;
+		params[5] = limit;
+
+		List<String> result = new Vector<String>();
+
+		try {
+
+			result = query(sql.toString(), params, new StringMapper());
+
+			log.debug("find jobs with local downloads successful. results: " + result.size());
+
+		} catch (SQLException e) {
+			log.error("find jobs with local downloads failed", e);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Prepends the prefix to the paths of all local downloads of the job (see
+	 * {@link #findAllLocalByJob(String)}) in a single statement.
+	 */
+	public int updateLocalPaths(String job, String prefix) {
+
+		StringBuilder sql = new StringBuilder();
+		sql.append("update downloads set path = concat(?, path) ");
+		sql.append("where job_id = ? and path like ? and path not like ?");
+
+		try {
+
+			Object[] params = new Object[4];
+			params[0] = prefix;
+			params[1] = job;
+			params[2] = job + "/%";
+			params[3] = job + "/logs/%";
+
+			int updated = update(sql.toString(), params);
+			update("update job set version = version + 1 where id = ?", new Object[] { job });
+
+			log.debug("update paths of " + updated + " downloads successful.");
+
+			return updated;
+
+		} catch (SQLException e) {
+			log.error("update download paths failed.", e);
+			return -1;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	public List<Download> findAllByJob(String job) {
+
+		StringBuilder sql = new StringBuilder();
+		sql.append("select * ");
+		sql.append("from downloads ");
+		sql.append("where job_id = ? ");
+		sql.append("order by path ");
+
+		Object[] params = new Object[1];
+		params[0] = job;
+
+		List<Download> result = new Vector<Download>();
+
+		try {
+
+			result = query(sql.toString(), params, new DownloadMapper());
+
+			log.debug("find all downloads by job successful. results: " + result.size());
+
+		} catch (SQLException e) {
+			log.error("find all downloads by job failed", e);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns downloads without checksum with an id greater than the given one,
+	 * ordered by id.
+	 */
+	@SuppressWarnings("unchecked")
+	/**
+	 * Returns downloads of jobs that still have their files. Downloads whose
+	 * checksum failed maxAttempts times are skipped.
+	 */
+	public List<Download> findAllWithoutChecksum(int afterId, int limit, int maxAttempts) {
+
+		StringBuilder sql = new StringBuilder();
+		sql.append("select downloads.* ");
+		sql.append("from downloads, job ");
+		sql.append("where downloads.job_id = job.id and job.state not in (?, ?) ");
+		sql.append("and downloads.checksum is null and downloads.checksum_attempts < ? and downloads.id > ? ");
+		sql.append("order by downloads.id ");
+		sql.append("limit ?");
+
+		Object[] params = new Object[5];
+		params[0] = AbstractJob.STATE_RETIRED;
+		params[1] = AbstractJob.STATE_DELETED;
+		params[2] = maxAttempts;
+		params[3] = afterId;
+		params[4] = limit;
+
+		List<Download> result = new Vector<Download>();
+
+		try {
+
+			result = query(sql.toString(), params, new DownloadMapper());
+
+			log.debug("find all downloads without checksum successful. results: " + result.size());
+
+		} catch (SQLException e) {
+			log.error("find all downloads without checksum failed", e);
+		}
+
+		return result;
+	}
+
+	public boolean updateChecksum(Download download) {
+		StringBuilder sql = new StringBuilder();
+		sql.append("update downloads set checksum = ? where hash = ?");
+
+		try {
+
+			Object[] params = new Object[2];
+			params[0] = download.getChecksum();
+			params[1] = download.getHash();
+
+			update(sql.toString(), params);
+			touchJobByHash(download.getHash());
+
+			log.debug("update download checksum successful.");
+
+		} catch (SQLException e) {
+			log.error("update download checksum failed.", e);
+			return false;
+		}
+
+		return true;
+	}
+
+	public boolean updateChecksumAttempts(Download download) {
+		StringBuilder sql = new StringBuilder();
+		sql.append("update downloads set checksum_attempts = ? where id = ?");
+
+		try {
+
+			Object[] params = new Object[2];
+			params[0] = download.getChecksumAttempts();
+			params[1] = download.getId();
+
+			update(sql.toString(), params);
+
+			log.debug("update download checksum attempts successful.");
+
+		} catch (SQLException e) {
+			log.error("update download checksum attempts failed.", e);
+			return false;
+		}
+
+		return true;
+	}
+
+	// downloads are part of job responses: a changed download is a new version of its job
+	protected void touchJobByHash(String hash) throws SQLException {
+		update(TOUCH_JOB_BY_HASH, new Object[] { hash });
+	}
+
+	class StringMapper implements IRowMapper {
+
+		@Override
+		public Object mapRow(ResultSet rs, int row) throws SQLException {
+			return rs.getString(1);
+		}
+
+	}
+
     class DownloadMapper implements IRowMapper {
 
 		@Override
 		public Object mapRow(ResultSet rs, int row) throws SQLException {
 			Download result = new Download();
+			result.setId(rs.getInt("id"));
+			result.setChecksum(rs.getString("checksum"));
 			result.setCount(rs.getInt("count"));
 			result.setHash(rs.getString("hash"));
 			result.setName(rs.getString("name"));
 			result.setPath(rs.getString("path"));
 			result.setSize(rs.getString("size"));
+			result.setBytes(rs.getLong("bytes"));
+			result.setChecksumAttempts(rs.getInt("checksum_attempts"));
 			return result;
 		}
 
@@ -0,0 +1,139 @@
+package cloudgene.mapred.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Vector;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cloudgene.mapred.database.util.Database;
+import cloudgene.mapred.database.util.IRowMapper;
+import cloudgene.mapred.database.util.JdbcDataAccessObject;
+
+public class InputStoreDao extends JdbcDataAccessObject {
+
+	private static final Logger log = LoggerFactory.getLogger(InputStoreDao.class);
+
+	public InputStoreDao(Database database) {
+		super(database);
+	}
+
+	public boolean insert(String job, String digest, String url) {
+		StringBuilder sql = new StringBuilder();
+		sql.append("insert into input_store (job_id, digest, url) ");
+		sql.append("values (?,?,?)");
+
+		try {
+
+			Object[] params = new Object[3];
+			params[0] = job;
+			params[1] = digest;
+			params[2] = url;
+
+			update(sql.toString(), params);
+
+			log.debug("insert input reference successful.");
+
+		} catch (SQLException e) {
+			log.error("insert input reference failed.", e);
+			return false;
+		}
+
+		return true;
+	}
+
+	@SuppressWarnings("unchecked")
+	public List<Reference> findAllByJob(String job) {
+
+		StringBuilder sql = new StringBuilder();
+		sql.append("select * ");
+		sql.append("from input_store ");
+		sql.append("where job_id = ?");
+
+		Object[] params = new Object[1];
+		params[0] = job;
+
+		List<Reference> result = new Vector<Reference>();
+
+		try {
+
+			result = query(sql.toString(), params, new ReferenceMapper());
+
+			log.debug("find all input references successful. results: " + result.size());
+
+		} catch (SQLException e) {
+			log.error("find all input references failed", e);
+		}
+
+		return result;
+	}
+
+	public int countReferences(String digest, String url) {
+
+		StringBuilder sql = new StringBuilder();
+		sql.append("select count(*) as n ");
+		sql.append("from input_store ");
+		sql.append("where digest = ? and url = ?");
+
+		Object[] params = new Object[2];
+		params[0] = digest;
+		params[1] = url;
+
+		try {
+
+			Integer result = (Integer) queryForObject(sql.toString(), params, new IRowMapper() {
+
+				@Override
+				public Object mapRow(ResultSet rs, int row) throws SQLException {
+					return rs.getInt("n");
+				}
+
+			});
+
+			return result != null ? result : 0;
+
+		} catch (SQLException e) {
+			log.error("count input references failed", e);
+			// keep the stored file when in doubt
+			return -1;
+		}
+
+	}
+
+	public boolean deleteAllByJob(String job) {
+		StringBuilder sql = new StringBuilder();
+		sql.append("delete from input_store ");
+		sql.append("where job_id = ?");
+
+		try {
+
+			Object[] params = new Object[1];
+			params[0] = job;
+
+			update(sql.toString(), params);
+
+			log.debug("delete input references successful.");
+
+		} catch (SQLException e) {
+			log.error("delete input references failed.", e);
+			return false;
+		}
+
+		return true;
+	}
+
+	public record Reference(String job, String digest, String url) {
+	}
+
+	class ReferenceMapper implements IRowMapper {
+
+		@Override
+		public Object mapRow(ResultSet rs, int row) throws SQLException {
+			return new Reference(rs.getString("job_id"), rs.getString("digest"), rs.getString("url"));
+		}
+
+	}
+
+}
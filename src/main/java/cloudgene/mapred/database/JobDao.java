@@ -67,11 +67,11 @@ public class JobDao extends JdbcDataAccessObject {
 		sql.append("  start_time = ?, end_time = ?, ");
 		sql.append("  user_id = ?, s3_url = ?, type = ?, deleted_on = ?, ");
 		sql.append("  application = ?, application_id = ?, submitted_on = ?, ");
-		sql.append("  finished_on = ?, setup_start_time = ?, setup_end_time = ? ");
+		sql.append("  finished_on = ?, setup_start_time = ?, setup_end_time = ?, version = ? ");
 		sql.append("where id = ? ");
 		try {
 
-			Object[] params = new Object[15];
+			Object[] params = new Object[16];
 			params[0] = job.getName();
 			params[1] = job.getState();
 			params[2] = job.getStartTime();
@@ -86,7 +86,9 @@ public class JobDao extends JdbcDataAccessObject {
 			params[11] = job.getEndTime();
 			params[12] = -1;
 			params[13] = -1;
-			params[14] = job.getId();
+			// every stored change is a new version
+			params[14] = job.touch();
+			params[15] = job.getId();
 
 			update(sql.toString(), params);
 
@@ -482,6 +484,7 @@ public class JobDao extends JdbcDataAccessObject {
 			job.setApplicationId(rs.getString("job.application_id"));
 			job.setSubmittedOn(rs.getLong("job.submitted_on"));
 			job.setUserAgent(rs.getString("job.user_agent"));
+			job.setVersion(rs.getLong("job.version"));
 
 			return job;
 		}
@@ -183,6 +183,10 @@ public class ParameterDao extends JdbcDataAccessObject {
 	}
 
     public CloudgeneParameterOutput findByHash(String hash) {
+		return findByHash(hash, true);
+    }
+
+	public CloudgeneParameterOutput findByHash(String hash, boolean loadFiles) {
 		StringBuilder sql = new StringBuilder();
 		sql.append("select * ");
 		sql.append("from parameter ");
@@ -197,9 +201,11 @@ public class ParameterDao extends JdbcDataAccessObject {
 
 			result = (CloudgeneParameterOutput) queryForObject(sql.toString(), params, new ParameterOutputMapper());
 
-			DownloadDao downloadDao = new DownloadDao(database);
-			List<Download> downloads = downloadDao.findAllByParameter(result);
-			result.setFiles(downloads);
+			if (loadFiles && result != null) {
+				DownloadDao downloadDao = new DownloadDao(database);
+				List<Download> downloads = downloadDao.findAllByParameter(result);
+				result.setFiles(downloads);
+			}
 
 			log.debug("find parameter by hash '" + hash + "' successful.");
 
@@ -208,7 +214,7 @@ public class ParameterDao extends JdbcDataAccessObject {
 			log.error("find parameter by hash '" + hash + "' failed.", e);
 			return null;
 		}
-    }
+	}
 
 	public List<CloudgeneParameterOutput> findAllOutput() {
 		StringBuilder sql = new StringBuilder();
@@ -0,0 +1,136 @@
+package cloudgene.mapred.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Vector;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cloudgene.mapred.database.util.Database;
+import cloudgene.mapred.database.util.IRowMapper;
+import cloudgene.mapred.database.util.JdbcDataAccessObject;
+
+public class WorkspaceTaskDao extends JdbcDataAccessObject {
+
+	private static final Logger log = LoggerFactory.getLogger(WorkspaceTaskDao.class);
+
+	public WorkspaceTaskDao(Database database) {
+		super(database);
+	}
+
+	public WorkspaceTask insert(String job, String action) {
+		StringBuilder sql = new StringBuilder();
+		sql.append("insert into workspace_tasks (job_id, action, attempts) ");
+		sql.append("values (?,?,?)");
+
+		try {
+
+			Object[] params = new Object[3];
+			params[0] = job;
+			params[1] = action;
+			params[2] = 0;
+
+			int id = insert(sql.toString(), params);
+
+			log.debug("insert workspace task successful.");
+
+			return new WorkspaceTask(id, job, action, 0);
+
+		} catch (SQLException e) {
+			log.error("insert workspace task failed.", e);
+			return null;
+		}
+
+	}
+
+	@SuppressWarnings("unchecked")
+	public List<WorkspaceTask> findAllPending(int maxAttempts, int limit) {
+
+		StringBuilder sql = new StringBuilder();
+		sql.append("select * ");
+		sql.append("from workspace_tasks ");
+		sql.append("where attempts < ? ");
+		sql.append("order by id ");
+		sql.append("limit ?");
+
+		Object[] params = new Object[2];
+		params[0] = maxAttempts;
+		params[1] = limit;
+
+		List<WorkspaceTask> result = new Vector<WorkspaceTask>();
+
+		try {
+
+			result = query(sql.toString(), params, new WorkspaceTaskMapper());
+
+			log.debug("find all pending workspace tasks successful. results: " + result.size());
+
+		} catch (SQLException e) {
+			log.error("find all pending workspace tasks failed", e);
+		}
+
+		return result;
+	}
+
+	public boolean updateFailed(WorkspaceTask task, String error) {
+		StringBuilder sql = new StringBuilder();
+		sql.append("update workspace_tasks ");
+		sql.append("set attempts = attempts + 1, error = ? ");
+		sql.append("where id = ?");
+
+		try {
+
+			Object[] params = new Object[2];
+			params[0] = error != null ? error.substring(0, Math.min(error.length(), 1000)) : null;
+			params[1] = task.id();
+
+			update(sql.toString(), params);
+
+			log.debug("update workspace task successful.");
+
+		} catch (SQLException e) {
+			log.error("update workspace task failed.", e);
+			return false;
+		}
+
+		return true;
+	}
+
+	public boolean delete(WorkspaceTask task) {
+		StringBuilder sql = new StringBuilder();
+		sql.append("delete from workspace_tasks ");
+		sql.append("where id = ?");
+
+		try {
+
+			Object[] params = new Object[1];
+			params[0] = task.id();
+
+			update(sql.toString(), params);
+
+			log.debug("delete workspace task successful.");
+
+		} catch (SQLException e) {
+			log.error("delete workspace task failed.", e);
+			return false;
+		}
+
+		return true;
+	}
+
+	public record WorkspaceTask(int id, String job, String action, int attempts) {
+	}
+
+	class WorkspaceTaskMapper implements IRowMapper {
+
+		@Override
+		public Object mapRow(ResultSet rs, int row) throws SQLException {
+			return new WorkspaceTask(rs.getInt("id"), rs.getString("job_id"), rs.getString("action"),
+					rs.getInt("attempts"));
+		}
+
+	}
+
+}
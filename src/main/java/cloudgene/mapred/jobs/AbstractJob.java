@@ -1,16 +1,21 @@
 package cloudgene.mapred.jobs;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.Writer;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
 
 import org.apache.commons.lang3.RandomStringUtils;
 import org.slf4j.Logger;
@@ -29,9 +34,17 @@ abstract public class AbstractJob extends PriorityRunnable {
 
 	public static final String JOB_OUT = "std.out";
 
+	public static final String COMPRESSED_LOG_SUFFIX = ".gz";
+
 	private static final Logger log = LoggerFactory.getLogger(AbstractJob.class);
 
-	private DateFormat formatter = new SimpleDateFormat("yy/MM/dd HH:mm:ss");
+	private static final DateTimeFormatter LOG_TIME_FORMAT = DateTimeFormatter.ofPattern("yy/MM/dd HH:mm:ss ")
+			.withZone(ZoneId.systemDefault());
+
+	private static final byte[] NEW_LINE = { '\n' };
+
+	// timestamp prefix changes once per second, format it only then
+	private static volatile LogTime logTime = new LogTime(0, new byte[0]);
 
 	// states
 
@@ -85,6 +98,12 @@ abstract public class AbstractJob extends PriorityRunnable {
 
 	private int positionInQueue = -1;
 
+	// versions of all jobs are taken from one counter, a new version is never
+	// used twice (also not after a restart of the server)
+	private static final AtomicLong versions = new AtomicLong(System.currentTimeMillis() * 1000);
+
+	private volatile long version = 0;
+
 	protected List<CloudgeneParameterInput> inputParams = new Vector<CloudgeneParameterInput>();
 
 	protected List<CloudgeneParameterOutput> outputParams = new Vector<CloudgeneParameterOutput>();
@@ -95,9 +114,9 @@ abstract public class AbstractJob extends PriorityRunnable {
 
 	protected List<Step> steps = new Vector<Step>();
 
-	protected BufferedOutputStream stdOutStream;
+	protected JobLogWriter stdOutStream;
 
-	private BufferedOutputStream logStream;
+	private JobLogWriter logStream;
 
 	protected CloudgeneContext context;
 
@@ -127,7 +146,10 @@ abstract public class AbstractJob extends PriorityRunnable {
 	}
 
 	public void setState(int state) {
-		this.state = state;
+		if (this.state != state) {
+			this.state = state;
+			touch();
+		}
 	}
 
 	public long getStartTime() {
@@ -135,7 +157,10 @@ abstract public class AbstractJob extends PriorityRunnable {
 	}
 
 	public void setStartTime(long startTime) {
-		this.startTime = startTime;
+		if (this.startTime != startTime) {
+			this.startTime = startTime;
+			touch();
+		}
 	}
 
 	public long getEndTime() {
@@ -143,7 +168,10 @@ abstract public class AbstractJob extends PriorityRunnable {
 	}
 
 	public void setEndTime(long endTime) {
-		this.endTime = endTime;
+		if (this.endTime != endTime) {
+			this.endTime = endTime;
+			touch();
+		}
 	}
 
 	public void setSubmittedOn(long submitedOn) {
@@ -179,7 +207,10 @@ abstract public class AbstractJob extends PriorityRunnable {
 	}
 
 	public void setDeletedOn(long deletedOn) {
-		this.deletedOn = deletedOn;
+		if (this.deletedOn != deletedOn) {
+			this.deletedOn = deletedOn;
+			touch();
+		}
 	}
 
 	public long getDeletedOn() {
@@ -218,7 +249,30 @@ abstract public class AbstractJob extends PriorityRunnable {
 	}
 
 	public void setPositionInQueue(int positionInQueue) {
-		this.positionInQueue = positionInQueue;
+		if (this.positionInQueue != positionInQueue) {
+			this.positionInQueue = positionInQueue;
+			touch();
+		}
+	}
+
+	/**
+	 * Version of the job. It increases on every change of the state, position in
+	 * queue, steps or messages and is used to answer conditional requests.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	public void setVersion(long version) {
+		this.version = version;
+	}
+
+	/**
+	 * Marks the job as changed and returns its new version.
+	 */
+	public long touch() {
+		version = versions.incrementAndGet();
+		return version;
 	}
 
 	public int getPositionInQueue() {
@@ -383,9 +437,29 @@ abstract public class AbstractJob extends PriorityRunnable {
 
 	}
 
-	private void initStdOutFiles() throws FileNotFoundException {
-		stdOutStream = new BufferedOutputStream(new FileOutputStream(FileUtil.path(localWorkspace, JOB_OUT)));
-		logStream = new BufferedOutputStream(new FileOutputStream(FileUtil.path(localWorkspace, JOB_LOG)));
+	private synchronized void initStdOutFiles() throws IOException {
+		if (logStream != null) {
+			return;
+		}
+		stdOutStream = new JobLogWriter(FileUtil.path(localWorkspace, JOB_OUT));
+		logStream = new JobLogWriter(FileUtil.path(localWorkspace, JOB_LOG));
+	}
+
+	/**
+	 * Writes all buffered output and log lines to the local files. Called on step
+	 * boundaries, logs are flushed periodically in between.
+	 */
+	public void flushLogs() {
+		try {
+			if (stdOutStream != null) {
+				stdOutStream.flush();
+			}
+			if (logStream != null) {
+				logStream.flush();
+			}
+		} catch (IOException e) {
+			log.error("[Job {}]: Flushing log files failed.", getId(), e);
+		}
 	}
 
 	private void closeStdOutFiles() {
@@ -396,11 +470,8 @@ abstract public class AbstractJob extends PriorityRunnable {
 			logStream.close();
 
 			// stage files to workspace
-			workspace.uploadLog(new File(FileUtil.path(localWorkspace, JOB_OUT)));
-			workspace.uploadLog(new File(FileUtil.path(localWorkspace, JOB_LOG)));
-
-			FileUtil.deleteFile(FileUtil.path(localWorkspace, JOB_OUT));
-			FileUtil.deleteFile(FileUtil.path(localWorkspace, JOB_LOG));
+			workspace.moveLog(prepareLog(JOB_OUT));
+			workspace.moveLog(prepareLog(JOB_LOG));
 
 		} catch (IOException e) {
 			log.error("[Job {}]: Staging log files failed.", getId(), e);
@@ -408,13 +479,29 @@ abstract public class AbstractJob extends PriorityRunnable {
 
 	}
 
+	private File prepareLog(String name) throws IOException {
+
+		File file = new File(FileUtil.path(localWorkspace, name));
+		if (settings == null || !settings.isCompressLogs()) {
+			return file;
+		}
+
+		// a gzip member: further members can be appended and are read as one stream
+		File compressed = new File(file.getAbsolutePath() + COMPRESSED_LOG_SUFFIX);
+		try (InputStream in = new FileInputStream(file);
+				OutputStream out = new GZIPOutputStream(new FileOutputStream(compressed), 64 * 1024)) {
+			in.transferTo(out);
+		}
+		file.delete();
+		return compressed;
+
+	}
+
 	public void writeOutput(String line) {
 
 		try {
 			if (stdOutStream != null && line != null) {
-				stdOutStream.write(line.getBytes("UTF-8"));
-				stdOutStream.flush();
-
+				stdOutStream.write(line.getBytes(StandardCharsets.UTF_8));
 			}
 		} catch (IOException e) {
 			log.error("[Job {}]: Write output failed.", getId(), e);
@@ -433,10 +520,12 @@ abstract public class AbstractJob extends PriorityRunnable {
 				initStdOutFiles();
 			}
 
-			logStream.write((formatter.format(new Date()) + " ").getBytes());
-			logStream.write(line.getBytes("UTF-8"));
-			logStream.write("\n".getBytes("UTF-8"));
-			logStream.flush();
+			byte[] prefix = getLogTime(System.currentTimeMillis());
+			byte[] content = line.getBytes(StandardCharsets.UTF_8);
+			byte[] bytes = Arrays.copyOf(prefix, prefix.length + content.length + NEW_LINE.length);
+			System.arraycopy(content, 0, bytes, prefix.length, content.length);
+			System.arraycopy(NEW_LINE, 0, bytes, prefix.length + content.length, NEW_LINE.length);
+			logStream.write(bytes);
 
 		} catch (IOException e) {
 			log.error("[Job {}]: Write output failed.", getId(), e);
@@ -444,6 +533,20 @@ abstract public class AbstractJob extends PriorityRunnable {
 
 	}
 
+	protected static byte[] getLogTime(long time) {
+		long second = time / 1000;
+		LogTime current = logTime;
+		if (current.second() != second) {
+			current = new LogTime(second,
+					LOG_TIME_FORMAT.format(Instant.ofEpochSecond(second)).getBytes(StandardCharsets.UTF_8));
+			logTime = current;
+		}
+		return current.prefix();
+	}
+
+	private record LogTime(long second, byte[] prefix) {
+	}
+
 	public List<Step> getSteps() {
 		return steps;
 	}
@@ -364,6 +364,7 @@ public class CloudgeneContext extends WorkflowContext {
 			step.setLogMessages(logs);
 		}
 		logs.add(status);
+		job.touch();
 
 	}
 
@@ -380,6 +381,7 @@ public class CloudgeneContext extends WorkflowContext {
 			step.setLogMessages(logs);
 		}
 		logs.add(status);
+		job.touch();
 	}
 
 	public Message createTask(String name) {
@@ -395,6 +397,7 @@ public class CloudgeneContext extends WorkflowContext {
 			step.setLogMessages(logs);
 		}
 		logs.add(status);
+		job.touch();
 		return status;
 	}
 
@@ -449,6 +452,7 @@ public class CloudgeneContext extends WorkflowContext {
 		outputStep.setJob(job);
 		outputStep.setName(name);
 		job.getSteps().add(outputStep);
+		job.touch();
 		return outputStep;
 	}
 
@@ -12,6 +12,7 @@ import cloudgene.mapred.core.User;
 import cloudgene.mapred.jobs.engine.ExecutableStep;
 import cloudgene.mapred.jobs.engine.Executor;
 import cloudgene.mapred.jobs.engine.Planner;
+import cloudgene.mapred.server.services.WorkspaceCleanupService;
 import cloudgene.mapred.wdl.WdlApp;
 import cloudgene.mapred.wdl.WdlParameterInput;
 import cloudgene.mapred.wdl.WdlParameterOutput;
@@ -28,6 +29,8 @@ public class CloudgeneJob extends AbstractJob {
 
 	private Executor executor;
 
+	private WorkspaceCleanupService cleanupService;
+
 	public static final int MAX_DOWNLOAD = 10;
 
 	private static Logger log = LoggerFactory.getLogger(CloudgeneJob.class);
@@ -227,6 +230,13 @@ public class CloudgeneJob extends AbstractJob {
 			return false;
 		}
 
+		// hand off to background service, the job does not wait for deletion
+		if (cleanupService != null) {
+			log.info("[Job {}] Scheduling cleanup...", getId());
+			cleanupService.cleanupAsync(getId());
+			return true;
+		}
+
 		log.info("[Job {}] Cleaning up...", getId());
 
 		try {
@@ -271,25 +281,38 @@ public class CloudgeneJob extends AbstractJob {
 
 		writeLog("  Exporting parameter " + out.getName() + "...");
 		out.setJobId(getId());
-		List<Download> downloads = workspace.getDownloads(out.getValue());
-		for (Download download : downloads) {
-			download.setParameter(out);
-			download.setCount(MAX_DOWNLOAD);
 
+		// names of already exported files, lookup in constant time
+		Set<String> names = new HashSet<String>();
+		for (Download download : out.getFiles()) {
+			names.add(download.getName());
+		}
+
+		List<Download> downloads = new ArrayList<Download>();
+		int[] skipped = new int[2];
+
+		workspace.exportDownloads(out.getValue(), download -> {
 			// check if it is on excludes or not in includes
-			if (!GlobUtil.isFileIncluded(download.getName(), includes, excludes)){
-				writeLog("  Ignore download " + download.getName() + ".");
-				continue;
+			if (!GlobUtil.isFileIncluded(download.getName(), includes, excludes)) {
+				skipped[0]++;
+				return;
 			}
 
-			if (!out.getFiles().contains(download)) {
-				out.getFiles().add(download);
-				writeLog("  Added new download " + download.getName() + ".");
-			} else {
-				writeLog("  Download " + download.getName() + " already added.");
+			if (!names.add(download.getName())) {
+				skipped[1]++;
+				return;
 			}
-		}
+
+			download.setParameter(out);
+			download.setCount(MAX_DOWNLOAD);
+			downloads.add(download);
+		});
+
+		out.getFiles().addAll(downloads);
 		Collections.sort(out.getFiles());
+
+		writeLog("  Added " + downloads.size() + " new downloads (" + skipped[0] + " ignored, " + skipped[1]
+				+ " already added).");
 	}
 
 	public String getWorkingDirectory() {
@@ -300,6 +323,10 @@ public class CloudgeneJob extends AbstractJob {
 		return app;
 	}
 
+	public void setCleanupService(WorkspaceCleanupService cleanupService) {
+		this.cleanupService = cleanupService;
+	}
+
 	@Override
 	public void kill() {
 		if (executor != null) {
@@ -1,13 +1,12 @@
 package cloudgene.mapred.jobs;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.util.List;
+import java.util.function.Consumer;
 
 import cloudgene.mapred.wdl.WdlStep;
+import genepi.io.FileUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,6 +14,8 @@ public abstract class CloudgeneStep {
 
 	private static Logger log = LoggerFactory.getLogger(CloudgeneStep.class);
 
+	public static int OUTPUT_TAIL_SIZE = 64 * 1024;
+
 	private CloudgeneJob job;
 
 	protected Process process;
@@ -73,6 +74,17 @@ public abstract class CloudgeneStep {
 
 	protected boolean executeCommand(List<String> command, CloudgeneContext context, StringBuilder output, File workDir)
 			throws IOException, InterruptedException {
+		return executeCommand(command, context, output, workDir, null);
+	}
+
+	/**
+	 * Executes the command and appends its output directly to the std.out file of
+	 * the job. The output is followed in the background: lines are passed to the
+	 * listener and only the last {@link #OUTPUT_TAIL_SIZE} bytes are appended to
+	 * output.
+	 */
+	protected boolean executeCommand(List<String> command, CloudgeneContext context, StringBuilder output, File workDir,
+			Consumer<String> listener) throws IOException, InterruptedException {
 
 		Environment environment = context.getSettings().buildEnvironment().addContext(context)
 				.addApplication(job.getApp());
@@ -90,23 +102,35 @@ public abstract class CloudgeneStep {
 		builder.environment().putAll(environment.toMap());
 		builder.directory(workDir);
 		builder.redirectErrorStream(true);
-		builder.redirectOutput();
+
+		// buffered lines first, the process appends its output to the same file
+		job.flushLogs();
+		File stdOut = new File(FileUtil.path(job.getLocalWorkspace(), AbstractJob.JOB_OUT));
+		builder.redirectOutput(ProcessBuilder.Redirect.appendTo(stdOut));
+
+		OutputTailer tailer = null;
+		if (output != null || listener != null) {
+			tailer = new OutputTailer(stdOut, stdOut.length(), output != null ? OUTPUT_TAIL_SIZE : 0);
+			tailer.setListener(listener);
+		}
+
 		process = builder.start();
-		InputStream is = process.getInputStream();
-		InputStreamReader isr = new InputStreamReader(is, "ISO-8859-1");
-		BufferedReader br = new BufferedReader(isr);
-		String line = null;
-		while ((line = br.readLine()) != null) {
-			context.println(line);
-			if (output != null) {
-				output.append(line + "\n");
+		if (tailer != null) {
+			tailer.start();
+		}
+
+		try {
+			process.waitFor();
+		} finally {
+			if (tailer != null) {
+				tailer.stop();
 			}
 		}
-		br.close();
-		isr.close();
-		is.close();
 
-		process.waitFor();
+		if (output != null) {
+			output.append(tailer.getTail());
+		}
+
 		context.log("Exit Code: " + process.exitValue());
 
 		if (process.exitValue() != 0) {
@@ -3,13 +3,25 @@ package cloudgene.mapred.jobs;
 
 public class Download implements Comparable<Download> {
 
+	private int id;
 	private String name = "";
 	private String path = "";
 	private String hash = "";
 	private int count = 0;
 	private String size;
+	private long bytes = -1;
+	private String checksum;
+	private int checksumAttempts;
 	private CloudgeneParameterOutput parameter;
 
+	public int getId() {
+		return id;
+	}
+
+	public void setId(int id) {
+		this.id = id;
+	}
+
 	public String getName() {
 		return name;
 	}
@@ -50,6 +62,33 @@ public class Download implements Comparable<Download> {
 		this.size = size;
 	}
 
+	/** Returns the size in bytes, -1 for downloads stored before it was known */
+	public long getBytes() {
+		return bytes;
+	}
+
+	public void setBytes(long bytes) {
+		this.bytes = bytes;
+	}
+
+	/** Returns the hex encoded SHA-256 checksum of the file or null */
+	public String getChecksum() {
+		return checksum;
+	}
+
+	public void setChecksum(String checksum) {
+		this.checksum = checksum;
+	}
+
+	/** Returns the number of failed attempts to compute the checksum */
+	public int getChecksumAttempts() {
+		return checksumAttempts;
+	}
+
+	public void setChecksumAttempts(int checksumAttempts) {
+		this.checksumAttempts = checksumAttempts;
+	}
+
 	public void setParameter(CloudgeneParameterOutput parameter) {
 		this.parameter = parameter;
 	}
@@ -74,4 +113,9 @@ public class Download implements Comparable<Download> {
 		return name.equals(download.getName());
 	}
 
+	@Override
+	public int hashCode() {
+		return name.hashCode();
+	}
+
 }
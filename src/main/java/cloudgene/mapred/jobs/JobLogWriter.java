@@ -0,0 +1,154 @@
+package cloudgene.mapred.jobs;
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Buffered writer for job logs. Lines are collected in memory and written to
+ * the file when the buffer reaches {@link #FLUSH_SIZE}, on an explicit
+ * {@link #flush()} (e.g. at step boundaries) and by a shared flusher thread at
+ * least every {@link #FLUSH_INTERVAL_MS} milliseconds. Two buffers are used, so
+ * writers can continue while the other buffer is written to disk. The file is
+ * opened in append mode, so child processes can append to the same file.
+ */
+public class JobLogWriter implements Closeable {
+
+	private static final Logger log = LoggerFactory.getLogger(JobLogWriter.class);
+
+	public static int BUFFER_SIZE = 128 * 1024;
+
+	public static int FLUSH_SIZE = 64 * 1024;
+
+	public static long FLUSH_INTERVAL_MS = 500;
+
+	private static final Set<JobLogWriter> writers = ConcurrentHashMap.newKeySet();
+
+	private static ScheduledExecutorService flusher;
+
+	private final String filename;
+
+	private final OutputStream out;
+
+	private final Object ioLock = new Object();
+
+	private byte[] buffer;
+
+	private byte[] spare;
+
+	private int count = 0;
+
+	private boolean closed = false;
+
+	public JobLogWriter(String filename) throws IOException {
+		this.filename = filename;
+		this.out = new FileOutputStream(filename, true);
+		this.buffer = new byte[BUFFER_SIZE];
+		this.spare = new byte[BUFFER_SIZE];
+		register(this);
+	}
+
+	public void write(byte[] bytes) throws IOException {
+		write(bytes, 0, bytes.length);
+	}
+
+	public void write(byte[] bytes, int offset, int length) throws IOException {
+
+		// large chunks are written directly, in order with buffered data
+		if (length > BUFFER_SIZE / 2) {
+			synchronized (ioLock) {
+				flush();
+				out.write(bytes, offset, length);
+			}
+			return;
+		}
+
+		while (true) {
+			synchronized (this) {
+				if (closed) {
+					throw new IOException("Log '" + filename + "' is closed.");
+				}
+				if (length <= buffer.length - count) {
+					System.arraycopy(bytes, offset, buffer, count, length);
+					count += length;
+					if (count < FLUSH_SIZE) {
+						return;
+					}
+					break;
+				}
+			}
+			// no space left, make room and try again
+			flush();
+		}
+
+		flush();
+
+	}
+
+	public void flush() throws IOException {
+		synchronized (ioLock) {
+			byte[] pending;
+			int length;
+			synchronized (this) {
+				if (count == 0) {
+					return;
+				}
+				pending = buffer;
+				length = count;
+				buffer = spare;
+				spare = pending;
+				count = 0;
+			}
+			out.write(pending, 0, length);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		writers.remove(this);
+		synchronized (ioLock) {
+			flush();
+			synchronized (this) {
+				if (closed) {
+					return;
+				}
+				closed = true;
+			}
+			out.close();
+		}
+	}
+
+	protected void flushQuietly() {
+		try {
+			flush();
+		} catch (IOException e) {
+			log.error("Flushing log '" + filename + "' failed.", e);
+		}
+	}
+
+	protected static synchronized void register(JobLogWriter writer) {
+		writers.add(writer);
+		if (flusher == null) {
+			flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "job-log-flusher");
+				thread.setDaemon(true);
+				return thread;
+			});
+			flusher.scheduleWithFixedDelay(() -> {
+				for (JobLogWriter current : writers) {
+					current.flushQuietly();
+				}
+			}, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+		}
+	}
+
+}
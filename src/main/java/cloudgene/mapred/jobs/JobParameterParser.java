@@ -2,6 +2,7 @@ package cloudgene.mapred.jobs;
 
 import cloudgene.mapred.jobs.workspace.IWorkspace;
 import cloudgene.mapred.server.Application;
+import cloudgene.mapred.server.services.InputStoreService;
 import cloudgene.mapred.util.FormUtil;
 import cloudgene.mapred.wdl.WdlApp;
 import cloudgene.mapred.wdl.WdlParameterInput;
@@ -29,6 +30,11 @@ public class JobParameterParser {
 
     public static Map<String, String> parse(List<FormUtil.Parameter> form, WdlApp app, IWorkspace workspace)
             throws Exception {
+        return parse(form, app, workspace, null, null);
+    }
+
+    public static Map<String, String> parse(List<FormUtil.Parameter> form, WdlApp app, IWorkspace workspace,
+            InputStoreService inputStore, String job) throws Exception {
 
         Map<String, String> props = new HashMap<String, String>();
         Map<String, String> params = new HashMap<String, String>();
@@ -68,10 +74,15 @@ public class JobParameterParser {
 
                 try {
 
-                    // copy to workspace in input directory
+                    // move to workspace in input directory
                     long start = System.currentTimeMillis();
                     log.debug("Upload file " + inputFile.getAbsolutePath() + " to workspace...");
-                    String target = workspace.uploadInput(key, inputFile);
+                    String target;
+                    if (inputStore != null) {
+                        target = inputStore.uploadInput(workspace, job, key, inputFile, formParam.getDigest());
+                    } else {
+                        target = workspace.moveInput(key, inputFile);
+                    }
                     log.debug("File " + inputFile.getAbsolutePath() + " uploaded in " + (System.currentTimeMillis() - start) + " ms");
 
                     if (input.isFolder()) {
@@ -98,7 +109,7 @@ public class JobParameterParser {
                     File file = Files.createTempFile("upload_", input.getWriteFile()).toFile();
                     try {
                         FileUtil.writeStringBufferToFile(file.getAbsolutePath(), new StringBuffer(cleanedValue));
-                        String target = workspace.uploadInput(key, file);
+                        String target = workspace.moveInput(key, file);
                         cleanedValue = target;
                         log.debug("Parameter " + key + " value written to file '" + target + '"');
                     }finally {
@@ -1,5 +1,7 @@
 package cloudgene.mapred.jobs;
 
+import java.util.Objects;
+
 public class Message {
 
 	public static final int OK = 0;
@@ -37,7 +39,10 @@ public class Message {
 	}
 
 	public void setMessage(String message) {
-		this.message = message;
+		if (!Objects.equals(this.message, message)) {
+			this.message = message;
+			changed();
+		}
 	}
 
 	public int getType() {
@@ -45,7 +50,10 @@ public class Message {
 	}
 
 	public void setType(int type) {
-		this.type = type;
+		if (this.type != type) {
+			this.type = type;
+			changed();
+		}
 	}
 
 	public Step getStep() {
@@ -56,6 +64,13 @@ public class Message {
 		this.step = step;
 	}
 
+	// progress of a job is reported by updating its messages
+	protected void changed() {
+		if (step != null && step.getJob() != null) {
+			step.getJob().touch();
+		}
+	}
+
 	public long getTime() {
 		return time;
 	}
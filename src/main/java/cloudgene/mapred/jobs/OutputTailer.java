@@ -0,0 +1,191 @@
+package cloudgene.mapred.jobs;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Follows the output that a process appends to a file. The last
+ * <code>capacity</code> bytes are kept in a ring buffer, complete lines are
+ * passed to an optional listener (e.g. to parse progress). Memory usage does
+ * not depend on the size of the output.
+ */
+public class OutputTailer {
+
+	private static final Logger log = LoggerFactory.getLogger(OutputTailer.class);
+
+	public static int READ_SIZE = 64 * 1024;
+
+	public static int MAX_LINE_LENGTH = 64 * 1024;
+
+	public static long INTERVAL_MS = 200;
+
+	private final File file;
+
+	private long position;
+
+	private final byte[] tail;
+
+	private int tailEnd = 0;
+
+	private boolean wrapped = false;
+
+	private byte[] line = new byte[256];
+
+	private int lineLength = 0;
+
+	private Consumer<String> listener;
+
+	private Thread thread;
+
+	private volatile boolean stopped = false;
+
+	public OutputTailer(File file, long position, int capacity) {
+		this.file = file;
+		this.position = position;
+		this.tail = new byte[capacity];
+	}
+
+	public void setListener(Consumer<String> listener) {
+		this.listener = listener;
+	}
+
+	public void start() {
+		thread = new Thread(this::follow, "output-tailer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Reads the remaining output and waits until all lines are processed.
+	 */
+	public void stop() throws InterruptedException {
+		stopped = true;
+		if (thread != null) {
+			// no interrupt: it would close the channel
+			LockSupport.unpark(thread);
+			thread.join();
+		}
+	}
+
+	protected void follow() {
+
+		ByteBuffer buffer = ByteBuffer.allocate(READ_SIZE);
+
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+
+			while (true) {
+
+				// stop flag is checked before the read, so the last read sees all output
+				boolean last = stopped;
+				boolean eof = false;
+
+				while (!eof) {
+					buffer.clear();
+					int read = channel.read(buffer, position);
+					if (read <= 0) {
+						eof = true;
+					} else {
+						position += read;
+						consume(buffer.array(), read);
+					}
+				}
+
+				if (last) {
+					break;
+				}
+
+				LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(INTERVAL_MS));
+
+			}
+
+			if (lineLength > 0) {
+				emitLine();
+			}
+
+		} catch (IOException e) {
+			log.error("Reading output of '" + file.getAbsolutePath() + "' failed.", e);
+		}
+
+	}
+
+	protected void consume(byte[] bytes, int length) {
+
+		synchronized (tail) {
+			int offset = Math.max(0, length - tail.length);
+			while (offset < length) {
+				int count = Math.min(length - offset, tail.length - tailEnd);
+				System.arraycopy(bytes, offset, tail, tailEnd, count);
+				offset += count;
+				tailEnd += count;
+				if (tailEnd == tail.length) {
+					tailEnd = 0;
+					wrapped = true;
+				}
+			}
+		}
+
+		if (listener == null) {
+			return;
+		}
+
+		for (int i = 0; i < length; i++) {
+			byte value = bytes[i];
+			if (value == '\n') {
+				emitLine();
+			} else if (lineLength < MAX_LINE_LENGTH) {
+				if (lineLength == line.length) {
+					byte[] larger = new byte[Math.min(MAX_LINE_LENGTH, line.length * 2)];
+					System.arraycopy(line, 0, larger, 0, lineLength);
+					line = larger;
+				}
+				line[lineLength++] = value;
+			}
+		}
+
+	}
+
+	protected void emitLine() {
+		int length = lineLength;
+		if (length > 0 && line[length - 1] == '\r') {
+			length--;
+		}
+		lineLength = 0;
+		try {
+			listener.accept(new String(line, 0, length, StandardCharsets.UTF_8));
+		} catch (Exception e) {
+			log.error("Processing output of '" + file.getAbsolutePath() + "' failed.", e);
+		}
+	}
+
+	/**
+	 * Returns the last bytes of the output. If older output was dropped, the tail
+	 * starts with the first complete line.
+	 */
+	public String getTail() {
+		synchronized (tail) {
+			if (!wrapped) {
+				return new String(tail, 0, tailEnd, StandardCharsets.UTF_8);
+			}
+			byte[] bytes = new byte[tail.length];
+			System.arraycopy(tail, tailEnd, bytes, 0, tail.length - tailEnd);
+			System.arraycopy(tail, 0, bytes, tail.length - tailEnd, tailEnd);
+			int start = 0;
+			while (start < bytes.length && bytes[start] != '\n') {
+				start++;
+			}
+			start = Math.min(bytes.length, start + 1);
+			return new String(bytes, start, bytes.length - start, StandardCharsets.UTF_8);
+		}
+	}
+
+}
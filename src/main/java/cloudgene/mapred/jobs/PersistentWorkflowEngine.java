@@ -69,8 +69,8 @@ public class PersistentWorkflowEngine extends WorkflowEngine {
 
 					for (Download download : parameter.getFiles()) {
 						download.setParameter(parameter);
-						downloadDao.insert(download);
 					}
+					downloadDao.insertAll(parameter.getFiles());
 
 				}
 
@@ -82,8 +82,8 @@ public class PersistentWorkflowEngine extends WorkflowEngine {
 
 			for (Download download : job.getLogOutput().getFiles()) {
 				download.setParameter(job.getLogOutput());
-				downloadDao.insert(download);
 			}
+			downloadDao.insertAll(job.getLogOutput().getFiles());
 
 		}
 
@@ -102,6 +102,7 @@ public class ExecutableStep {
 		job.writeLog("------------------------------------------------------");
 		job.writeLog(step.getName());
 		job.writeLog("------------------------------------------------------");
+		job.flushLogs();
 
 		long start = System.currentTimeMillis();
 
@@ -125,6 +126,8 @@ public class ExecutableStep {
 		} catch (Exception e) {
 			log.error("Running extern job failed!", e);
 			return killed ? ExecutionResult.CANCELED : ExecutionResult.FAILED;
+		} finally {
+			job.flushLogs();
 		}
 
 		return ExecutionResult.SUCCESS;
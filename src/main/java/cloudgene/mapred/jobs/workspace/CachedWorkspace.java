@@ -0,0 +1,197 @@
+package cloudgene.mapred.jobs.workspace;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.function.Consumer;
+
+import cloudgene.mapred.jobs.Download;
+import genepi.io.FileUtil;
+
+/**
+ * Read-through cache in front of a remote workspace. Reads (exists, download
+ * and downloadLog) are answered from a local {@link WorkspaceCache}, all other
+ * operations are passed to the wrapped workspace.
+ */
+public class CachedWorkspace implements IWorkspace {
+
+	private IWorkspace workspace;
+
+	private WorkspaceCache cache;
+
+	private String job;
+
+	public CachedWorkspace(IWorkspace workspace, WorkspaceCache cache) {
+		this.workspace = workspace;
+		this.cache = cache;
+	}
+
+	public IWorkspace getWorkspace() {
+		return workspace;
+	}
+
+	@Override
+	public void setJob(String job) {
+		this.job = job;
+		workspace.setJob(job);
+	}
+
+	@Override
+	public void setup() throws IOException {
+		workspace.setup();
+	}
+
+	@Override
+	public String upload(String id, File file) throws IOException {
+		String target = workspace.upload(id, file);
+		cache.invalidate(target);
+		return target;
+	}
+
+	@Override
+	public String uploadInput(String id, File file) throws IOException {
+		String target = workspace.uploadInput(id, file);
+		cache.invalidate(target);
+		return target;
+	}
+
+	@Override
+	public String uploadLog(File file) throws IOException {
+		String target = workspace.uploadLog(file);
+		cache.invalidate(target);
+		return target;
+	}
+
+	@Override
+	public String move(String id, File file) throws IOException {
+		String target = workspace.move(id, file);
+		cache.invalidate(target);
+		return target;
+	}
+
+	@Override
+	public String moveInput(String id, File file) throws IOException {
+		String target = workspace.moveInput(id, file);
+		cache.invalidate(target);
+		return target;
+	}
+
+	@Override
+	public String moveLog(File file) throws IOException {
+		String target = workspace.moveLog(file);
+		cache.invalidate(target);
+		return target;
+	}
+
+	@Override
+	public String createStoredInput(String digest) {
+		return workspace.createStoredInput(digest);
+	}
+
+	@Override
+	public String storeInput(String digest, File file) throws IOException {
+		String target = workspace.storeInput(digest, file);
+		cache.invalidate(target);
+		return target;
+	}
+
+	@Override
+	public String linkInput(String id, String name, String url) throws IOException {
+		String target = workspace.linkInput(id, name, url);
+		cache.invalidate(target);
+		return target;
+	}
+
+	@Override
+	public void deleteStoredInput(String url) throws IOException {
+		workspace.deleteStoredInput(url);
+		cache.invalidate(url);
+	}
+
+	@Override
+	public InputStream download(String url) throws IOException {
+		return cache.open(workspace, url);
+	}
+
+	@Override
+	public void delete(String job) throws IOException {
+		workspace.delete(job);
+		cache.invalidateAll("/" + job + "/");
+	}
+
+	@Override
+	public String getName() {
+		return workspace.getName();
+	}
+
+	@Override
+	public String createPublicLink(String url) {
+		return workspace.createPublicLink(url);
+	}
+
+	@Override
+	public String getParent(String url) {
+		return workspace.getParent(url);
+	}
+
+	@Override
+	public String createFolder(String id) {
+		return workspace.createFolder(id);
+	}
+
+	@Override
+	public String createFile(String name, String name2) {
+		return workspace.createFile(name, name2);
+	}
+
+	@Override
+	public String createLogFile(String name) {
+		return workspace.createLogFile(name);
+	}
+
+	@Override
+	public String createTempFolder(String id) {
+		return workspace.createTempFolder(id);
+	}
+
+	@Override
+	public List<Download> getDownloads(String url) throws IOException {
+		return workspace.getDownloads(url);
+	}
+
+	@Override
+	public void exportDownloads(String url, Consumer<Download> consumer) throws IOException {
+		workspace.exportDownloads(url, consumer);
+	}
+
+	@Override
+	public List<Download> getLogs() throws IOException {
+		return workspace.getLogs();
+	}
+
+	@Override
+	public void cleanup(String job) throws IOException {
+		workspace.cleanup(job);
+		cache.invalidateAll("/" + job + "/");
+	}
+
+	@Override
+	public boolean exists(String path) throws IOException {
+		return cache.exists(workspace, path);
+	}
+
+	@Override
+	public WorkspaceObject getObject(String path) throws IOException {
+		return workspace.getObject(path);
+	}
+
+	@Override
+	public String downloadLog(String name) throws IOException {
+		if (job == null) {
+			throw new IOException("No job id provided.");
+		}
+		return FileUtil.readFileAsString(download(workspace.createLogFile(name)));
+	}
+
+}
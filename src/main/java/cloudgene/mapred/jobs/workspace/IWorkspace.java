@@ -4,6 +4,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
+import java.util.function.Consumer;
 
 import cloudgene.mapred.jobs.Download;
 
@@ -19,6 +20,20 @@ public interface IWorkspace {
 	
 	public String uploadLog(File file) throws IOException;
 
+	public String move(String id, File file) throws IOException;
+
+	public String moveInput(String id, File file) throws IOException;
+
+	public String moveLog(File file) throws IOException;
+
+	public String createStoredInput(String digest);
+
+	public String storeInput(String digest, File file) throws IOException;
+
+	public String linkInput(String id, String name, String url) throws IOException;
+
+	public void deleteStoredInput(String url) throws IOException;
+
 	public InputStream download(String url) throws IOException;
 
 	public void delete(String job) throws IOException;
@@ -38,6 +53,8 @@ public interface IWorkspace {
 	public String createTempFolder(String string);
 
 	public List<Download> getDownloads(String url) throws IOException;
+
+	public void exportDownloads(String url, Consumer<Download> consumer) throws IOException;
 	
 	public List<Download> getLogs() throws IOException;
 	
@@ -45,6 +62,8 @@ public interface IWorkspace {
 	
 	public boolean exists(String path) throws IOException;
 
+	public WorkspaceObject getObject(String path) throws IOException;
+
 	public String downloadLog(String string) throws IOException;
 	
 }
@@ -4,17 +4,24 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 import java.util.Vector;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import cloudgene.mapred.jobs.Download;
+import cloudgene.mapred.util.DaemonThreadFactory;
+import cloudgene.mapred.util.FileTransfer;
 import cloudgene.mapred.util.HashUtil;
+import cloudgene.mapred.util.LocalFileLister;
 import genepi.io.FileUtil;
 
 public class LocalWorkspace implements IWorkspace {
@@ -25,8 +32,14 @@ public class LocalWorkspace implements IWorkspace {
 
 	private static final String LOGS_DIRECTORY = "logs";
 
+	private static final String STORE_DIRECTORY = "input-store";
+
+	public static int LISTING_THREADS = 8;
+
 	private static final Logger log = LoggerFactory.getLogger(LocalWorkspace.class);
 
+	private static ExecutorService listingExecutor;
+
 	private String location;
 
 	private String workspace;
@@ -62,7 +75,7 @@ public class LocalWorkspace implements IWorkspace {
 		FileUtil.createDirectory(folder);
 		String target = FileUtil.path(folder, file.getName());
 		log.info("Copy file " + file.getAbsolutePath() + " to " + target);
-		FileUtil.copy(file.getAbsolutePath(), target);
+		FileTransfer.copy(file.toPath(), Path.of(target));
 		return target;
 	}
 
@@ -76,6 +89,60 @@ public class LocalWorkspace implements IWorkspace {
 		return upload(FileUtil.path(INPUT_DIRECTORY, id), file);
 	}
 
+	@Override
+	public String move(String id, File file) throws IOException {
+		String target = FileUtil.path(workspace, id, file.getName());
+		log.info("Move file " + file.getAbsolutePath() + " to " + target);
+		FileTransfer.move(file.toPath(), Path.of(target));
+		return target;
+	}
+
+	@Override
+	public String moveInput(String id, File file) throws IOException {
+		return move(FileUtil.path(INPUT_DIRECTORY, id), file);
+	}
+
+	@Override
+	public String moveLog(File file) throws IOException {
+		return move(LOGS_DIRECTORY, file);
+	}
+
+	@Override
+	public String createStoredInput(String digest) {
+		return FileUtil.path(location, STORE_DIRECTORY, digest.substring(0, 2), digest);
+	}
+
+	@Override
+	public String storeInput(String digest, File file) throws IOException {
+		Path target = Path.of(createStoredInput(digest));
+		Files.createDirectories(target.getParent());
+		Path temp = Files.createTempFile(target.getParent(), digest, ".tmp");
+		try {
+			FileTransfer.move(file.toPath(), temp);
+			// jobs share the file via hardlinks and must not modify it
+			temp.toFile().setReadOnly();
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+		return target.toString();
+	}
+
+	@Override
+	public String linkInput(String id, String name, String url) throws IOException {
+		String folder = FileUtil.path(workspace, INPUT_DIRECTORY, id);
+		FileUtil.createDirectory(folder);
+		Path target = Path.of(folder, name);
+		log.info("Link file " + url + " to " + target);
+		FileTransfer.link(Path.of(url), target);
+		return target.toString();
+	}
+
+	@Override
+	public void deleteStoredInput(String url) throws IOException {
+		Files.deleteIfExists(Path.of(url));
+	}
+
 	@Override
 	public InputStream download(String path) throws IOException {
 		String absolutePath = path;
@@ -110,6 +177,22 @@ public class LocalWorkspace implements IWorkspace {
 		return file.exists();
 	}
 
+	@Override
+	public WorkspaceObject getObject(String path) {
+		String absolutePath = path;
+		if (!absolutePath.startsWith("/")) {
+			absolutePath = FileUtil.path(location, path);
+		}
+		File file = new File(absolutePath);
+		if (!file.isFile()) {
+			return null;
+		}
+		long size = file.length();
+		long lastModified = file.lastModified();
+		String etag = Long.toHexString(lastModified) + "-" + Long.toHexString(size);
+		return new WorkspaceObject(absolutePath, size, lastModified, etag);
+	}
+
 	@Override
 	public void delete(String job) throws IOException {
 
@@ -188,50 +271,36 @@ public class LocalWorkspace implements IWorkspace {
 	}
 
 	@Override
-	public List<Download> getDownloads(String url) {
-		File folder = new File(url);
+	public List<Download> getDownloads(String url) throws IOException {
 		List<Download> downloads = new Vector<Download>();
-		exportFolder("", folder, downloads);
+		exportDownloads(url, downloads::add);
 		return downloads;
 	}
 
-	private void exportFolder(String prefix, File folder, List<Download> downloads) {
-
-		if (!folder.exists()) {
-			return;
-		}
-
-		if (folder.isFile()) {
-			Download download = createDownload(prefix, folder);
-			downloads.add(download);
-			return;
-		}
+	@Override
+	public void exportDownloads(String url, Consumer<Download> consumer) throws IOException {
+		LocalFileLister lister = new LocalFileLister(getListingExecutor());
+		lister.setIgnore("cloudgene.out");
+		lister.list(Path.of(url), entry -> consumer.accept(createDownload(entry)));
+	}
 
-		File[] files = folder.listFiles();
-
-		for (File file : files) {
-			if (file.isFile()) {
-				if (file.getName().equals("cloudgene.out")){
-					continue;
-				}
-				Download download = createDownload(prefix, file);
-				downloads.add(download);
-			} else {
-				exportFolder(prefix.equals("") ? file.getName() : prefix + "/" + file.getName(), file, downloads);
-			}
+	/**
+	 * Returns the pool shared by all listings of local workspaces.
+	 */
+	protected static synchronized ExecutorService getListingExecutor() {
+		if (listingExecutor == null) {
+			listingExecutor = Executors.newFixedThreadPool(LISTING_THREADS, new DaemonThreadFactory("local-listing"));
 		}
-
+		return listingExecutor;
 	}
 
-	protected Download createDownload(String prefix, File file) {
-		String filename = prefix.equals("") ? file.getName() : prefix + "/" + file.getName();
-		String size = FileUtils.byteCountToDisplaySize(file.length());
-		String hash = HashUtil.getSha256(filename + size + (ThreadLocalRandom.current().nextDouble() * 100000));
+	protected Download createDownload(LocalFileLister.Entry entry) {
 		Download download = new Download();
-		download.setName(filename);
-		download.setPath(relative(file.getAbsolutePath()));
-		download.setSize(size);
-		download.setHash(hash);
+		download.setName(entry.name());
+		download.setPath(relative(entry.path().toAbsolutePath().toString()));
+		download.setSize(FileUtils.byteCountToDisplaySize(entry.size()));
+		download.setBytes(entry.size());
+		download.setHash(HashUtil.createUniqueId());
 		return download;
 	}
 
@@ -247,7 +316,7 @@ public class LocalWorkspace implements IWorkspace {
 	}
 
 	@Override
-	public List<Download> getLogs() {
+	public List<Download> getLogs() throws IOException {
 		String location = FileUtil.path(workspace, LOGS_DIRECTORY);
 		return getDownloads(location);
 	}
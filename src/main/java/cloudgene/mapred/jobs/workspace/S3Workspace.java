@@ -4,9 +4,10 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.file.Files;
 import java.util.List;
 import java.util.Vector;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
 
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
@@ -14,14 +15,16 @@ import org.slf4j.LoggerFactory;
 
 import com.amazonaws.HttpMethod;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
-import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectInputStream;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
 
 import cloudgene.mapred.jobs.Download;
 import cloudgene.mapred.util.HashUtil;
+import cloudgene.mapred.util.S3ObjectLister;
 import cloudgene.mapred.util.S3Util;
 import genepi.io.FileUtil;
 
@@ -35,6 +38,8 @@ public class S3Workspace implements IWorkspace {
 
 	private static final String TEMP_DIRECTORY = "temp";
 
+	private static final String STORE_DIRECTORY = "input-store";
+
 	public static long EXPIRATION_MS = 1000 * 60 * 60;
 
 	private static final Logger log = LoggerFactory.getLogger(S3Workspace.class);
@@ -99,6 +104,51 @@ public class S3Workspace implements IWorkspace {
 		return upload(LOGS_DIRECTORY, file);
 	}
 
+	@Override
+	public String move(String id, File file) throws IOException {
+		String target = upload(id, file);
+		Files.delete(file.toPath());
+		return target;
+	}
+
+	@Override
+	public String moveInput(String id, File file) throws IOException {
+		return move(FileUtil.path(INPUT_DIRECTORY, id), file);
+	}
+
+	@Override
+	public String moveLog(File file) throws IOException {
+		return move(LOGS_DIRECTORY, file);
+	}
+
+	@Override
+	public String createStoredInput(String digest) {
+		return location + "/" + STORE_DIRECTORY + "/" + digest;
+	}
+
+	@Override
+	public String storeInput(String digest, File file) throws IOException {
+		String target = createStoredInput(digest);
+		log.info("Copy file " + file.getAbsolutePath() + " to " + target);
+		S3Util.copyToS3(file, target);
+		return target;
+	}
+
+	@Override
+	public String linkInput(String id, String name, String url) throws IOException {
+		String target = location + "/" + job + "/" + INPUT_DIRECTORY + "/" + id + "/" + name;
+		log.info("Copy object " + url + " to " + target);
+		S3Util.copyObject(url, target);
+		return target;
+	}
+
+	@Override
+	public void deleteStoredInput(String url) throws IOException {
+		S3Util.UrlParts urlParts = S3Util.getParts(url);
+		AmazonS3 s3 = S3Util.getAmazonS3();
+		s3.deleteObject(urlParts.bucket(), urlParts.key());
+	}
+
 	@Override
 	public InputStream download(String url) throws IOException {
 		S3Util.UrlParts urlParts = S3Util.getParts(url);
@@ -123,6 +173,22 @@ public class S3Workspace implements IWorkspace {
 		return s3.doesObjectExist(urlParts.bucket(), urlParts.key());
 	}
 
+	@Override
+	public WorkspaceObject getObject(String url) throws IOException {
+		S3Util.UrlParts urlParts = S3Util.getParts(url);
+		AmazonS3 s3 = S3Util.getAmazonS3();
+		try {
+			ObjectMetadata metadata = s3.getObjectMetadata(urlParts.bucket(), urlParts.key());
+			long lastModified = metadata.getLastModified() != null ? metadata.getLastModified().getTime() : 0;
+			return new WorkspaceObject(url, metadata.getContentLength(), lastModified, metadata.getETag());
+		} catch (AmazonS3Exception e) {
+			if (e.getStatusCode() == 404) {
+				return null;
+			}
+			throw new IOException("Reading metadata of '" + url + "' failed.", e);
+		}
+	}
+
 	@Override
 	public void delete(String job) throws IOException {
 
@@ -130,15 +196,15 @@ public class S3Workspace implements IWorkspace {
 			throw new IOException("Output Url '" + location + "' is not a valid S3 bucket.");
 		}
 
-		String url = location + "/" + job;
+		String url = location + "/" + job + "/";
 
 		try {
 
 			log.info("Deleting " + job + " on S3 workspace: '" + url + "'...");
 
-			S3Util.deleteFolder(url);
+			long deleted = S3Util.deleteFolders(url);
 
-			log.info("Deleted all files on S3 for job " + job + ".");
+			log.info("Deleted all " + deleted + " files on S3 for job " + job + ".");
 
 		} catch (Exception e) {
 			throw new IOException("Folder '" + url + "' could not be deleted.", e);
@@ -152,22 +218,15 @@ public class S3Workspace implements IWorkspace {
 			throw new IOException("Output Url '" + location + "' is not a valid S3 bucket.");
 		}
 
-		String temp = location + "/" + job + "/" + TEMP_DIRECTORY;
+		String temp = location + "/" + job + "/" + TEMP_DIRECTORY + "/";
+		String input = location + "/" + job + "/" + INPUT_DIRECTORY + "/";
 		try {
-			log.info("Deleting temp directory for " + job + " on S3 workspace: '" + temp + "'...");
-			S3Util.deleteFolder(temp);
-			log.info("Deleted all files on S3 for job " + job + ".");
+			log.info("Deleting temp and input directories for " + job + " on S3 workspace: '" + temp + "', '" + input
+					+ "'...");
+			long deleted = S3Util.deleteFolders(temp, input);
+			log.info("Deleted " + deleted + " temp and input files on S3 for job " + job + ".");
 		} catch (Exception e) {
-			throw new IOException("Folder '" + temp + "' could not be deleted.", e);
-		}
-
-		String input = location + "/" + job + "/" + INPUT_DIRECTORY;
-		try {
-			log.info("Deleting input directory for " + input + " on S3 workspace: '" + input + "'...");
-			S3Util.deleteFolder(input);
-			log.info("Deleted all files on S3 for job " + job + ".");
-		} catch (Exception e) {
-			throw new IOException("Folder '" + input + "' could not be deleted.", e);
+			throw new IOException("Folders '" + temp + "' and '" + input + "' could not be deleted.", e);
 		}
 
 	}
@@ -227,32 +286,47 @@ public class S3Workspace implements IWorkspace {
 	@Override
 	public List<Download> getDownloads(String url) throws IOException {
 		List<Download> downloads = new Vector<Download>();
-		ObjectListing listing = S3Util.listObjects(url);
+		exportDownloads(url, downloads::add);
+		return downloads;
+	}
+
+	@Override
+	public void exportDownloads(String url, Consumer<Download> consumer) throws IOException {
 
 		S3Util.UrlParts urlParts = S3Util.getParts(url);
+		String prefix = urlParts.key().endsWith("/") ? urlParts.key() : urlParts.key() + "/";
 
-		for (S3ObjectSummary summary : listing.getObjectSummaries()) {
+		S3ObjectLister lister = new S3ObjectLister(S3Util.getListingExecutor());
+		lister.list(url, summary -> {
 
-			if (summary.getKey().endsWith("/")) {
-				continue;
+			String filename = summary.getKey();
+			if (filename.startsWith(prefix)) {
+				filename = filename.substring(prefix.length());
+			} else {
+				// url points to a single file
+				filename = FileUtil.getFilename(filename);
 			}
 
-			String filename = summary.getKey().replaceAll(urlParts.key() + "/", "");
-			String size = FileUtils.byteCountToDisplaySize(summary.getSize());
-			String hash = HashUtil.getSha256(filename + size + (ThreadLocalRandom.current().nextDouble() * 100000));
-			if (filename.equals("cloudgene.out")){
-				continue;
+			if (filename.equals("cloudgene.out")) {
+				return;
 			}
-			Download download = new Download();
-			download.setName(filename);
-			download.setPath("s3://" + summary.getBucketName() + "/" + summary.getKey());
-			download.setSize(size);
-			download.setHash(hash);
-			downloads.add(download);
 
-		}
+			consumer.accept(createDownload(filename, summary));
 
-		return downloads;
+		});
+
+	}
+
+	protected Download createDownload(String filename, S3ObjectSummary summary) {
+		String size = FileUtils.byteCountToDisplaySize(summary.getSize());
+		String hash = HashUtil.createUniqueId();
+		Download download = new Download();
+		download.setName(filename);
+		download.setPath("s3://" + summary.getBucketName() + "/" + summary.getKey());
+		download.setSize(size);
+		download.setBytes(summary.getSize());
+		download.setHash(hash);
+		return download;
 	}
 
 	@Override
@@ -0,0 +1,285 @@
+package cloudgene.mapred.jobs.workspace;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cloudgene.mapred.util.HashUtil;
+import genepi.io.FileUtil;
+
+/**
+ * Bounded on-disk LRU cache for files of remote workspaces. Cached copies are
+ * validated against size and etag of the remote object once they are older
+ * than the validation interval. Missing objects are remembered for a short
+ * time, so repeated exists() checks do not hit the remote storage.
+ */
+public class WorkspaceCache {
+
+	private static final Logger log = LoggerFactory.getLogger(WorkspaceCache.class);
+
+	public static long VALIDATE_AFTER_MS = 60 * 1000;
+
+	public static long NEGATIVE_TTL_MS = 10 * 1000;
+
+	private File directory;
+
+	private long maxSize;
+
+	private long maxObjectSize;
+
+	private long currentSize = 0;
+
+	private LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+	private AtomicLong hits = new AtomicLong();
+
+	private AtomicLong misses = new AtomicLong();
+
+	private AtomicLong negativeHits = new AtomicLong();
+
+	private AtomicLong validations = new AtomicLong();
+
+	private AtomicLong evictions = new AtomicLong();
+
+	public WorkspaceCache(String directory, long maxSize, long maxObjectSize) {
+		this.directory = new File(directory);
+		this.maxSize = maxSize;
+		this.maxObjectSize = Math.min(maxObjectSize, maxSize);
+
+		// entries are only kept in memory, old files are useless after a restart
+		FileUtil.deleteDirectory(this.directory.getAbsolutePath());
+		FileUtil.createDirectory(this.directory.getAbsolutePath());
+
+		log.info("Workspace cache initialized in '" + directory + "' (max size: " + maxSize + " bytes).");
+	}
+
+	public boolean exists(IWorkspace workspace, String url) throws IOException {
+
+		Entry entry = lookup(url);
+		if (entry != null && entry.isFresh()) {
+			if (entry.missing) {
+				negativeHits.incrementAndGet();
+				return false;
+			}
+			hits.incrementAndGet();
+			return true;
+		}
+
+		misses.incrementAndGet();
+		WorkspaceObject object = validate(workspace, url, entry);
+		return object != null;
+
+	}
+
+	public InputStream open(IWorkspace workspace, String url) throws IOException {
+
+		Entry entry = lookup(url);
+		WorkspaceObject object = null;
+
+		if (entry != null && entry.isFresh()) {
+			if (entry.missing) {
+				negativeHits.incrementAndGet();
+				throw new FileNotFoundException("File '" + url + "' not found in workspace.");
+			}
+			if (entry.file != null) {
+				hits.incrementAndGet();
+				return new FileInputStream(entry.file);
+			}
+			object = entry.object;
+		} else {
+			object = validate(workspace, url, entry);
+			if (object == null) {
+				negativeHits.incrementAndGet();
+				throw new FileNotFoundException("File '" + url + "' not found in workspace.");
+			}
+			Entry validated = lookup(url);
+			if (validated != null && validated.file != null) {
+				hits.incrementAndGet();
+				return new FileInputStream(validated.file);
+			}
+		}
+
+		misses.incrementAndGet();
+
+		if (object.size() > maxObjectSize) {
+			return workspace.download(url);
+		}
+
+		return store(workspace, url, object);
+
+	}
+
+	public synchronized void invalidate(String url) {
+		Entry entry = entries.remove(url);
+		if (entry != null) {
+			remove(entry);
+		}
+	}
+
+	public synchronized void invalidateAll(String fragment) {
+		Iterator<Entry> iterator = entries.values().iterator();
+		while (iterator.hasNext()) {
+			Entry entry = iterator.next();
+			if (entry.url.contains(fragment)) {
+				iterator.remove();
+				remove(entry);
+			}
+		}
+	}
+
+	public synchronized Map<String, Long> getStatistics() {
+		Map<String, Long> statistics = new HashMap<String, Long>();
+		statistics.put("entries", (long) entries.size());
+		statistics.put("size", currentSize);
+		statistics.put("maxSize", maxSize);
+		statistics.put("hits", hits.get());
+		statistics.put("misses", misses.get());
+		statistics.put("negativeHits", negativeHits.get());
+		statistics.put("validations", validations.get());
+		statistics.put("evictions", evictions.get());
+		return statistics;
+	}
+
+	protected synchronized Entry lookup(String url) {
+		return entries.get(url);
+	}
+
+	protected WorkspaceObject validate(IWorkspace workspace, String url, Entry entry) throws IOException {
+
+		validations.incrementAndGet();
+		WorkspaceObject object = workspace.getObject(url);
+
+		synchronized (this) {
+			if (object == null) {
+				put(Entry.missing(url));
+			} else if (entry != null && entry.file != null && object.matches(entry.object)) {
+				entry.validatedOn = System.currentTimeMillis();
+			} else {
+				put(Entry.metadata(url, object));
+			}
+		}
+
+		return object;
+
+	}
+
+	protected InputStream store(IWorkspace workspace, String url, WorkspaceObject object) throws IOException {
+
+		File file = new File(directory, HashUtil.getSha256(url));
+		File temp = File.createTempFile("download-", ".tmp", directory);
+
+		long size;
+		try (InputStream in = workspace.download(url)) {
+			size = Files.copy(in, temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			temp.delete();
+			throw e;
+		}
+
+		// stream is opened before the file can be evicted or replaced
+		InputStream stream = new FileInputStream(temp);
+
+		if (size != object.size()) {
+			log.warn("Size of '" + url + "' changed during download. File not cached.");
+			temp.delete();
+			invalidate(url);
+			return stream;
+		}
+
+		synchronized (this) {
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			Entry old = entries.remove(url);
+			if (old != null && old.file != null) {
+				currentSize -= old.object.size();
+			}
+			put(Entry.file(url, object, file));
+		}
+
+		return stream;
+
+	}
+
+	private void put(Entry entry) {
+		Entry old = entries.put(entry.url, entry);
+		if (old != null && old.file != null && !old.file.equals(entry.file)) {
+			remove(old);
+		}
+		if (entry.file != null) {
+			currentSize += entry.object.size();
+			evict();
+		}
+	}
+
+	private void remove(Entry entry) {
+		if (entry.file != null) {
+			currentSize -= entry.object.size();
+			entry.file.delete();
+		}
+	}
+
+	private void evict() {
+		Iterator<Entry> iterator = entries.values().iterator();
+		while (currentSize > maxSize && iterator.hasNext()) {
+			Entry entry = iterator.next();
+			if (entry.file == null) {
+				continue;
+			}
+			iterator.remove();
+			remove(entry);
+			evictions.incrementAndGet();
+		}
+	}
+
+	static class Entry {
+
+		private String url;
+
+		private WorkspaceObject object;
+
+		private File file;
+
+		private boolean missing;
+
+		private long validatedOn = System.currentTimeMillis();
+
+		public static Entry missing(String url) {
+			Entry entry = new Entry();
+			entry.url = url;
+			entry.missing = true;
+			return entry;
+		}
+
+		public static Entry metadata(String url, WorkspaceObject object) {
+			Entry entry = new Entry();
+			entry.url = url;
+			entry.object = object;
+			return entry;
+		}
+
+		public static Entry file(String url, WorkspaceObject object, File file) {
+			Entry entry = metadata(url, object);
+			entry.file = file;
+			return entry;
+		}
+
+		public boolean isFresh() {
+			long age = System.currentTimeMillis() - validatedOn;
+			return age < (missing ? NEGATIVE_TTL_MS : VALIDATE_AFTER_MS);
+		}
+
+	}
+
+}
@@ -1,17 +1,25 @@
 package cloudgene.mapred.jobs.workspace;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import cloudgene.mapred.jobs.AbstractJob;
 import cloudgene.mapred.server.Application;
 import cloudgene.mapred.util.Settings;
+import genepi.io.FileUtil;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 
 @Singleton
 public class WorkspaceFactory {
 
+	private static final long MB = 1024L * 1024L;
+
 	@Inject
 	protected Application application;
 
+	private WorkspaceCache cache;
+
 	public IWorkspace getDefault() {
 
 		Settings settings = application.getSettings();
@@ -24,7 +32,7 @@ public class WorkspaceFactory {
 
 		if (type.equalsIgnoreCase("S3")) {
 			String bucket = settings.getExternalWorkspaceLocation();
-			return new S3Workspace(bucket);
+			return cached(new S3Workspace(bucket));
 		}
 
 		return new LocalWorkspace(settings.getLocalWorkspace());
@@ -32,6 +40,15 @@ public class WorkspaceFactory {
 	}
 
 	public IWorkspace getByUrl(String url) {
+		return getByUrl(url, true);
+	}
+
+	/**
+	 * Returns the workspace of the url. Without cache, objects of external
+	 * workspaces are read directly, e.g. by background tasks that read each
+	 * file only once.
+	 */
+	public IWorkspace getByUrl(String url, boolean useCache) {
 
 		Settings settings = application.getSettings();
 
@@ -41,7 +58,8 @@ public class WorkspaceFactory {
 
 		if (url.startsWith("s3://")) {
 			String bucket = settings.getExternalWorkspaceLocation();
-			return new S3Workspace(bucket);
+			S3Workspace workspace = new S3Workspace(bucket);
+			return useCache ? cached(workspace) : workspace;
 		}
 
 		return new LocalWorkspace(settings.getLocalWorkspace());
@@ -54,4 +72,36 @@ public class WorkspaceFactory {
 		return workspace;
 	}
 
+	public Map<String, Long> getCacheStatistics() {
+		WorkspaceCache cache = getCache();
+		if (cache == null) {
+			return new HashMap<String, Long>();
+		}
+		return cache.getStatistics();
+	}
+
+	protected IWorkspace cached(IWorkspace workspace) {
+		WorkspaceCache cache = getCache();
+		if (cache == null) {
+			return workspace;
+		}
+		return new CachedWorkspace(workspace, cache);
+	}
+
+	protected synchronized WorkspaceCache getCache() {
+
+		Settings settings = application.getSettings();
+		if (settings.getWorkspaceCacheSize() <= 0) {
+			return null;
+		}
+
+		if (cache == null) {
+			String directory = FileUtil.path(settings.getTempPath(), "workspace-cache");
+			cache = new WorkspaceCache(directory, settings.getWorkspaceCacheSize() * MB,
+					settings.getWorkspaceCacheMaxObjectSize() * MB);
+		}
+		return cache;
+
+	}
+
 }
@@ -0,0 +1,13 @@
+package cloudgene.mapred.jobs.workspace;
+
+/**
+ * Metadata of a single file in a workspace. The etag changes whenever the
+ * content changes and is used to validate cached copies.
+ */
+public record WorkspaceObject(String path, long size, long lastModified, String etag) {
+
+	public boolean matches(WorkspaceObject other) {
+		return other != null && size == other.size() && etag != null && etag.equals(other.etag());
+	}
+
+}
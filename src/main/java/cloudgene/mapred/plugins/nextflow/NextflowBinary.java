@@ -37,6 +37,8 @@ public class NextflowBinary {
 
 	private String name;
 
+	private String resume;
+
 	private List<File> envScripts = new Vector<>();
 
 	public static NextflowBinary build(Settings settings) {
@@ -127,6 +129,10 @@ public class NextflowBinary {
 		this.name = name;
 	}
 
+	public void setResume(String resume) {
+		this.resume = resume;
+	}
+
 	public void addEnvScript(File envScript) {
 		this.envScripts.add(envScript);
 	}
@@ -154,7 +160,11 @@ public class NextflowBinary {
 			nextflow.add(revision);
 		}
 
-		if (name != null) {
+		// a resumed run keeps the session, run names can not be used twice
+		if (resume != null) {
+			nextflow.add("-resume");
+			nextflow.add(resume);
+		} else if (name != null) {
 			nextflow.add("-name");
 			nextflow.add(name);
 		}
@@ -181,8 +191,10 @@ public class NextflowBinary {
 		nextflow.add("-ansi-log");
 		nextflow.add("false");
 
-		nextflow.add("-with-weblog");
-		nextflow.add(weblog);
+		if (weblog != null) {
+			nextflow.add("-with-weblog");
+			nextflow.add(weblog);
+		}
 
 		nextflow.add("-with-trace");
 		nextflow.add(trace);
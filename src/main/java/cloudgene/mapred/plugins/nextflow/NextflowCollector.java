@@ -1,10 +1,17 @@
 package cloudgene.mapred.plugins.nextflow;
 
-import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import cloudgene.mapred.jobs.Step;
 import org.slf4j.Logger;
@@ -13,96 +20,282 @@ import org.slf4j.LoggerFactory;
 import cloudgene.mapred.jobs.CloudgeneContext;
 import cloudgene.mapred.util.Settings;
 
+/**
+ * Collects the weblog events of running Nextflow jobs. Events are posted by
+ * many server threads at once: every job has its own state, processes are
+ * found by name and tasks by id, so the cost of an event does not depend on
+ * the number of tasks.
+ * <p>
+ * Events are only queued on the request thread. The queue of a job keeps the
+ * latest event of every task, so it is bounded by the number of tasks and not
+ * by the number of events. Worker threads drain the queue in batches and parse
+ * the reports of finished tasks. When the queue of a job is full, events of new
+ * tasks are dropped instead of slowing down Nextflow. Events with a final
+ * status are never dropped, otherwise a task would stay running and its report
+ * would not be parsed.
+ */
 public class NextflowCollector {
 
 	private static final String COLLECTOR_ENDPOINT = "/api/v2/collect/";
 
-	private static NextflowCollector instance;
+	private static final String TRACE_STATUS = "status";
 
-	private Map<String, List<NextflowProcess>> data;
+	public static int QUEUE_SIZE = 10000;
 
-	private Map<String, CloudgeneContext> contexts;
+	public static int BATCH_SIZE = 500;
 
-	private Map<String, Map<String, NextflowProcessConfig>> configs;
+	public static int WORKERS = 2;
+
+	private static final NextflowCollector instance = new NextflowCollector();
+
+	private final Map<String, JobState> jobs = new ConcurrentHashMap<String, JobState>();
+
+	private final Executor workers;
+
+	private final int queueSize;
+
+	private final AtomicLong received = new AtomicLong();
+
+	private final AtomicLong processed = new AtomicLong();
+
+	private final AtomicLong coalesced = new AtomicLong();
+
+	private final AtomicLong dropped = new AtomicLong();
+
+	private final AtomicLong batches = new AtomicLong();
+
+	private final AtomicLong failed = new AtomicLong();
 
 	private static final Logger log = LoggerFactory.getLogger(NextflowCollector.class);
 
 	public static NextflowCollector getInstance() {
-		if (instance == null) {
-			instance = new NextflowCollector();
-		}
-
 		return instance;
 	}
 
-	private NextflowCollector() {
-		contexts = new HashMap<String, CloudgeneContext>();
-		data = new HashMap<String, List<NextflowProcess>>();
-		configs = new HashMap<String, Map<String, NextflowProcessConfig>>();
+	protected NextflowCollector() {
+		this(Executors.newFixedThreadPool(WORKERS, runnable -> {
+			Thread thread = new Thread(runnable, "nextflow-collector");
+			thread.setDaemon(true);
+			return thread;
+		}), QUEUE_SIZE);
+	}
+
+	protected NextflowCollector(Executor workers, int queueSize) {
+		this.workers = workers;
+		this.queueSize = queueSize;
 	}
 
 	public String addContext(CloudgeneContext context, Map<String, NextflowProcessConfig> config) {
-		contexts.put(context.getPublicJobId(), context);
-		configs.put(context.getPublicJobId(), config);
+		jobs.put(context.getPublicJobId(), new JobState(context, config));
 		Settings settings = context.getSettings();
 		log.info("[Job {}] Register collector for public job id '{}'", context.getJobId(), context.getPublicJobId());
 		return settings.getServerUrl() + settings.getBaseUrl() + COLLECTOR_ENDPOINT + context.getPublicJobId();
 	}
 
-	public void addEvent(String job, Map<String, Object> event) throws IOException {
+	/**
+	 * Queues the event and returns immediately. Returns false if the event was
+	 * dropped because the queue of the job is full.
+	 */
+	public boolean addEvent(String job, Map<String, Object> event) {
 
-		CloudgeneContext context = contexts.get(job);
+		JobState state = jobs.get(job);
 
-		if (context == null) {
+		if (state == null) {
 			log.info("Warning! No context found for public job id '{}'", job);
-			return;
-		}
-
-		List<NextflowProcess> processes = data.get(job);
-		if (processes == null) {
-			processes = new Vector<NextflowProcess>();
-			data.put(job, processes);
+			return false;
 		}
 
 		if (!event.containsKey("trace")) {
-			return;
+			return true;
 		}
 
 		Map<String, Object> trace = (Map<String, Object>) event.get("trace");
-		if (!trace.containsKey("process")) {
+		if (!trace.containsKey("process") || !trace.containsKey("task_id")) {
+			return true;
+		}
+
+		String key = trace.get("process") + "/" + trace.get("task_id");
+		String status = (String) trace.get(TRACE_STATUS);
+
+		synchronized (state.queue) {
+			Map<String, Object> previous = state.queue.get(key);
+			if (previous != null) {
+				// latest event of the task, final states are never replaced by older ones
+				if (NextflowTask.getRank(status) >= NextflowTask.getRank((String) previous.get(TRACE_STATUS))) {
+					state.queue.put(key, trace);
+				}
+				coalesced.incrementAndGet();
+			} else if (state.queue.size() >= queueSize && !NextflowTask.isFinished(status)) {
+				dropped.incrementAndGet();
+				if (state.dropped.getAndIncrement() == 0) {
+					log.warn("[Job {}] Weblog queue is full, dropping events.", state.context.getJobId());
+				}
+				return false;
+			} else {
+				state.queue.put(key, trace);
+			}
+		}
+
+		received.incrementAndGet();
+		schedule(state);
+		return true;
+
+	}
+
+	/**
+	 * Processes all events of the job that are queued, in the calling thread.
+	 */
+	public void flush(CloudgeneContext context) {
+
+		JobState state = jobs.get(context.getPublicJobId());
+		if (state == null) {
 			return;
 		}
 
-		String processName = trace.get("process").toString();
-		for (NextflowProcess process : processes) {
-			if (process.getName().equals(processName)) {
-				process.addTrace(trace);
+		// waits until no worker drains the queue of the job
+		while (!state.scheduled.compareAndSet(false, true)) {
+			try {
+				Thread.sleep(10);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
 				return;
 			}
 		}
+		drain(state);
+
+	}
+
+	protected void schedule(JobState state) {
+		if (state.scheduled.compareAndSet(false, true)) {
+			workers.execute(() -> drain(state));
+		}
+	}
+
+	protected void drain(JobState state) {
+		try {
+			List<Map<String, Object>> batch = new ArrayList<Map<String, Object>>(BATCH_SIZE);
+			while (state.poll(batch, BATCH_SIZE) > 0) {
+				process(state, batch);
+				batch.clear();
+			}
+		} finally {
+			state.scheduled.set(false);
+			// events queued after the last drain
+			if (state.size() > 0) {
+				schedule(state);
+			}
+		}
+	}
 
-		Step step = null;
-		NextflowProcessConfig config = configs.get(job).get(processName);
-		if (config != null) {
-			step = config.getStep();
+	protected void process(JobState state, List<Map<String, Object>> batch) {
+
+		batches.incrementAndGet();
+
+		for (Map<String, Object> trace : batch) {
+			try {
+				String processName = trace.get("process").toString();
+				NextflowProcess process = state.processes.computeIfAbsent(processName, name -> {
+					NextflowProcess created = new NextflowProcess(state.context, name, state.getStep(name));
+					// keeps the order in which processes appeared
+					state.order.add(created);
+					return created;
+				});
+				process.addTrace(trace);
+			} catch (Exception e) {
+				failed.incrementAndGet();
+				log.error("[Job {}] Processing Nextflow weblog event failed.", state.context.getJobId(), e);
+			}
+			processed.incrementAndGet();
 		}
-		NextflowProcess process = new NextflowProcess(context, trace, step);
-		processes.add(process);
+
 	}
 
 	public List<NextflowProcess> getProcesses(CloudgeneContext context) {
-		List<NextflowProcess> processes = data.get(context.getPublicJobId());
-		if (processes == null) {
+		JobState state = jobs.get(context.getPublicJobId());
+		if (state == null) {
 			return new Vector<NextflowProcess>();
 		}
-		return processes;
+		return new Vector<NextflowProcess>(state.order);
 
 	}
 
 	public void cleanProcesses(CloudgeneContext context) {
-		data.remove(context.getPublicJobId());
-		contexts.remove(context.getPublicJobId());
+		JobState state = jobs.remove(context.getPublicJobId());
+		if (state != null && state.dropped.get() > 0) {
+			log.warn("[Job {}] {} weblog events dropped.", context.getJobId(), state.dropped.get());
+		}
 		log.info("[Job {}] Removed collector for public job id '{}'", context.getJobId(), context.getPublicJobId());
 	}
 
+	public Map<String, Long> getStatistics() {
+		long queued = 0;
+		for (JobState state : jobs.values()) {
+			queued += state.size();
+		}
+		Map<String, Long> statistics = new HashMap<String, Long>();
+		statistics.put("jobs", (long) jobs.size());
+		statistics.put("queued", queued);
+		statistics.put("queueSize", (long) queueSize);
+		statistics.put("received", received.get());
+		statistics.put("processed", processed.get());
+		statistics.put("coalesced", coalesced.get());
+		statistics.put("dropped", dropped.get());
+		statistics.put("batches", batches.get());
+		statistics.put("failed", failed.get());
+		return statistics;
+	}
+
+	private static class JobState {
+
+		private final CloudgeneContext context;
+
+		private final Map<String, NextflowProcessConfig> configs;
+
+		private final Map<String, NextflowProcess> processes = new ConcurrentHashMap<String, NextflowProcess>();
+
+		private final List<NextflowProcess> order = new Vector<NextflowProcess>();
+
+		// latest event of every task in arrival order, guarded by itself
+		private final Map<String, Map<String, Object>> queue = new LinkedHashMap<String, Map<String, Object>>();
+
+		// set while a thread drains the queue, events of a job are processed in order
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		private final AtomicLong dropped = new AtomicLong();
+
+		public JobState(CloudgeneContext context, Map<String, NextflowProcessConfig> configs) {
+			this.context = context;
+			this.configs = configs;
+		}
+
+		/**
+		 * Moves at most max events from the queue to the batch and returns their
+		 * number.
+		 */
+		public int poll(List<Map<String, Object>> batch, int max) {
+			synchronized (queue) {
+				int count = 0;
+				Iterator<Map<String, Object>> iterator = queue.values().iterator();
+				while (iterator.hasNext() && count < max) {
+					batch.add(iterator.next());
+					iterator.remove();
+					count++;
+				}
+				return count;
+			}
+		}
+
+		public int size() {
+			synchronized (queue) {
+				return queue.size();
+			}
+		}
+
+		public Step getStep(String processName) {
+			NextflowProcessConfig config = configs != null ? configs.get(processName) : null;
+			return config != null ? config.getStep() : null;
+		}
+
+	}
+
 }
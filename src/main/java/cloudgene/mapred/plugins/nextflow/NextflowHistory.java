@@ -0,0 +1,64 @@
+package cloudgene.mapred.plugins.nextflow;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Reads the history file that Nextflow writes to the launch directory. Every
+ * run has a line with timestamp, duration, run name, status, revision id,
+ * session id and command.
+ */
+public class NextflowHistory {
+
+	public static final String FILENAME = ".nextflow/history";
+
+	private static final int COLUMN_RUN_NAME = 2;
+
+	private static final int COLUMN_SESSION_ID = 5;
+
+	private File file;
+
+	public NextflowHistory(File launchDir) {
+		file = new File(launchDir, FILENAME);
+	}
+
+	/**
+	 * Returns the session id of the run with the given name or null if there is
+	 * no such run.
+	 */
+	public String findSessionByRunName(String runName) throws IOException {
+
+		if (!file.exists()) {
+			return null;
+		}
+
+		for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+			String[] tiles = line.split("\t");
+			if (tiles.length > COLUMN_SESSION_ID && tiles[COLUMN_RUN_NAME].equals(runName)) {
+				return tiles[COLUMN_SESSION_ID];
+			}
+		}
+
+		return null;
+
+	}
+
+	/**
+	 * Returns a valid Nextflow run name: lower case letters, digits and single
+	 * dashes, starting with a letter and at most 80 characters.
+	 */
+	public static String createRunName(String... parts) {
+		String name = "cloudgene";
+		for (String part : parts) {
+			name += "-" + part.toLowerCase().replaceAll("[^a-z0-9]+", "-");
+		}
+		name = name.replaceAll("-+", "-");
+		if (name.length() > 80) {
+			name = name.substring(0, 80);
+		}
+		return name.replaceAll("-$", "");
+	}
+
+}
@@ -21,6 +21,8 @@ public class NextflowPlugin implements IPlugin {
 	public static final String NEXTFLOW_CONFIG = "nextflow.config";
 	public static final String NEXTFLOW_YAML = "nextflow.yaml";
 	public static final String NEXTFLOW_ENV = "nextflow.env";
+	public static final String PROGRESS_WEBLOG = "weblog";
+	public static final String PROGRESS_TRACE = "trace";
 
 	private Settings settings;
 
@@ -77,6 +79,7 @@ public class NextflowPlugin implements IPlugin {
 		Map<String, String> properties = new HashMap<String, String>();
 		properties.put("profile", config.get("nextflow.profile"));
 		properties.put("work", config.get("nextflow.work"));
+		properties.put("progress", config.get("nextflow.progress"));
 
 		Yaml yaml = new Yaml();
 		yaml.dump(properties, new FileWriter(nextflowProperties));
@@ -115,6 +118,9 @@ public class NextflowPlugin implements IPlugin {
 		if (properties.get("work") != null) {
 			config.put("nextflow.work", properties.get("work").toString());
 		}
+		if (properties.get("progress") != null) {
+			config.put("nextflow.progress", properties.get("progress").toString());
+		}
 
 		String nextflowEnv = FileUtil.path(appFolder, NEXTFLOW_ENV);
 		if (new File(nextflowEnv).exists()) {
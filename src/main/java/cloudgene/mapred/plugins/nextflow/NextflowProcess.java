@@ -4,6 +4,9 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import cloudgene.mapred.jobs.CloudgeneContext;
 import cloudgene.mapred.jobs.Step;
@@ -16,33 +19,98 @@ public class NextflowProcess {
 
 	private CloudgeneContext context;
 
+	private Map<Integer, NextflowTask> tasksById = new ConcurrentHashMap<Integer, NextflowTask>();
+
 	private List<NextflowTask> tasks = new Vector<NextflowTask>();
 
-	public NextflowProcess(CloudgeneContext context, Map<String, Object> trace, Step step) throws IOException {
+	// counters are updated when the status of a task changes, not on every render
+	private AtomicInteger running = new AtomicInteger();
+
+	private AtomicInteger completed = new AtomicInteger();
+
+	private AtomicInteger failed = new AtomicInteger();
+
+	private AtomicLong version = new AtomicLong();
+
+	public NextflowProcess(CloudgeneContext context, String name, Step step) {
 		this.context = context;
-		this.name = (String)trace.get("process");
+		this.name = name;
 		this.step = step;
-		addTrace(trace);
 	}
 
 	public String getName() {
 		return name;
 	}
 
+	/**
+	 * Returns a copy of the tasks in the order they appeared.
+	 */
 	public List<NextflowTask> getTasks() {
-		return tasks;
+		return new Vector<NextflowTask>(tasks);
+	}
+
+	public NextflowTask getTask(int id) {
+		return tasksById.get(id);
 	}
 
 	public void addTrace(Map<String, Object> trace) throws IOException {
-		int taskId = (Integer)trace.get("task_id");
-		for (NextflowTask task : tasks) {
-			if (task.getId() == taskId) {
-				task.update(trace);
-				return;
-			}
+		int taskId = (Integer) trace.get("task_id");
+		NextflowTask task = tasksById.computeIfAbsent(taskId, id -> {
+			NextflowTask created = new NextflowTask(context, this, trace, step);
+			tasks.add(created);
+			updateStatus(null, (String) trace.get("status"));
+			return created;
+		});
+		task.update(trace);
+	}
+
+	/**
+	 * Moves a task from one status to another. Called by the task whenever its
+	 * status changes.
+	 */
+	protected void updateStatus(String oldStatus, String newStatus) {
+		count(oldStatus, -1);
+		count(newStatus, 1);
+		version.incrementAndGet();
+	}
+
+	private void count(String status, int delta) {
+		if (status == null) {
+			return;
+		}
+		switch (status) {
+		case "SUBMITTED":
+		case "RUNNING":
+			running.addAndGet(delta);
+			break;
+		case "COMPLETED":
+		case "CACHED":
+			completed.addAndGet(delta);
+			break;
+		case "FAILED":
+		case "KILLED":
+			failed.addAndGet(delta);
+			break;
 		}
-		NextflowTask task = new NextflowTask(context, trace, step);
-		tasks.add(task);
+	}
+
+	public int getRunning() {
+		return running.get();
+	}
+
+	public int getCompleted() {
+		return completed.get();
+	}
+
+	public int getFailed() {
+		return failed.get();
+	}
+
+	/**
+	 * Returns a number that changes whenever the status of a task changes.
+	 */
+	public long getVersion() {
+		return version.get();
 	}
 
 }
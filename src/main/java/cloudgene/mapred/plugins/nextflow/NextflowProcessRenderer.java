@@ -5,6 +5,7 @@ import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.codehaus.groovy.control.CompilationFailedException;
 import org.slf4j.Logger;
@@ -25,25 +26,14 @@ public class NextflowProcessRenderer {
 
 	private static final String TEMPLATES_PROGRESSBAR = "/templates/progressbar.html";
 
-	private static final String FAILED = "FAILED";
-
-	private static final String KILLED = "KILLED";
-
 	private static final String VIEW_PROGRESSBAR = "progressbar";
 
 	private static final String VIEW_LABEL = "label";
 
 	private static final String VIEW_STATUS = "status";
 
-	private static final String TRACE_STATUS = "status";
-
-	private static final String SUBMITTED = "SUBMITTED";
-
-	private static final String COMPLETED = "COMPLETED";
-
-	private static final String RUNNING = "RUNNING";
-
-	public static final Map<String, Template> CACHE = new HashMap<String, Template>();
+	// compiled templates by path, shared by all jobs
+	private static final Map<String, Template> CACHE = new ConcurrentHashMap<String, Template>();
 
 	private static final Logger log = LoggerFactory.getLogger(NextflowProcessRenderer.class);
 
@@ -84,23 +74,9 @@ public class NextflowProcessRenderer {
 
 	public static void render(String label, String template, NextflowProcess process, Message message) {
 
-		int running = 0;
-		int completed = 0;
-		int failed = 0;
-		for (NextflowTask task : process.getTasks()) {
-
-			String status = (String) task.getTrace().get(TRACE_STATUS);
-
-			if (status.equals(RUNNING) || status.equals(SUBMITTED)) {
-				running++;
-			}
-			if (status.equals(COMPLETED)) {
-				completed++;
-			}
-			if (status.equals(FAILED) || status.equals(KILLED)) {
-				failed++;
-			}
-		}
+		int running = process.getRunning();
+		int completed = process.getCompleted();
+		int failed = process.getFailed();
 
 		int total = running + completed + failed;
 		Map<String, Object> bindings = new HashMap<String, Object>();
@@ -135,7 +111,11 @@ public class NextflowProcessRenderer {
 		return rendered.replaceAll("\n", "");
 	}
 
-	public static synchronized Template getTemplate(String path)
+	/**
+	 * Returns the compiled template. Templates are compiled once, lookups of
+	 * compiled templates do not lock.
+	 */
+	public static Template getTemplate(String path)
 			throws IOException, URISyntaxException, CompilationFailedException, ClassNotFoundException {
 		Template template = CACHE.get(path);
 
@@ -143,11 +123,16 @@ public class NextflowProcessRenderer {
 			return template;
 		}
 
-		SimpleTemplateEngine engine = new SimpleTemplateEngine();
-		String content = readTemplate(path);
-		template = engine.createTemplate(content);
-		CACHE.put(path, template);
-		return template;
+		synchronized (CACHE) {
+			template = CACHE.get(path);
+			if (template == null) {
+				SimpleTemplateEngine engine = new SimpleTemplateEngine();
+				String content = readTemplate(path);
+				template = engine.createTemplate(content);
+				CACHE.put(path, template);
+			}
+			return template;
+		}
 	}
 
 	private static String readTemplate(String path) {
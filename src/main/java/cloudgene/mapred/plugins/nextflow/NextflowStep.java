@@ -7,9 +7,11 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import cloudgene.mapred.jobs.*;
 import cloudgene.mapred.plugins.PluginManager;
+import cloudgene.mapred.plugins.nextflow.report.CommandCollector;
 import cloudgene.mapred.plugins.nextflow.report.CommandOutput;
 import cloudgene.mapred.util.MapValueParser;
 import cloudgene.mapred.wdl.WdlParameterInput;
@@ -30,9 +32,14 @@ public class NextflowStep extends CloudgeneStep {
 
 	private static final String PROPERTY_GROUPS_CONFIG = "groups";
 
+	private static final String RESUME_CONFIG = "trace.overwrite = true\nreport.overwrite = true\ntimeline.overwrite = true\n";
+
 	private CloudgeneContext context;
 
-	private Map<String, Message> messages = new HashMap<String, Message>();
+	private Map<String, Message> messages = new ConcurrentHashMap<String, Message>();
+
+	// version of every process when its message was rendered
+	private Map<String, Long> versions = new ConcurrentHashMap<String, Long>();
 
 	private Map<String, NextflowProcessConfig> configs = new HashMap<String, NextflowProcessConfig>();
 
@@ -120,6 +127,7 @@ public class NextflowStep extends CloudgeneStep {
 		if (work != null && !work.trim().isEmpty()) {
 			nextflow.setWork(work);
 		} else {
+			// same folder for every run of the job, a restarted job finds its tasks
 			String workDir = workspace.createTempFolder("nextflow");
 			nextflow.setWork(workDir);
 		}
@@ -141,22 +149,75 @@ public class NextflowStep extends CloudgeneStep {
 		}
 		nextflow.setParamsFile(paramsFile);
 
-		// register job in webcollector and set created url
+		// register job in webcollector
 		String collectorUrl = collector.addContext(context, configs);
-		nextflow.setWeblog(collectorUrl);
+
+		// resume the session of a previous run of this step (e.g. a restarted dead job)
+		File executionDir = new File(context.getLocalOutput());
+		String runName = NextflowHistory.createRunName(job.getId(), prefix);
+		nextflow.setName(runName);
+		String session = null;
+		try {
+			session = new NextflowHistory(executionDir).findSessionByRunName(runName);
+		} catch (IOException e) {
+			log.warn("[Job {}] Reading Nextflow history failed.", context.getJobId(), e);
+		}
+		if (session != null) {
+			context.log("Resume Nextflow session '" + session + "' of run '" + runName + "'");
+			nextflow.setResume(session);
+			// reports of the previous run exist already (e.g. on S3) and Nextflow refuses to replace them
+			String resumeConfig = FileUtil.path(context.getLocalOutput(), prefix + "resume.config");
+			FileUtil.writeStringBufferToFile(resumeConfig, new StringBuffer(RESUME_CONFIG));
+			nextflow.addConfig(resumeConfig);
+		}
 
 		// log files and reports
-		nextflow.setTrace(workspace.createLogFile(prefix + "trace.csv"));
+		String traceFilename = workspace.createLogFile(prefix + "trace.csv");
+		nextflow.setTrace(traceFilename);
 		nextflow.setReport(workspace.createLogFile(prefix + "report.html"));
 		nextflow.setTimeline(workspace.createLogFile(prefix + "timeline.html"));
 		nextflow.setLog(workspace.createLogFile(prefix + "nextflow.log"));
 
+		// progress from the trace file or from weblog events
+		NextflowTraceTailer tailer = null;
+		String progress = nextflowSettings.get("nextflow.progress");
+		File traceFile = new File(traceFilename);
+		if (NextflowPlugin.PROGRESS_TRACE.equals(progress) && traceFile.getAbsoluteFile().getParentFile().isDirectory()) {
+			String traceConfig = FileUtil.path(context.getLocalOutput(), prefix + "trace.config");
+			FileUtil.writeStringBufferToFile(traceConfig, new StringBuffer(NextflowTraceTailer.createConfig()));
+			nextflow.addConfig(traceConfig);
+			// rows of the previous run are stale, the tailer reads the new trace file only
+			if (traceFile.exists() && !traceFile.delete()) {
+				log.warn("[Job {}] Deleting trace file '{}' failed.", context.getJobId(), traceFilename);
+			}
+			tailer = new NextflowTraceTailer(traceFile, collector, context);
+		} else {
+			if (NextflowPlugin.PROGRESS_TRACE.equals(progress)) {
+				context.log("Warning: Trace file '" + traceFilename + "' is not local. Use weblog for progress.");
+			}
+			nextflow.setWeblog(collectorUrl);
+		}
+
 		try {
 
-			File executionDir = new File(context.getLocalOutput());
 
 			StringBuilder output = new StringBuilder();
-			boolean successful = executeCommand(nextflow.buildCommand(), context, output, executionDir);
+			CommandCollector commands = new CommandCollector();
+			List<String> command = nextflow.buildCommand();
+			if (tailer != null) {
+				tailer.start();
+			}
+			boolean successful;
+			try {
+				successful = executeCommand(command, context, output, executionDir, commands);
+			} finally {
+				if (tailer != null) {
+					tailer.stop();
+				}
+			}
+
+			// process the last events before the final progress
+			collector.flush(context);
 
 			if (!successful) {
 
@@ -164,11 +225,7 @@ public class NextflowStep extends CloudgeneStep {
 				List<NextflowProcess> processes = collector.getProcesses(context);
 				for (NextflowProcess process : processes) {
 					for (NextflowTask task : process.getTasks()) {
-						String status = (String) task.getTrace().get("status");
-
-						if (status.equals("RUNNING") || status.equals("SUBMITTED")) {
-							task.getTrace().put("status", "KILLED");
-						}
+						task.kill();
 					}
 				}
 				updateProgress();
@@ -189,7 +246,7 @@ public class NextflowStep extends CloudgeneStep {
 
 			collector.cleanProcesses(context);
 
-			parseOutput(output);
+			parseOutput(commands.getContent());
 
 			File outputFile = new File(executionDir, "cloudgene.out");
 			if (!outputFile.exists()) {
@@ -242,7 +299,14 @@ public class NextflowStep extends CloudgeneStep {
 				messages.put(process.getName(), message);
 			}
 
+			// renders the message only if the status of a task has changed
+			long version = process.getVersion();
+			Long rendered = versions.get(process.getName());
+			if (rendered != null && rendered == version) {
+				continue;
+			}
 			NextflowProcessRenderer.render(config, process, message);
+			versions.put(process.getName(), version);
 
 		}
 
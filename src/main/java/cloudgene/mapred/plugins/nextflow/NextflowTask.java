@@ -2,6 +2,7 @@ package cloudgene.mapred.plugins.nextflow;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashMap;
 import java.util.Map;
 
 import cloudgene.mapred.jobs.Step;
@@ -15,31 +16,65 @@ import genepi.io.FileUtil;
 
 public class NextflowTask {
 
+	private static final String TRACE_STATUS = "status";
+
+	private static final String SUBMITTED = "SUBMITTED";
+
+	private static final String RUNNING = "RUNNING";
+
+	private static final String COMPLETED = "COMPLETED";
+
+	private static final String FAILED = "FAILED";
+
+	// task of a resumed run, Nextflow reuses the work dir of the previous run
+	private static final String CACHED = "CACHED";
+
+	private static final String KILLED = "KILLED";
+
+	// rank of final states, a finished task is not updated anymore
+	private static final int FINISHED = 2;
+
 	private int id;
 
-	private Map<String, Object> trace;
+	private volatile Map<String, Object> trace;
 
 	private String logText = null;
 
 	private CloudgeneContext context;
 
+	private NextflowProcess process;
+
 	private Step step;
 
 	private static final Logger log = LoggerFactory.getLogger(NextflowTask.class);
 	
-	public NextflowTask(CloudgeneContext context, Map<String, Object> trace, Step step) {
+	public NextflowTask(CloudgeneContext context, NextflowProcess process, Map<String, Object> trace, Step step) {
 		id = (Integer) trace.get("task_id");
 		this.trace = trace;
 		this.context = context;
+		this.process = process;
 		this.step = step;
 	}
 
-	public void update(Map<String, Object> trace) throws IOException {
+	/**
+	 * Updates the trace of the task. Events of a task can arrive out of order,
+	 * older states are ignored and the output of a finished task is parsed once.
+	 */
+	public synchronized void update(Map<String, Object> trace) throws IOException {
+
+		String status = (String) trace.get(TRACE_STATUS);
+		String oldStatus = (String) this.trace.get(TRACE_STATUS);
+		int current = getRank(oldStatus);
+		if (trace != this.trace && (getRank(status) < current || current == FINISHED)) {
+			return;
+		}
+
 		this.trace = trace;
+		if (!status.equals(oldStatus)) {
+			process.updateStatus(oldStatus, status);
+		}
 
-		// TODO: check if CHACHED os also needed!
-		String status = (String) trace.get("status");
-		if (!status.equals("COMPLETED") && !status.equals("FAILED")) {
+		if (!status.equals(COMPLETED) && !status.equals(FAILED) && !status.equals(CACHED)) {
 			return;
 		}
 
@@ -71,6 +106,39 @@ public class NextflowTask {
 		return true;
 	}
 
+	/**
+	 * Marks a submitted or running task as killed.
+	 */
+	public synchronized void kill() {
+		String status = (String) trace.get(TRACE_STATUS);
+		if (status.equals(RUNNING) || status.equals(SUBMITTED)) {
+			Map<String, Object> killed = new HashMap<String, Object>(trace);
+			killed.put(TRACE_STATUS, KILLED);
+			trace = killed;
+			process.updateStatus(status, KILLED);
+		}
+	}
+
+	/**
+	 * Returns the order of the status: submitted, running, finished.
+	 */
+	public static int getRank(String status) {
+		if (SUBMITTED.equals(status)) {
+			return 0;
+		}
+		if (RUNNING.equals(status)) {
+			return 1;
+		}
+		return FINISHED;
+	}
+
+	/**
+	 * Returns true if the task will not change anymore.
+	 */
+	public static boolean isFinished(String status) {
+		return getRank(status) == FINISHED;
+	}
+
 	public int getId() {
 		return id;
 	}
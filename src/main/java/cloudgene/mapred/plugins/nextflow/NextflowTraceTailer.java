@@ -0,0 +1,240 @@
+package cloudgene.mapred.plugins.nextflow;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cloudgene.mapred.jobs.CloudgeneContext;
+
+/**
+ * Reads the trace file of a running Nextflow pipeline and feeds new rows to
+ * the collector. The file is read from the last byte offset whenever it
+ * changes, so Nextflow does not need to reach the server over HTTP.
+ * <p>
+ * Nextflow writes a row when a task is finished, submitted and running tasks
+ * are not part of the trace file.
+ */
+public class NextflowTraceTailer implements Runnable {
+
+	// columns needed by the collector: process and task_id to find the task,
+	// workdir to parse its report
+	public static final String FIELDS = "task_id,hash,native_id,process,tag,name,status,exit,submit,duration,realtime,workdir";
+
+	private static final String SEPARATOR = "\t";
+
+	private static final String EMPTY = "-";
+
+	private static final int CHUNK_SIZE = 1024 * 1024;
+
+	public static long POLL_INTERVAL = 1000;
+
+	private final File file;
+
+	private final NextflowCollector collector;
+
+	private final CloudgeneContext context;
+
+	private long offset = 0;
+
+	private String[] columns;
+
+	// offset is inside a row longer than a chunk
+	private boolean skipping = false;
+
+	private volatile boolean running;
+
+	private Thread thread;
+
+	private static final Logger log = LoggerFactory.getLogger(NextflowTraceTailer.class);
+
+	public NextflowTraceTailer(File file, NextflowCollector collector, CloudgeneContext context) {
+		this.file = file;
+		this.collector = collector;
+		this.context = context;
+	}
+
+	/**
+	 * Returns the Nextflow configuration that writes a trace file with all
+	 * columns needed by the tailer.
+	 */
+	public static String createConfig() {
+		return "trace {\n  fields = '" + FIELDS + "'\n  sep = '\\t'\n}\n";
+	}
+
+	public void start() {
+		running = true;
+		thread = new Thread(this, "nextflow-trace-" + context.getJobId());
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops watching the file and reads the rows written since the last change.
+	 */
+	public void stop() throws IOException {
+		running = false;
+		if (thread != null) {
+			thread.interrupt();
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		read();
+	}
+
+	@Override
+	public void run() {
+
+		try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+
+			file.getAbsoluteFile().getParentFile().toPath().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_MODIFY);
+
+			while (running) {
+				// reads after every change, at the latest after the poll interval
+				WatchKey key = watcher.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+				if (key != null) {
+					key.pollEvents();
+					key.reset();
+				}
+				read();
+			}
+
+		} catch (InterruptedException e) {
+			// stopped
+		} catch (Exception e) {
+			log.error("[Job {}] Reading Nextflow trace file '{}' failed.", context.getJobId(), file, e);
+		}
+
+	}
+
+	/**
+	 * Reads all complete rows after the last offset and returns their number.
+	 * An incomplete last row is read with the next change. Rows longer than a
+	 * chunk are skipped.
+	 */
+	public synchronized int read() throws IOException {
+
+		int rows = 0;
+
+		while (file.exists()) {
+
+			long length = file.length();
+			if (length < offset) {
+				// file was replaced
+				offset = 0;
+				columns = null;
+				skipping = false;
+			}
+			if (length == offset) {
+				break;
+			}
+
+			byte[] data = new byte[(int) Math.min(length - offset, CHUNK_SIZE)];
+			try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+				input.seek(offset);
+				input.readFully(data);
+			}
+
+			int end = data.length - 1;
+			while (end >= 0 && data[end] != '\n') {
+				end--;
+			}
+			if (end < 0) {
+				if (data.length < CHUNK_SIZE) {
+					break;
+				}
+				// no end of row in a full chunk, skipped until the next newline
+				if (!skipping) {
+					log.warn("[Job {}] Skipping row longer than {} bytes in Nextflow trace file '{}'.",
+							context.getJobId(), CHUNK_SIZE, file);
+					skipping = true;
+				}
+				offset += data.length;
+				continue;
+			}
+			offset += end + 1;
+
+			int start = 0;
+			if (skipping) {
+				// rest of the skipped row
+				while (data[start] != '\n') {
+					start++;
+				}
+				start++;
+				skipping = false;
+			}
+			if (start > end) {
+				continue;
+			}
+
+			String[] lines = new String(data, start, end - start, StandardCharsets.UTF_8).split("\n");
+			for (String line : lines) {
+				if (parseLine(line)) {
+					rows++;
+					// never fills the queue of the job, rows are not dropped
+					if (rows % NextflowCollector.BATCH_SIZE == 0) {
+						collector.flush(context);
+					}
+				}
+			}
+
+		}
+
+		if (rows > 0) {
+			collector.flush(context);
+		}
+
+		return rows;
+
+	}
+
+	private boolean parseLine(String line) {
+
+		if (line.endsWith("\r")) {
+			line = line.substring(0, line.length() - 1);
+		}
+		if (line.isEmpty()) {
+			return false;
+		}
+
+		String[] values = line.split(SEPARATOR, -1);
+		if (columns == null) {
+			columns = values;
+			return false;
+		}
+
+		Map<String, Object> trace = new HashMap<String, Object>();
+		for (int i = 0; i < columns.length && i < values.length; i++) {
+			if (!values[i].equals(EMPTY)) {
+				trace.put(columns[i], values[i]);
+			}
+		}
+
+		try {
+			trace.put("task_id", Integer.parseInt((String) trace.get("task_id")));
+		} catch (NumberFormatException e) {
+			log.warn("[Job {}] Invalid row in Nextflow trace file: {}", context.getJobId(), line);
+			return false;
+		}
+
+		Map<String, Object> event = new HashMap<String, Object>();
+		event.put("trace", trace);
+		return collector.addEvent(context.getPublicJobId(), event);
+
+	}
+
+}
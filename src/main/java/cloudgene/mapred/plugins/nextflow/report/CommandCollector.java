@@ -0,0 +1,34 @@
+package cloudgene.mapred.plugins.nextflow.report;
+
+import java.util.function.Consumer;
+
+/**
+ * Keeps only the lines of an output that belong to commands (lines starting
+ * with <code>::</code> and the content of groups), so the commands of a large
+ * output can be parsed afterwards with {@link CommandOutput}.
+ */
+public class CommandCollector implements Consumer<String> {
+
+	private StringBuilder content = new StringBuilder();
+
+	private boolean group = false;
+
+	@Override
+	public synchronized void accept(String line) {
+		if (line.startsWith("::")) {
+			if (line.startsWith("::group")) {
+				group = true;
+			} else if (line.startsWith("::endgroup")) {
+				group = false;
+			}
+			content.append(line).append("\n");
+		} else if (group) {
+			content.append(line).append("\n");
+		}
+	}
+
+	public synchronized StringBuilder getContent() {
+		return new StringBuilder(content);
+	}
+
+}
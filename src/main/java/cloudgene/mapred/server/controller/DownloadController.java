@@ -2,10 +2,10 @@ package cloudgene.mapred.server.controller;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.util.List;
 
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,17 +15,29 @@ import cloudgene.mapred.database.ParameterDao;
 import cloudgene.mapred.jobs.AbstractJob;
 import cloudgene.mapred.jobs.CloudgeneParameterOutput;
 import cloudgene.mapred.jobs.Download;
+import cloudgene.mapred.jobs.JobResultsTreeItem;
 import cloudgene.mapred.server.Application;
 import cloudgene.mapred.server.auth.AuthenticationService;
 import cloudgene.mapred.server.auth.AuthenticationType;
 import cloudgene.mapred.server.exceptions.JsonHttpStatusException;
+import cloudgene.mapred.server.responses.PageResponse;
+import cloudgene.mapred.server.services.ArchiveService;
+import cloudgene.mapred.server.services.BrowseService;
 import cloudgene.mapred.server.services.DownloadService;
 import cloudgene.mapred.server.services.JobService;
+import cloudgene.mapred.util.Page;
 import genepi.io.FileUtil;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
 import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
 import io.micronaut.http.MutableHttpResponse;
 import io.micronaut.http.annotation.Controller;
 import io.micronaut.http.annotation.Get;
+import io.micronaut.http.annotation.Produces;
+import io.micronaut.http.annotation.QueryValue;
 import io.micronaut.security.annotation.Secured;
 import io.micronaut.security.authentication.Authentication;
 import io.micronaut.security.rules.SecurityRule;
@@ -36,6 +48,8 @@ public class DownloadController {
 
 	protected static final Logger log = LoggerFactory.getLogger(DownloadController.class);
 
+	private static final String MANIFEST = ".checksums.sha256";
+
 	@Inject
 	protected Application application;
 
@@ -45,12 +59,19 @@ public class DownloadController {
 	@Inject
 	protected DownloadService downloadService;
 
+	@Inject
+	protected ArchiveService archiveService;
+
 	@Inject
 	protected JobService jobService;
 
+	@Inject
+	protected BrowseService browseService;
+
 	@Get("/downloads/{jobId}/{hash}/{filename:.+}")
 	@Secured(SecurityRule.IS_ANONYMOUS)
-	public MutableHttpResponse<InputStream> downloadExternalResults(String jobId, String hash, String filename)
+	public MutableHttpResponse<?> downloadExternalResults(HttpRequest<?> request, String jobId, String hash,
+			String filename)
 			throws URISyntaxException, IOException {
 
 		AbstractJob job = jobService.getById(jobId);
@@ -64,13 +85,13 @@ public class DownloadController {
 		}
 		String message = "Job: Downloading file '%s' for job %s".formatted(filename, job.getId());
 		log.info(message);
-		return downloadService.download(download);
+		return downloadService.download(request, download);
 
 	}
 
 	@Get("/share/results/{hash}/{filename:.+}")
 	@Secured(SecurityRule.IS_ANONYMOUS)
-	public MutableHttpResponse<InputStream> downloadPublicLink(String hash, String filename)
+	public MutableHttpResponse<?> downloadPublicLink(HttpRequest<?> request, String hash, String filename)
 			throws URISyntaxException, IOException {
 
 		DownloadDao dao = new DownloadDao(application.getDatabase());
@@ -79,7 +100,7 @@ public class DownloadController {
 		String message = "Job: Anonymously downloading file '%s' (hash %s)".formatted(filename, hash);
 		log.info(message);
 		try {
-			return downloadService.download(download);
+			return downloadService.download(request, download);
 		} catch (IOException e) {
 			log.error("Downloading file failed.", e);
 			throw new JsonHttpStatusException(HttpStatus.NOT_FOUND, "File not found in workspace.");
@@ -88,11 +109,11 @@ public class DownloadController {
 
 	@Get("/browse/{hash}/{filename:.+}")
 	@Secured(SecurityRule.IS_ANONYMOUS)
-	public MutableHttpResponse<InputStream> downloadByParamHash(String hash, String filename)
+	public MutableHttpResponse<?> downloadByParamHash(HttpRequest<?> request, String hash, String filename)
 			throws URISyntaxException, IOException {
 
 		ParameterDao parameterDao = new ParameterDao(application.getDatabase());
-		CloudgeneParameterOutput param = parameterDao.findByHash(hash);
+		CloudgeneParameterOutput param = parameterDao.findByHash(hash, false);
 
 		if (param == null) {
 			throw new JsonHttpStatusException(HttpStatus.NOT_FOUND, "Param for hash " + hash + " not found.");
@@ -103,7 +124,52 @@ public class DownloadController {
 
 		String message = "Job: Anonymously downloading file '%s' (hash %s)".formatted(filename, hash);
 		log.info(message);
-		return downloadService.download(download);
+		return downloadService.download(request, download);
+
+	}
+
+	@Get("/api/v2/browse/{hash}")
+	@Secured(SecurityRule.IS_ANONYMOUS)
+	public PageResponse browse(String hash, @Nullable @QueryValue String path, @Nullable @QueryValue String filter,
+			@Nullable @QueryValue String sort, @Nullable @QueryValue String order, @Nullable @QueryValue Integer page,
+			@Nullable @QueryValue Integer pageSize) {
+
+		Page<JobResultsTreeItem> items = browseService.browse(hash, path, filter, sort, order, page, pageSize);
+		return PageResponse.build(items, items.getData());
+
+	}
+
+	@Get("/browse/{hash}.zip")
+	@Secured(SecurityRule.IS_ANONYMOUS)
+	public MutableHttpResponse<Publisher<byte[]>> downloadZipByParamHash(String hash) throws IOException {
+		return downloadArchive(hash, ArchiveService.Format.ZIP);
+	}
+
+	@Get("/browse/{hash}.tar")
+	@Secured(SecurityRule.IS_ANONYMOUS)
+	public MutableHttpResponse<Publisher<byte[]>> downloadTarByParamHash(String hash) throws IOException {
+		return downloadArchive(hash, ArchiveService.Format.TAR);
+	}
+
+	protected MutableHttpResponse<Publisher<byte[]>> downloadArchive(String hash, ArchiveService.Format format)
+			throws IOException {
+
+		ParameterDao parameterDao = new ParameterDao(application.getDatabase());
+		CloudgeneParameterOutput param = parameterDao.findByHash(hash);
+
+		if (param == null) {
+			throw new JsonHttpStatusException(HttpStatus.NOT_FOUND, "Param for hash " + hash + " not found.");
+		}
+
+		String extension = format.name().toLowerCase();
+		String filename = param.getName() + "." + extension;
+		String message = "Job: Anonymously downloading archive '%s' (hash %s)".formatted(filename, hash);
+		log.info(message);
+
+		Publisher<byte[]> archive = archiveService.streamArchive(param, format);
+		return HttpResponse.ok(archive)
+				.contentType(format == ArchiveService.Format.ZIP ? "application/zip" : "application/x-tar")
+				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
 
 	}
 
@@ -112,7 +178,7 @@ public class DownloadController {
 	public String downloadScript(String hash) {
 
 		ParameterDao parameterDao = new ParameterDao(application.getDatabase());
-		CloudgeneParameterOutput param = parameterDao.findByHash(hash);
+		CloudgeneParameterOutput param = parameterDao.findByHash(hash, false);
 
 		if (param == null) {
 			throw new JsonHttpStatusException(HttpStatus.NOT_FOUND, "Param for hash " + hash + " not found.");
@@ -138,6 +204,23 @@ public class DownloadController {
 					+ " -o " + download.getName() + " --create-dirs \n");
 			i++;
 		}
+
+		// verify files with the checksums known so far, set -e stops on mismatches
+		String manifest = createManifest(downloads);
+		if (!manifest.isEmpty()) {
+			script.append("echo \"\"\n");
+			script.append("echo \"Verifying checksums...\"\n");
+			script.append("cat > " + MANIFEST + " <<'CHECKSUMS'\n");
+			script.append(manifest);
+			script.append("CHECKSUMS\n");
+			script.append("if command -v sha256sum > /dev/null; then\n");
+			script.append("  sha256sum -c --quiet " + MANIFEST + "\n");
+			script.append("else\n");
+			script.append("  shasum -a 256 -c --quiet " + MANIFEST + "\n");
+			script.append("fi\n");
+			script.append("rm " + MANIFEST + "\n");
+		}
+
 		script.append("echo \"\"\n");
 		script.append("echo -e \"${GREEN}All " + downloads.size() + " file(s) downloaded.${NC}\"\n");
 		script.append("echo \"\"\n");
@@ -146,6 +229,37 @@ public class DownloadController {
 
 	}
 
+	@Get("/get/{hash}/sha256sums")
+	@Secured(SecurityRule.IS_ANONYMOUS)
+	@Produces(MediaType.TEXT_PLAIN)
+	public String downloadManifest(String hash) {
+
+		ParameterDao parameterDao = new ParameterDao(application.getDatabase());
+		CloudgeneParameterOutput param = parameterDao.findByHash(hash, false);
+
+		if (param == null) {
+			throw new JsonHttpStatusException(HttpStatus.NOT_FOUND, "Param for hash " + hash + " not found.");
+		}
+
+		DownloadDao dao = new DownloadDao(application.getDatabase());
+		return createManifest(dao.findAllByParameter(param));
+
+	}
+
+	/**
+	 * Returns the checksums of all files in the format of sha256sum. Files without
+	 * checksum are skipped.
+	 */
+	protected String createManifest(List<Download> downloads) {
+		StringBuilder manifest = new StringBuilder();
+		for (Download download : downloads) {
+			if (download.getChecksum() != null) {
+				manifest.append(download.getChecksum() + "  " + download.getName() + "\n");
+			}
+		}
+		return manifest.toString();
+	}
+
 	@Get("/api/v2/jobs/{jobId}/chunks/{filename}")
 	@Secured(SecurityRule.IS_AUTHENTICATED)
 	public File downloadChunk(Authentication authentication, String jobId, String filename) {
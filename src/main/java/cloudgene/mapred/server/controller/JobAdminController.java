@@ -7,10 +7,13 @@ import org.slf4j.LoggerFactory;
 
 import cloudgene.mapred.core.User;
 import cloudgene.mapred.jobs.AbstractJob;
+import cloudgene.mapred.jobs.Download;
 import cloudgene.mapred.server.auth.AuthenticationService;
 import cloudgene.mapred.server.responses.JobAdminResponse;
 import cloudgene.mapred.server.responses.JobResponse;
 import cloudgene.mapred.server.responses.MessageResponse;
+import cloudgene.mapred.server.services.ChecksumService;
+import cloudgene.mapred.server.services.ChecksumService.Verification;
 import cloudgene.mapred.server.services.JobCleanUpService;
 import cloudgene.mapred.server.services.JobService;
 import cloudgene.mapred.util.FormUtil;
@@ -48,6 +51,9 @@ public class JobAdminController {
 	@Inject
 	protected JobCleanUpService cleanUpService;
 
+	@Inject
+	protected ChecksumService checksumService;
+
 	@Inject
 	protected FormUtil formUtil;
 
@@ -117,6 +123,37 @@ public class JobAdminController {
 
 	}
 
+	/**
+	 * Files are read in the background. The first call starts the verification,
+	 * further calls return its progress and, once it is finished, the result.
+	 */
+	@Get("/{id}/verify")
+	public MessageResponse verify(Authentication authentication, String id) {
+
+		User admin = authenticationService.getUserByAuthentication(authentication);
+
+		// unknown jobs: 404
+		AbstractJob job = jobService.getById(id, false);
+		Verification verification = checksumService.startVerification(job.getId());
+
+		if (!verification.isFinished()) {
+			log.info("Job: Verifying files of job %s (by ADMIN user ID %s - email %s)".formatted(job.getId(),
+					admin.getId(), admin.getMail()));
+			return MessageResponse.success(job.getId() + ": verification running, " + verification.getChecked()
+					+ " of " + verification.getTotal() + " files checked.");
+		}
+
+		log.info("Job: Verified files of job %s (by ADMIN user ID %s - email %s)".formatted(job.getId(),
+				admin.getId(), admin.getMail()));
+
+		List<Download> corrupted = verification.getCorrupted();
+		if (!corrupted.isEmpty()) {
+			return MessageResponse.error(job.getId() + ": " + corrupted.size() + " files are corrupted or missing.");
+		}
+		return MessageResponse.success(job.getId() + ": all files verified.");
+
+	}
+
 	@Get("/{id}/change-retire/{days}")
 	@Produces(MediaType.TEXT_PLAIN)
 	public String increaseRetireDate(Authentication authentication, String id, Integer days) {
@@ -156,7 +193,7 @@ public class JobAdminController {
 		User admin = authenticationService.getUserByAuthentication(authentication);
 
 		List<AbstractJob> jobs = jobService.getJobs(state);
-		List<JobResponse> responses = JobResponse.build(jobs, admin);
+		List<JobResponse> responses = JobResponse.build(jobs, admin, application.getSettings().getMaxInlineFiles());
 		String workspace = application.getSettings().getLocalWorkspace();
 
 		log.info("Job: list all jobs of of all users (by ADMIN user ID %s - email %s)".formatted(admin.getId(),
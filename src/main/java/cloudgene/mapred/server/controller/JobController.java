@@ -17,10 +17,13 @@ import cloudgene.mapred.jobs.AbstractJob;
 import cloudgene.mapred.server.auth.AuthenticationService;
 import cloudgene.mapred.server.auth.AuthenticationType;
 import cloudgene.mapred.server.exceptions.JsonHttpStatusException;
+import cloudgene.mapred.server.responses.JobEventResponse;
 import cloudgene.mapred.server.responses.JobResponse;
 import cloudgene.mapred.server.responses.MessageResponse;
 import cloudgene.mapred.server.responses.PageResponse;
 import cloudgene.mapred.server.responses.ResponseObject;
+import cloudgene.mapred.server.services.JobEventService;
+import cloudgene.mapred.server.services.JobEventService.JobEvent;
 import cloudgene.mapred.server.services.JobService;
 import cloudgene.mapred.util.FormUtil;
 import cloudgene.mapred.util.FormUtil.Parameter;
@@ -32,12 +35,15 @@ import io.micronaut.http.annotation.Controller;
 import io.micronaut.http.annotation.Delete;
 import io.micronaut.http.annotation.Get;
 import io.micronaut.http.annotation.Post;
+import io.micronaut.http.annotation.Produces;
 import io.micronaut.http.annotation.QueryValue;
 import io.micronaut.http.server.multipart.MultipartBody;
+import io.micronaut.http.sse.Event;
 import io.micronaut.security.annotation.Secured;
 import io.micronaut.security.authentication.Authentication;
 import io.micronaut.security.rules.SecurityRule;
 import jakarta.inject.Inject;
+import reactor.core.publisher.Flux;
 
 @Controller("/api/v2/jobs")
 public class JobController {
@@ -62,24 +68,32 @@ public class JobController {
 	@Inject
 	protected FormUtil formUtil;
 
+	@Inject
+	protected JobEventService jobEventService;
+
 	@Get("/{id}")
 	@Secured(SecurityRule.IS_AUTHENTICATED)
-	public JobResponse get(Authentication authentication, String id) {
+	public MutableHttpResponse<JobResponse> get(HttpRequest<?> request, Authentication authentication, String id) {
 
 		User user = authenticationService.getUserByAuthentication(authentication, AuthenticationType.ALL_TOKENS);
 
 		blockInMaintenanceMode(user);
 
-		AbstractJob job = jobService.getByIdAndUser(id, user);
+		String etag = jobService.getETag(id, user);
 
-		String message = "Job: Get details for job ID %s".formatted(job.getId());
+		String message = "Job: Get details for job ID %s".formatted(id);
 		if (user.isAdmin()) {
 			message += " (by ADMIN user ID %s - email %s)".formatted(user.getId(), user.getMail());
 		}
 		log.info(message);
 
-		JobResponse response = JobResponse.build(job, user);
-		return response;
+		if (isNotModified(request, etag)) {
+			return HttpResponse.<JobResponse>status(HttpStatus.NOT_MODIFIED).header(HttpHeaders.ETAG, etag);
+		}
+
+		AbstractJob job = jobService.getByIdAndUser(id, user);
+		JobResponse response = JobResponse.build(job, user, application.getSettings().getMaxInlineFiles());
+		return HttpResponse.ok(response).header(HttpHeaders.ETAG, etag);
 	}
 
 	@Post("/submit/{app}")
@@ -136,15 +150,22 @@ public class JobController {
 
 	@Get("/")
 	@Secured(SecurityRule.IS_AUTHENTICATED)
-	public PageResponse list(Authentication authentication, @QueryValue @Nullable Integer page) {
+	public MutableHttpResponse<PageResponse> list(HttpRequest<?> request, Authentication authentication,
+			@QueryValue @Nullable Integer page) {
 
 		User user = authenticationService.getUserByAuthentication(authentication, AuthenticationType.ALL_TOKENS);
 		blockInMaintenanceMode(user);
 
 		Page<AbstractJob> jobs = jobService.getAllByUserAndPage(user, page, DEFAULT_PAGE_SIZE);
 
-		List<JobResponse> responses = JobResponse.build(jobs.getData(), user);
-		return PageResponse.build(jobs, responses);
+		String etag = jobService.getETag(jobs, user);
+		if (isNotModified(request, etag)) {
+			return HttpResponse.<PageResponse>status(HttpStatus.NOT_MODIFIED).header(HttpHeaders.ETAG, etag);
+		}
+
+		List<JobResponse> responses = JobResponse.build(jobs.getData(), user,
+				application.getSettings().getMaxInlineFiles());
+		return HttpResponse.ok(PageResponse.build(jobs, responses)).header(HttpHeaders.ETAG, etag);
 	}
 
 	@Delete("/{id}")
@@ -163,7 +184,7 @@ public class JobController {
 		}
 		log.info(message);
 
-		JobResponse response = JobResponse.build(job, user);
+		JobResponse response = JobResponse.build(job, user, application.getSettings().getMaxInlineFiles());
 
 		return response;
 
@@ -171,14 +192,53 @@ public class JobController {
 
 	@Get("/{id}/status")
 	@Secured(SecurityRule.IS_AUTHENTICATED)
-	public JobResponse status(Authentication authentication, String id) {
+	public MutableHttpResponse<JobResponse> status(HttpRequest<?> request, Authentication authentication, String id) {
 
 		User user = authenticationService.getUserByAuthentication(authentication, AuthenticationType.ALL_TOKENS);
 		blockInMaintenanceMode(user);
 
+		// most polls see an unchanged job: answered without loading its details
+		String etag = jobService.getETag(id, user);
+		if (isNotModified(request, etag)) {
+			return HttpResponse.<JobResponse>status(HttpStatus.NOT_MODIFIED).header(HttpHeaders.ETAG, etag);
+		}
+
 		AbstractJob job = jobService.getByIdAndUser(id, user);
-		JobResponse response = JobResponse.build(job, user);
-		return response;
+		JobResponse response = JobResponse.build(job, user, application.getSettings().getMaxInlineFiles());
+		return HttpResponse.ok(response).header(HttpHeaders.ETAG, etag);
+
+	}
+
+	@Get("/events")
+	@Secured(SecurityRule.IS_AUTHENTICATED)
+	@Produces(MediaType.TEXT_EVENT_STREAM)
+	public Publisher<Event<JobEventResponse>> events(HttpRequest<?> request, Authentication authentication,
+			@Nullable @QueryValue Long lastEventId) {
+
+		User user = authenticationService.getUserByAuthentication(authentication, AuthenticationType.ALL_TOKENS);
+		blockInMaintenanceMode(user);
+
+		List<AbstractJob> jobs = application.getWorkflowEngine().getJobsByUser(user);
+		Flux<JobEvent> events = jobEventService.subscribeByUser(user.getId(), getLastEventId(request, lastEventId),
+				jobs);
+		return events.map(this::toEvent);
+
+	}
+
+	@Get("/{id}/events")
+	@Secured(SecurityRule.IS_AUTHENTICATED)
+	@Produces(MediaType.TEXT_EVENT_STREAM)
+	public Publisher<Event<JobEventResponse>> eventsByJob(HttpRequest<?> request, Authentication authentication,
+			String id, @Nullable @QueryValue Long lastEventId) {
+
+		User user = authenticationService.getUserByAuthentication(authentication, AuthenticationType.ALL_TOKENS);
+		blockInMaintenanceMode(user);
+
+		AbstractJob job = jobService.getByIdAndUser(id, user);
+
+		// stream ends with the final state of the job
+		Flux<JobEvent> events = jobEventService.subscribeByJob(job, getLastEventId(request, lastEventId));
+		return events.takeUntil(event -> !isActive(event.job().getState())).map(this::toEvent);
 
 	}
 
@@ -198,7 +258,7 @@ public class JobController {
 		}
 		log.info(message);
 
-		JobResponse response = JobResponse.build(job, user);
+		JobResponse response = JobResponse.build(job, user, application.getSettings().getMaxInlineFiles());
 		return response;
 
 	}
@@ -222,6 +282,48 @@ public class JobController {
 		return MessageResponse.success(MESSAGE_JOB_RESTARTED);
 	}
 
+	private boolean isNotModified(HttpRequest<?> request, String etag) {
+		String ifNoneMatch = request.getHeaders().get(HttpHeaders.IF_NONE_MATCH);
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		for (String tag : ifNoneMatch.split(",")) {
+			tag = tag.trim();
+			if (tag.startsWith("W/")) {
+				tag = tag.substring(2);
+			}
+			if (tag.equals(etag) || tag.equals("*")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private Event<JobEventResponse> toEvent(JobEvent event) {
+		return Event.of(event.job()).name(event.type()).id(String.valueOf(event.id()));
+	}
+
+	private boolean isActive(int state) {
+		return state == AbstractJob.STATE_WAITING || state == AbstractJob.STATE_RUNNING
+				|| state == AbstractJob.STATE_EXPORTING;
+	}
+
+	// reconnecting clients send the id of the last received event
+	private Long getLastEventId(HttpRequest<?> request, Long lastEventId) {
+		if (lastEventId != null) {
+			return lastEventId;
+		}
+		String header = request.getHeaders().get("Last-Event-ID");
+		if (header == null) {
+			return null;
+		}
+		try {
+			return Long.parseLong(header);
+		} catch (NumberFormatException e) {
+			throw new JsonHttpStatusException(HttpStatus.BAD_REQUEST, "Invalid Last-Event-ID.");
+		}
+	}
+
 	private void blockInMaintenanceMode(User user) {
 		if (application.getSettings().isMaintenance() && !user.isAdmin()) {
 			throw new JsonHttpStatusException(HttpStatus.SERVICE_UNAVAILABLE,
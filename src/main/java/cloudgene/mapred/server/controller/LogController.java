@@ -1,6 +1,14 @@
 package cloudgene.mapred.server.controller;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.Publisher;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,21 +19,50 @@ import cloudgene.mapred.jobs.workspace.WorkspaceFactory;
 import cloudgene.mapred.server.Application;
 import cloudgene.mapred.server.auth.AuthenticationService;
 import cloudgene.mapred.server.auth.AuthenticationType;
+import cloudgene.mapred.server.exceptions.JsonHttpStatusException;
 import cloudgene.mapred.server.services.JobService;
+import cloudgene.mapred.server.services.LogService;
+import cloudgene.mapred.server.services.LogService.LogChunk;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
 import io.micronaut.http.MediaType;
+import io.micronaut.http.MutableHttpResponse;
 import io.micronaut.http.annotation.Controller;
 import io.micronaut.http.annotation.Get;
 import io.micronaut.http.annotation.Produces;
+import io.micronaut.http.annotation.QueryValue;
+import io.micronaut.http.sse.Event;
 import io.micronaut.security.annotation.Secured;
 import io.micronaut.security.authentication.Authentication;
 import io.micronaut.security.rules.SecurityRule;
 import jakarta.inject.Inject;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
 @Controller
 public class LogController {
 
 	private static Logger log = LoggerFactory.getLogger(LogController.class);
 
+	public static final String EVENT_LOG = "log";
+
+	public static final String EVENT_END = "end";
+
+	public static final String HEADER_NEXT_OFFSET = "X-Log-Next-Offset";
+
+	public static final String HEADER_COMPLETE = "X-Log-Complete";
+
+	public static int DEFAULT_LIMIT = 64 * 1024;
+
+	public static int STREAM_CHUNK_SIZE = 64 * 1024;
+
+	public static int STREAM_MAX_CHUNKS = 16;
+
+	public static long STREAM_INTERVAL_MS = 1000;
+
 	@Inject
 	protected Application application;
 
@@ -38,6 +75,9 @@ public class LogController {
 	@Inject
 	protected WorkspaceFactory workspaceFactory;
 
+	@Inject
+	protected LogService logService;
+
 	@Get("/logs/{id}")
 	@Secured(SecurityRule.IS_AUTHENTICATED)
 	@Produces(MediaType.TEXT_PLAIN)
@@ -69,4 +109,100 @@ public class LogController {
 		return buffer.toString();
 
 	}
+
+	@Get("/logs/{id}/stream")
+	@Secured(SecurityRule.IS_AUTHENTICATED)
+	@Produces(MediaType.TEXT_EVENT_STREAM)
+	public Publisher<Event<String>> streamLogFile(HttpRequest<?> request, Authentication authentication, String id,
+			@Nullable @QueryValue String name, @Nullable @QueryValue Long offset) {
+
+		User user = authenticationService.getUserByAuthentication(authentication, AuthenticationType.ALL_TOKENS);
+		AbstractJob job = jobService.getByIdAndUser(id, user);
+
+		String logName = name != null ? name : AbstractJob.JOB_LOG;
+		checkLogName(logName);
+
+		// reconnecting clients resume after the last received event
+		long start = offset != null ? offset : 0;
+		String lastEventId = request.getHeaders().get("Last-Event-ID");
+		if (offset == null && lastEventId != null) {
+			try {
+				start = Long.parseLong(lastEventId);
+			} catch (NumberFormatException e) {
+				throw new JsonHttpStatusException(HttpStatus.BAD_REQUEST, "Invalid Last-Event-ID.");
+			}
+		}
+
+		AtomicLong position = new AtomicLong(start);
+
+		return Flux.interval(Duration.ZERO, Duration.ofMillis(STREAM_INTERVAL_MS), Schedulers.boundedElastic())
+				.onBackpressureDrop().concatMapIterable(tick -> {
+
+					// state before reading, the last chunk is read after the log is complete
+					boolean running = job.isRunning();
+
+					List<Event<String>> events = new Vector<Event<String>>();
+					try {
+						LogChunk chunk;
+						do {
+							chunk = logService.read(job, logName, position.get(), STREAM_CHUNK_SIZE);
+							if (!chunk.content().isEmpty()) {
+								position.set(chunk.next());
+								events.add(Event.of(chunk.content()).name(EVENT_LOG).id(String.valueOf(chunk.next())));
+							}
+						} while (!chunk.complete() && events.size() < STREAM_MAX_CHUNKS);
+
+						if (!running && chunk.complete()) {
+							events.add(Event.of("").name(EVENT_END).id(String.valueOf(chunk.next())));
+						}
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+					return events;
+
+				}).takeUntil(event -> EVENT_END.equals(event.getName()));
+
+	}
+
+	@Get("/logs/{id}/{name}")
+	@Secured(SecurityRule.IS_AUTHENTICATED)
+	public MutableHttpResponse<?> getLogFile(HttpRequest<?> request, Authentication authentication, String id,
+			String name, @Nullable @QueryValue Long offset, @Nullable @QueryValue Integer limit) throws IOException {
+
+		User user = authenticationService.getUserByAuthentication(authentication, AuthenticationType.ALL_TOKENS);
+		AbstractJob job = jobService.getByIdAndUser(id, user);
+
+		checkLogName(name);
+
+		// ranged read, next offset and end of log are returned as headers
+		if (offset != null || limit != null) {
+			LogChunk chunk = logService.read(job, name, offset != null ? offset : 0,
+					limit != null ? limit : DEFAULT_LIMIT);
+			return HttpResponse.ok(chunk.content()).contentType(MediaType.TEXT_PLAIN_TYPE)
+					.header(HEADER_NEXT_OFFSET, String.valueOf(chunk.next()))
+					.header(HEADER_COMPLETE, String.valueOf(chunk.complete() && !job.isRunning()));
+		}
+
+		// stored gzip member is passed through without decompression
+		InputStream compressed = jobService.getCompressedJobLog(job, name);
+		if (compressed != null) {
+			String acceptEncoding = request.getHeaders().get(HttpHeaders.ACCEPT_ENCODING);
+			if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+				return HttpResponse.ok(compressed).contentType(MediaType.TEXT_PLAIN_TYPE)
+						.header(HttpHeaders.CONTENT_ENCODING, "gzip").header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+			}
+			compressed.close();
+		}
+
+		return HttpResponse.ok(jobService.getJobLog(job, name)).contentType(MediaType.TEXT_PLAIN_TYPE)
+				.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+	}
+
+	protected void checkLogName(String name) {
+		if (!name.equals(AbstractJob.JOB_LOG) && !name.equals(AbstractJob.JOB_OUT)) {
+			throw new JsonHttpStatusException(HttpStatus.NOT_FOUND, "Log file '" + name + "' not found.");
+		}
+	}
+
 }
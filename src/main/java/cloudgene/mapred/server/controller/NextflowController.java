@@ -35,6 +35,10 @@ public class NextflowController {
 	@Inject
 	protected JobService jobService;
 	
+	/**
+	 * Queues the event and answers immediately, events are processed by the
+	 * workers of the collector.
+	 */
 	@Post("/api/v2/collect/{job}")
 	@Secured(SecurityRule.IS_ANONYMOUS)
 	public String post(String job, @Body Map<String, Object> event) {
@@ -47,7 +51,7 @@ public class NextflowController {
 			}
 
 		} catch (Exception e) {
-			log.error("Parsing Nextflow weblog for job {} failed." + job, e);
+			log.error("Parsing Nextflow weblog for job {} failed.", job, e);
 		}
 
 		return "";
@@ -4,20 +4,29 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URL;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Vector;
 
 import cloudgene.mapred.core.User;
 import cloudgene.mapred.database.CounterHistoryDao;
+import cloudgene.mapred.jobs.workspace.WorkspaceFactory;
+import cloudgene.mapred.plugins.nextflow.NextflowCollector;
 import cloudgene.mapred.server.Application;
 import cloudgene.mapred.server.auth.AuthenticationService;
+import cloudgene.mapred.server.exceptions.JsonHttpStatusException;
 import cloudgene.mapred.server.responses.NextflowConfigResponse;
 import cloudgene.mapred.server.responses.ServerResponse;
 import cloudgene.mapred.server.responses.StatisticsResponse;
 import cloudgene.mapred.server.services.ServerService;
+import cloudgene.mapred.util.LogSearch;
 import cloudgene.mapred.util.TextUtil;
 import genepi.io.FileUtil;
 import io.micronaut.core.annotation.Nullable;
+import io.micronaut.http.HttpStatus;
 import io.micronaut.http.MediaType;
 import io.micronaut.http.annotation.Controller;
 import io.micronaut.http.annotation.Get;
@@ -49,6 +58,9 @@ public class ServerAdminController {
 	@Inject
 	protected ServerService serverService;
 
+	@Inject
+	protected WorkspaceFactory workspaceFactory;
+
 	@Get("/queue/block")
 	@Produces(MediaType.TEXT_PLAIN)
 	public String blockQueue() {
@@ -97,6 +109,53 @@ public class ServerAdminController {
 
 	}
 
+	@Get("/logs/search")
+	public List<LogSearch.Entry> searchLogs(@Nullable @QueryValue String level, @Nullable @QueryValue String job,
+			@Nullable @QueryValue String from, @Nullable @QueryValue String to, @Nullable @QueryValue Integer limit)
+			throws IOException {
+
+		LogSearch search = new LogSearch();
+		search.setLevel(level);
+		search.setText(job);
+		search.setFrom(parseDateTime(from));
+		search.setTo(parseDateTime(to));
+		if (limit != null) {
+			if (limit < 1) {
+				throw new JsonHttpStatusException(HttpStatus.BAD_REQUEST, "Invalid limit '" + limit + "'.");
+			}
+			// larger limits are capped
+			search.setLimit(limit);
+		}
+
+		// current and rolled over log files
+		File folder = new File(LOG_FILENAME).getAbsoluteFile().getParentFile();
+		File[] files = folder.listFiles((dir, name) -> name.startsWith("cloudgene") && name.endsWith(".log"));
+		if (files == null) {
+			return new Vector<LogSearch.Entry>();
+		}
+
+		return search.search(Arrays.asList(files));
+
+	}
+
+	protected LocalDateTime parseDateTime(String value) {
+		if (value == null || value.isEmpty()) {
+			return null;
+		}
+		try {
+			return LocalDateTime.parse(value);
+		} catch (DateTimeParseException e) {
+			throw new JsonHttpStatusException(HttpStatus.BAD_REQUEST, "Invalid date '" + value + "'.");
+		}
+	}
+
+	@Get("/workspace/cache")
+	public Map<String, Long> getWorkspaceCache() {
+
+		return workspaceFactory.getCacheStatistics();
+
+	}
+
 	@Get("/settings")
 	public ServerResponse getSettings() {
 
@@ -125,6 +184,13 @@ public class ServerAdminController {
 
 	}
 
+	@Get("/nextflow/collector")
+	public Map<String, Long> getNextflowCollector() {
+
+		return NextflowCollector.getInstance().getStatistics();
+
+	}
+
 	@Post("/nextflow/config/update")
 	public NextflowConfigResponse updateNextflowConfig(String config, String env) {
 
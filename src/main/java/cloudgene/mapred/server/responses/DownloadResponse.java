@@ -14,6 +14,7 @@ public class DownloadResponse {
 	private String hash;
 	private int count;
 	private String size;
+	private String checksum;
 	private int parameterId;
 	private String user;
 
@@ -57,6 +58,14 @@ public class DownloadResponse {
 		this.size = size;
 	}
 
+	public String getChecksum() {
+		return checksum;
+	}
+
+	public void setChecksum(String checksum) {
+		this.checksum = checksum;
+	}
+
 	public int getParameterId() {
 		return parameterId;
 	}
@@ -73,22 +82,35 @@ public class DownloadResponse {
 		this.user = user;
 	}
 	
-	public static DownloadResponse build(Download param) {
+	public static DownloadResponse build(Download param, String job) {
 		DownloadResponse response = new DownloadResponse();
 		response.setName(param.getName());
 		response.setHash(param.getHash());
 		response.setSize(param.getSize());
 		response.setCount(param.getCount());
-		response.setPath(param.getPath());
+		response.setPath(getRelativePath(param.getPath(), job));
+		response.setChecksum(param.getChecksum());
 		return response;
 	}
 
-	public static List<DownloadResponse> build(List<Download> params) {
+	public static List<DownloadResponse> build(List<Download> params, String job) {
 		List<DownloadResponse> response = new Vector<DownloadResponse>();
 		for (Download param : params) {
-			response.add(DownloadResponse.build(param));
+			response.add(DownloadResponse.build(param, job));
 		}
 		return response;
 	}
 
+	/**
+	 * Strips the location of migrated files (a bucket or a folder of the second
+	 * storage tier), paths are always relative to the workspace.
+	 */
+	protected static String getRelativePath(String path, String job) {
+		if (path == null || job == null || path.startsWith(job + "/")) {
+			return path;
+		}
+		int index = path.indexOf("/" + job + "/");
+		return index >= 0 ? path.substring(index + 1) : path;
+	}
+
 }
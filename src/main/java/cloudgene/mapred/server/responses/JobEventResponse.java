@@ -0,0 +1,85 @@
+package cloudgene.mapred.server.responses;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonClassDescription;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import cloudgene.mapred.jobs.AbstractJob;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonClassDescription
+public class JobEventResponse {
+
+	private String id;
+
+	private int state;
+
+	private int positionInQueue;
+
+	private long startTime;
+
+	private long endTime;
+
+	private List<StepResponse> steps;
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String id) {
+		this.id = id;
+	}
+
+	public int getState() {
+		return state;
+	}
+
+	public void setState(int state) {
+		this.state = state;
+	}
+
+	public int getPositionInQueue() {
+		return positionInQueue;
+	}
+
+	public void setPositionInQueue(int positionInQueue) {
+		this.positionInQueue = positionInQueue;
+	}
+
+	public long getStartTime() {
+		return startTime;
+	}
+
+	public void setStartTime(long startTime) {
+		this.startTime = startTime;
+	}
+
+	public long getEndTime() {
+		return endTime;
+	}
+
+	public void setEndTime(long endTime) {
+		this.endTime = endTime;
+	}
+
+	public List<StepResponse> getSteps() {
+		return steps;
+	}
+
+	public void setSteps(List<StepResponse> steps) {
+		this.steps = steps;
+	}
+
+	public static JobEventResponse build(AbstractJob job, List<StepResponse> steps) {
+		JobEventResponse response = new JobEventResponse();
+		response.setId(job.getId());
+		response.setState(job.getState());
+		response.setPositionInQueue(job.getPositionInQueue());
+		response.setStartTime(job.getStartTime());
+		response.setEndTime(job.getEndTime());
+		response.setSteps(steps);
+		return response;
+	}
+
+}
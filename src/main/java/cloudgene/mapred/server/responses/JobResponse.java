@@ -174,12 +174,11 @@ public class JobResponse {
 		return workspaceSize;
 	}
 
-	public static JobResponse build(AbstractJob job, User user) {
-
-		// create tree
-		for (CloudgeneParameterOutput param : job.getOutputParams()) {
-			param.setTree(JobResultsTreeUtil.createTree(param));
-		}
+	/**
+	 * Builds the response. Outputs of finished jobs with more than maxInlineFiles
+	 * files are sent without files and tree.
+	 */
+	public static JobResponse build(AbstractJob job, User user, int maxInlineFiles) {
 
 		// removes outputs that are for admin only
 		List<CloudgeneParameterOutput> adminParams = new Vector<>();
@@ -218,7 +217,17 @@ public class JobResponse {
 		List<StepResponse> responses = StepResponse.build(job.getSteps());
 		response.setStepResponses(responses);
 
-		List<ParameterOutputResponse> responsesParamsOut = ParameterOutputResponse.build(job.getOutputParams());
+		// large outputs of finished jobs are browsed page by page instead of sent as tree
+		List<ParameterOutputResponse> responsesParamsOut = new Vector<ParameterOutputResponse>();
+		for (CloudgeneParameterOutput param : job.getOutputParams()) {
+			boolean withFiles = job.isRunning() || param.getFiles() == null
+					|| param.getFiles().size() <= maxInlineFiles;
+			if (withFiles) {
+				// create tree (cached, built once per parameter)
+				param.setTree(JobResultsTreeUtil.getTree(param));
+			}
+			responsesParamsOut.add(ParameterOutputResponse.build(param, withFiles));
+		}
 		response.setParameterOutputResponse(responsesParamsOut);
 
 		// set log if user is admin
@@ -237,10 +246,10 @@ public class JobResponse {
 		return response;
 	}
 
-	public static List<JobResponse> build(List<AbstractJob> data, User user) {
+	public static List<JobResponse> build(List<AbstractJob> data, User user, int maxInlineFiles) {
 		List<JobResponse> responses = new Vector<JobResponse>();
 		for (AbstractJob job : data) {
-			responses.add(JobResponse.build(job, user));
+			responses.add(JobResponse.build(job, user, maxInlineFiles));
 		}
 		return responses;
 	}
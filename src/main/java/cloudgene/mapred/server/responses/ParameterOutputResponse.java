@@ -8,6 +8,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 
 import cloudgene.mapred.jobs.CloudgeneJob;
 import cloudgene.mapred.jobs.CloudgeneParameterOutput;
+import cloudgene.mapred.jobs.Download;
 import cloudgene.mapred.jobs.JobResultsTreeItem;
 import cloudgene.mapred.wdl.WdlParameterOutputType;
 
@@ -36,22 +37,49 @@ public class ParameterOutputResponse {
 
 	private String hash;
 
+	private int fileCount;
+
+	private long totalBytes;
+
 	@JsonProperty("files")
 	private List<DownloadResponse> downloadResponses;
 
 	public static ParameterOutputResponse build(CloudgeneParameterOutput paramsOut) {
+		return build(paramsOut, true);
+	}
+
+	/**
+	 * Builds the response with a summary of the files. Files and tree are only
+	 * included if withFiles is set, otherwise they are browsed page by page.
+	 */
+	public static ParameterOutputResponse build(CloudgeneParameterOutput paramsOut, boolean withFiles) {
 		ParameterOutputResponse response = new ParameterOutputResponse();
 		response.setId(paramsOut.getId());
 		response.setDescription(paramsOut.getDescription());
 		response.setValue(paramsOut.getValue());
 		response.setDownload(paramsOut.isDownload());
 		response.setName(paramsOut.getName());
-		response.setTree(paramsOut.getTree());
 		response.setJobId(paramsOut.getJobId());
 		response.setHash(paramsOut.getHash());
 
-		List<DownloadResponse> responses = DownloadResponse.build(paramsOut.getFiles());
-		response.setDownloadResponses(responses);
+		List<Download> files = paramsOut.getFiles() != null ? paramsOut.getFiles() : new Vector<Download>();
+		// -1 (unknown) if a file was exported before sizes were stored
+		long totalBytes = 0;
+		for (Download file : files) {
+			if (file.getBytes() < 0) {
+				totalBytes = -1;
+				break;
+			}
+			totalBytes += file.getBytes();
+		}
+		response.setFileCount(files.size());
+		response.setTotalBytes(totalBytes);
+
+		if (withFiles) {
+			response.setTree(paramsOut.getTree());
+			List<DownloadResponse> responses = DownloadResponse.build(files, paramsOut.getJobId());
+			response.setDownloadResponses(responses);
+		}
 
 		return response;
 	}
@@ -160,4 +188,20 @@ public class ParameterOutputResponse {
 		this.hash = hash;
 	}
 
+	public int getFileCount() {
+		return fileCount;
+	}
+
+	public void setFileCount(int fileCount) {
+		this.fileCount = fileCount;
+	}
+
+	public long getTotalBytes() {
+		return totalBytes;
+	}
+
+	public void setTotalBytes(long totalBytes) {
+		this.totalBytes = totalBytes;
+	}
+
 }
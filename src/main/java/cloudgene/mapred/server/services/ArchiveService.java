@@ -0,0 +1,272 @@
+package cloudgene.mapred.server.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.io.IOUtils;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cloudgene.mapred.database.DownloadDao;
+import cloudgene.mapred.jobs.CloudgeneParameterOutput;
+import cloudgene.mapred.jobs.Download;
+import cloudgene.mapred.jobs.workspace.IWorkspace;
+import cloudgene.mapred.jobs.workspace.WorkspaceFactory;
+import cloudgene.mapred.jobs.workspace.WorkspaceObject;
+import cloudgene.mapred.server.Application;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Streams all downloads of an output parameter as zip or tar archive. The
+ * archive is written by a background thread into a bounded pipe, so no
+ * temporary files are created and memory usage does not depend on the size of
+ * the results. Files are read without the workspace cache. The writer stops
+ * when the reader closes the stream.
+ */
+@Singleton
+public class ArchiveService {
+
+	private static final Logger log = LoggerFactory.getLogger(ArchiveService.class);
+
+	public static int ARCHIVE_THREADS = 16;
+
+	public static int PIPE_SIZE = 1024 * 1024;
+
+	public static int BUFFER_SIZE = 64 * 1024;
+
+	private static final Set<String> COMPRESSED_EXTENSIONS = Set.of("gz", "bgz", "bz2", "xz", "zst", "zip", "7z",
+			"tgz", "bam", "cram", "bcf", "png", "jpg", "jpeg", "gif");
+
+	public enum Format {
+		ZIP, TAR
+	}
+
+	@Inject
+	protected Application application;
+
+	@Inject
+	protected WorkspaceFactory workspaceFactory;
+
+	private ExecutorService executor;
+
+	/**
+	 * Returns the archive as stream of chunks. The pipe is closed when the
+	 * client disconnects, so the writer thread is released.
+	 */
+	public Publisher<byte[]> streamArchive(CloudgeneParameterOutput param, Format format) throws IOException {
+
+		InputStream in = createArchive(param, format);
+
+		return Flux.<byte[]>generate(sink -> {
+			try {
+				byte[] buffer = new byte[BUFFER_SIZE];
+				int read = in.read(buffer);
+				if (read == -1) {
+					sink.complete();
+				} else {
+					sink.next(read == buffer.length ? buffer : Arrays.copyOf(buffer, read));
+				}
+			} catch (IOException e) {
+				sink.error(new UncheckedIOException(e));
+			}
+		}).subscribeOn(Schedulers.boundedElastic()).doFinally(signal -> IOUtils.closeQuietly(in));
+
+	}
+
+	public InputStream createArchive(CloudgeneParameterOutput param, Format format) throws IOException {
+
+		DownloadDao dao = new DownloadDao(application.getDatabase());
+		List<Download> downloads = new Vector<Download>();
+		for (Download download : dao.findAllByParameter(param)) {
+			// files with exceeded download limit are skipped
+			if (download.getCount() != 0) {
+				downloads.add(download);
+			}
+		}
+
+		return createArchive(param.getName(), downloads, format, () -> dao.decCounts(downloads));
+
+	}
+
+	/**
+	 * Writes the archive in a background thread. The completion callback runs
+	 * only when the whole archive was written, before the reader reaches the end
+	 * of the stream.
+	 */
+	protected InputStream createArchive(String folder, List<Download> downloads, Format format,
+			Runnable completion) throws IOException {
+
+		ArchivePipe in = new ArchivePipe(PIPE_SIZE);
+		PipedOutputStream out = new PipedOutputStream(in);
+
+		getExecutor().submit(() -> {
+			long start = System.currentTimeMillis();
+			try {
+				if (format == Format.ZIP) {
+					writeZip(folder, downloads, out);
+				} else {
+					writeTar(folder, downloads, out);
+				}
+				completion.run();
+				out.close();
+				log.info("Archive of folder '" + folder + "' with " + downloads.size() + " files written in "
+						+ (System.currentTimeMillis() - start) + " ms.");
+			} catch (Exception e) {
+				log.error("Writing archive of folder '" + folder + "' failed.", e);
+				// set before the pipe is closed: the reader gets an exception instead of
+				// the end of a truncated archive
+				in.fail(e);
+				IOUtils.closeQuietly(out);
+			}
+		});
+
+		return in;
+
+	}
+
+	protected void writeZip(String folder, List<Download> downloads, OutputStream out) throws IOException {
+
+		// zip64 extensions are added automatically for large files or many entries
+		ZipOutputStream zip = new ZipOutputStream(out);
+		byte[] buffer = new byte[BUFFER_SIZE];
+
+		for (Download download : downloads) {
+			ZipEntry entry = new ZipEntry(folder + "/" + download.getName());
+			// level 0 writes stored deflate blocks: no crc or size needed up front
+			zip.setLevel(isCompressed(download.getName()) ? Deflater.NO_COMPRESSION : Deflater.BEST_SPEED);
+			zip.putNextEntry(entry);
+			try (InputStream input = open(download)) {
+				IOUtils.copyLarge(input, zip, buffer);
+			}
+			zip.closeEntry();
+		}
+
+		zip.finish();
+
+	}
+
+	protected void writeTar(String folder, List<Download> downloads, OutputStream out) throws IOException {
+
+		TarArchiveOutputStream tar = new TarArchiveOutputStream(out);
+		tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+		tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+		byte[] buffer = new byte[BUFFER_SIZE];
+
+		long now = System.currentTimeMillis();
+
+		for (Download download : downloads) {
+			IWorkspace workspace = workspaceFactory.getByUrl(download.getPath(), false);
+			TarArchiveEntry entry = new TarArchiveEntry(folder + "/" + download.getName());
+			// size from the listing, no request per file
+			entry.setSize(download.getBytes());
+			entry.setModTime(now);
+			if (download.getBytes() <= 0) {
+				// exported before sizes were stored
+				WorkspaceObject object = workspace.getObject(download.getPath());
+				if (object == null) {
+					throw new IOException("File '" + download.getPath() + "' not found in workspace.");
+				}
+				entry.setSize(object.size());
+				entry.setModTime(object.lastModified());
+			}
+			tar.putArchiveEntry(entry);
+			try (InputStream input = open(download)) {
+				IOUtils.copyLarge(input, tar, buffer);
+			}
+			tar.closeArchiveEntry();
+		}
+
+		tar.finish();
+
+	}
+
+	protected InputStream open(Download download) throws IOException {
+		IWorkspace workspace = workspaceFactory.getByUrl(download.getPath(), false);
+		return workspace.download(download.getPath());
+	}
+
+	protected boolean isCompressed(String name) {
+		int index = name.lastIndexOf('.');
+		if (index == -1) {
+			return false;
+		}
+		return COMPRESSED_EXTENSIONS.contains(name.substring(index + 1).toLowerCase());
+	}
+
+	protected synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(ARCHIVE_THREADS, new ArchiveThreadFactory());
+		}
+		return executor;
+	}
+
+	/**
+	 * Pipe that ends with the error of the writer instead of a regular end of
+	 * stream.
+	 */
+	static class ArchivePipe extends PipedInputStream {
+
+		private volatile IOException error;
+
+		public ArchivePipe(int size) {
+			super(size);
+		}
+
+		public void fail(Exception e) {
+			error = e instanceof IOException ? (IOException) e : new IOException(e);
+		}
+
+		@Override
+		public synchronized int read() throws IOException {
+			return check(super.read());
+		}
+
+		@Override
+		public synchronized int read(byte[] buffer, int offset, int length) throws IOException {
+			return check(super.read(buffer, offset, length));
+		}
+
+		private int check(int result) throws IOException {
+			if (result == -1 && error != null) {
+				throw new IOException("Writing archive failed.", error);
+			}
+			return result;
+		}
+
+	}
+
+	static class ArchiveThreadFactory implements ThreadFactory {
+
+		private AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "archive-writer-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+
+	}
+
+}
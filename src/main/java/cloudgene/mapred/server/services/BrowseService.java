@@ -0,0 +1,152 @@
+package cloudgene.mapred.server.services;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Vector;
+
+import cloudgene.mapred.database.DownloadDao;
+import cloudgene.mapred.database.ParameterDao;
+import cloudgene.mapred.jobs.CloudgeneParameterOutput;
+import cloudgene.mapred.jobs.Download;
+import cloudgene.mapred.jobs.JobResultsTreeItem;
+import cloudgene.mapred.server.Application;
+import cloudgene.mapred.server.exceptions.JsonHttpStatusException;
+import cloudgene.mapred.util.Page;
+import io.micronaut.http.HttpStatus;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+/**
+ * Lists the children of a folder of an output parameter page by page. Folders
+ * come first, then files. Only the requested page of files is loaded from the
+ * database.
+ */
+@Singleton
+public class BrowseService {
+
+	public static final String SORT_NAME = "name";
+
+	public static final String SORT_SIZE = "size";
+
+	public static final String ORDER_ASC = "asc";
+
+	public static final String ORDER_DESC = "desc";
+
+	public static final int DEFAULT_PAGE_SIZE = 100;
+
+	public static final int MAX_PAGE_SIZE = 1000;
+
+	@Inject
+	protected Application application;
+
+	public Page<JobResultsTreeItem> browse(String hash, String path, String filter, String sort, String order,
+			Integer page, Integer pageSize) {
+
+		if (sort != null && !sort.equals(SORT_NAME) && !sort.equals(SORT_SIZE)) {
+			throw new JsonHttpStatusException(HttpStatus.BAD_REQUEST, "Invalid sort '" + sort + "'.");
+		}
+
+		if (order != null && !order.equals(ORDER_ASC) && !order.equals(ORDER_DESC)) {
+			throw new JsonHttpStatusException(HttpStatus.BAD_REQUEST, "Invalid order '" + order + "'.");
+		}
+
+		if (page == null) {
+			page = 1;
+		}
+
+		if (pageSize == null) {
+			pageSize = DEFAULT_PAGE_SIZE;
+		}
+
+		if (page < 1 || pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+			throw new JsonHttpStatusException(HttpStatus.BAD_REQUEST, "Invalid page.");
+		}
+
+		ParameterDao parameterDao = new ParameterDao(application.getDatabase());
+		CloudgeneParameterOutput param = parameterDao.findByHash(hash, false);
+
+		if (param == null) {
+			throw new JsonHttpStatusException(HttpStatus.NOT_FOUND, "Param for hash " + hash + " not found.");
+		}
+
+		String folder = normalizePath(path);
+		if (filter != null && filter.isEmpty()) {
+			filter = null;
+		}
+		boolean orderBySize = SORT_SIZE.equals(sort);
+		boolean descending = ORDER_DESC.equals(order);
+
+		DownloadDao dao = new DownloadDao(application.getDatabase());
+
+		// folders have no size and are always ordered by name
+		List<String> folders = new Vector<String>();
+		for (String name : dao.findFoldersByParameter(param, folder)) {
+			if (filter == null || name.toLowerCase().contains(filter.toLowerCase())) {
+				folders.add(name);
+			}
+		}
+		folders.sort(String.CASE_INSENSITIVE_ORDER);
+		if (descending) {
+			Collections.reverse(folders);
+		}
+
+		int files = dao.countFilesByParameter(param, folder, filter);
+
+		if (!folder.isEmpty() && filter == null && folders.isEmpty() && files == 0) {
+			throw new JsonHttpStatusException(HttpStatus.NOT_FOUND, "Folder '" + path + "' not found.");
+		}
+
+		int offset = (page - 1) * pageSize;
+		List<JobResultsTreeItem> items = new Vector<JobResultsTreeItem>();
+
+		for (int i = offset; i < folders.size() && items.size() < pageSize; i++) {
+			JobResultsTreeItem item = new JobResultsTreeItem();
+			item.setName(folders.get(i));
+			item.setPath(folder + folders.get(i));
+			item.setFolder(true);
+			items.add(item);
+		}
+
+		int limit = pageSize - items.size();
+		if (limit > 0) {
+			int fileOffset = Math.max(0, offset - folders.size());
+			for (Download download : dao.findFilesByParameter(param, folder, filter, orderBySize, descending,
+					fileOffset, limit)) {
+				JobResultsTreeItem item = new JobResultsTreeItem();
+				item.setName(download.getName().substring(folder.length()));
+				item.setPath("/browse/" + param.getHash() + "/" + download.getName());
+				item.setHash(download.getHash());
+				item.setSize(download.getSize());
+				item.setFolder(false);
+				items.add(item);
+			}
+		}
+
+		Page<JobResultsTreeItem> result = new Page<JobResultsTreeItem>();
+		result.setData(items);
+		result.setCount(folders.size() + files);
+		result.setPage(page);
+		result.setPageSize(pageSize);
+		return result;
+
+	}
+
+	/**
+	 * Returns the path without leading slashes and with a trailing slash, or an
+	 * empty string for the root folder.
+	 */
+	protected String normalizePath(String path) {
+		if (path == null) {
+			return "";
+		}
+		String normalized = path.trim();
+		while (normalized.startsWith("/")) {
+			normalized = normalized.substring(1);
+		}
+		while (normalized.endsWith("/")) {
+			normalized = normalized.substring(0, normalized.length() - 1);
+		}
+		return normalized.isEmpty() ? "" : normalized + "/";
+	}
+
+}
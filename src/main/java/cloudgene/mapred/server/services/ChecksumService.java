@@ -0,0 +1,249 @@
+package cloudgene.mapred.server.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cloudgene.mapred.database.DownloadDao;
+import cloudgene.mapred.jobs.Download;
+import cloudgene.mapred.jobs.workspace.IWorkspace;
+import cloudgene.mapred.jobs.workspace.WorkspaceFactory;
+import cloudgene.mapred.server.Application;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+/**
+ * Computes SHA-256 checksums of exported files in the background and stores
+ * them with their downloads, so exporting a job is not slowed down by reading
+ * all of its results. Stored checksums are used to verify the files of a job;
+ * verifications requested by an admin run in the background as well.
+ */
+@Singleton
+public class ChecksumService {
+
+	private static final Logger log = LoggerFactory.getLogger(ChecksumService.class);
+
+	public static int MAX_DOWNLOADS = 100;
+
+	public static int MAX_ATTEMPTS = 5;
+
+	// delay after the first failure, doubled with every attempt
+	public static long RETRY_DELAY = 60 * 1000;
+
+	public static int VERIFY_THREADS = 2;
+
+	@Inject
+	protected Application application;
+
+	@Inject
+	protected WorkspaceFactory workspaceFactory;
+
+	private AtomicBoolean running = new AtomicBoolean(false);
+
+	// position of the current pass, failed downloads are retried in a later one
+	private volatile int lastId = 0;
+
+	// next attempt of failed downloads by id. Attempts are stored with the
+	// download, only the delay starts over after a restart
+	private Map<Integer, Long> retries = new ConcurrentHashMap<Integer, Long>();
+
+	// running or finished verifications by job id
+	private Map<String, Verification> verifications = new ConcurrentHashMap<String, Verification>();
+
+	private ExecutorService executor;
+
+	public int computeMissing() {
+
+		if (!running.compareAndSet(false, true)) {
+			return 0;
+		}
+
+		try {
+
+			DownloadDao dao = new DownloadDao(application.getDatabase());
+			// files of retired and deleted jobs are gone, they are not scanned
+			List<Download> downloads = dao.findAllWithoutChecksum(lastId, MAX_DOWNLOADS, MAX_ATTEMPTS);
+
+			int count = 0;
+			long now = System.currentTimeMillis();
+			for (Download download : downloads) {
+				lastId = download.getId();
+				Long retryAfter = retries.get(download.getId());
+				if (retryAfter != null && retryAfter > now) {
+					continue;
+				}
+				try {
+					download.setChecksum(computeChecksum(download));
+					if (dao.updateChecksum(download)) {
+						count++;
+					}
+					retries.remove(download.getId());
+				} catch (Exception e) {
+					int attempts = download.getChecksumAttempts() + 1;
+					download.setChecksumAttempts(attempts);
+					dao.updateChecksumAttempts(download);
+					if (attempts >= MAX_ATTEMPTS) {
+						retries.remove(download.getId());
+						log.error("Computing checksum of '" + download.getPath() + "' failed " + attempts
+								+ " times, giving up.", e);
+					} else {
+						retries.put(download.getId(), now + (RETRY_DELAY << (attempts - 1)));
+						log.warn("Computing checksum of '" + download.getPath() + "' failed: " + e.getMessage());
+					}
+				}
+			}
+
+			if (downloads.size() < MAX_DOWNLOADS) {
+				// start over, picks up downloads that were inserted in the meantime
+				lastId = 0;
+			}
+
+			if (count > 0) {
+				log.info("Computed checksums of " + count + " files.");
+			}
+
+			return count;
+
+		} finally {
+			running.set(false);
+		}
+
+	}
+
+	/**
+	 * Compares all files of the job with their stored checksums and returns the
+	 * downloads whose content has changed or can not be read.
+	 */
+	public List<Download> verify(String job) {
+		Verification verification = new Verification();
+		verify(job, verification);
+		return verification.getCorrupted();
+	}
+
+	/**
+	 * Starts the verification of the job in the background and returns it. As
+	 * long as it is running, the same verification is returned. A finished
+	 * verification is returned once, the next call starts a new one.
+	 */
+	public Verification startVerification(String job) {
+
+		Verification created = new Verification();
+		Verification current = verifications.putIfAbsent(job, created);
+		if (current != null) {
+			if (current.isFinished()) {
+				verifications.remove(job, current);
+			}
+			return current;
+		}
+
+		getExecutor().submit(() -> {
+			try {
+				verify(job, created);
+			} catch (Exception e) {
+				log.error("[Job {}] Verification failed.", job, e);
+			} finally {
+				created.finished = true;
+			}
+		});
+
+		return created;
+
+	}
+
+	protected void verify(String job, Verification verification) {
+
+		DownloadDao dao = new DownloadDao(application.getDatabase());
+		List<Download> downloads = dao.findAllByJob(job);
+		verification.total = downloads.size();
+
+		for (Download download : downloads) {
+			if (download.getChecksum() != null) {
+				try {
+					String checksum = computeChecksum(download);
+					if (!checksum.equals(download.getChecksum())) {
+						log.error("[Job {}] Checksum of '{}' does not match. Expected {}, found {}.", job,
+								download.getPath(), download.getChecksum(), checksum);
+						verification.corrupted.add(download);
+					}
+				} catch (Exception e) {
+					log.error("[Job {}] File '{}' could not be verified.", job, download.getPath(), e);
+					verification.corrupted.add(download);
+				}
+			}
+			verification.checked++;
+		}
+
+	}
+
+	protected String computeChecksum(Download download) throws IOException {
+		// every file is read once, the workspace cache is kept for downloads
+		IWorkspace workspace = workspaceFactory.getByUrl(download.getPath(), false);
+		try (InputStream in = workspace.download(download.getPath())) {
+			return DigestUtils.sha256Hex(in);
+		}
+	}
+
+	protected synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(VERIFY_THREADS, new VerifyThreadFactory());
+		}
+		return executor;
+	}
+
+	/**
+	 * Progress and result of the verification of a job.
+	 */
+	public static class Verification {
+
+		private volatile int total = 0;
+
+		private volatile int checked = 0;
+
+		private volatile boolean finished = false;
+
+		private List<Download> corrupted = new Vector<Download>();
+
+		public int getTotal() {
+			return total;
+		}
+
+		public int getChecked() {
+			return checked;
+		}
+
+		public boolean isFinished() {
+			return finished;
+		}
+
+		public List<Download> getCorrupted() {
+			return corrupted;
+		}
+
+	}
+
+	static class VerifyThreadFactory implements ThreadFactory {
+
+		private AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "checksum-verify-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+
+	}
+
+}
@@ -1,32 +1,65 @@
 package cloudgene.mapred.server.services;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Vector;
+
+import org.apache.commons.io.input.BoundedInputStream;
+import org.apache.commons.io.input.ObservableInputStream;
 
 import cloudgene.mapred.database.DownloadDao;
 import cloudgene.mapred.jobs.Download;
 import cloudgene.mapred.jobs.workspace.WorkspaceFactory;
+import cloudgene.mapred.jobs.workspace.WorkspaceObject;
 import cloudgene.mapred.jobs.workspace.IWorkspace;
 import cloudgene.mapred.server.Application;
 import cloudgene.mapred.server.exceptions.JsonHttpStatusException;
+import cloudgene.mapred.util.ByteRange;
+import cloudgene.mapred.util.HashUtil;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MediaType;
 import io.micronaut.http.MutableHttpResponse;
+import io.micronaut.http.server.types.files.SystemFile;
 import jakarta.inject.Inject;
 
 public class DownloadService {
 
+	private static final String BYTES = "bytes";
+
+	private static final String DIGEST = "Digest";
+
+	private static final String REPR_DIGEST = "Repr-Digest";
+
 	@Inject
 	protected Application application;
 
 	@Inject
 	protected WorkspaceFactory workspaceFactory;
 
-	public MutableHttpResponse<InputStream> download(Download download) throws URISyntaxException, IOException {
-
-		DownloadDao dao = new DownloadDao(application.getDatabase());
+	public MutableHttpResponse<?> download(HttpRequest<?> request, Download download)
+			throws URISyntaxException, IOException {
 
 		if (download == null) {
 			throw new JsonHttpStatusException(HttpStatus.NOT_FOUND, "download not found.");
@@ -36,21 +69,203 @@ public class DownloadService {
 			throw new JsonHttpStatusException(HttpStatus.BAD_REQUEST, "number of max downloads exceeded.");
 		}
 
-		// update download counter if it not set to unlimited
-		if (download.getCount() != -1) {
-			download.decCount();
-			dao.update(download);
-		}
-
 		IWorkspace workspace = workspaceFactory.getByUrl(download.getPath());
 
 		// external workspace found, use link method and create redirect response
 		String publicUrl = workspace.createPublicLink(download.getPath());
 		if (publicUrl != null) {
+			decCount(download);
 			URI location = new URI(publicUrl);
 			return HttpResponse.redirect(location);
-		} else {
-			return HttpResponse.ok(workspace.download(download.getPath()));
+		}
+
+		WorkspaceObject object = workspace.getObject(download.getPath());
+		if (object == null) {
+			throw new IOException("File '" + download.getPath() + "' not found in workspace.");
+		}
+
+		File file = new File(object.path());
+		// etag does not change when the checksum is stored later, range requests can be resumed
+		String etag = "\"" + object.etag() + "\"";
+		String lastModified = formatDate(object.lastModified());
+
+		if (isNotModified(request, etag, object.lastModified())) {
+			return HttpResponse.notModified().header(HttpHeaders.ETAG, etag).header(HttpHeaders.LAST_MODIFIED,
+					lastModified);
+		}
+
+		List<ByteRange> ranges = null;
+		String range = request.getHeaders().get(HttpHeaders.RANGE);
+		if (range != null && isRangeValid(request, etag, object.lastModified())) {
+			ranges = ByteRange.parse(range, object.size());
+		}
+
+		if (ranges != null && ranges.isEmpty()) {
+			return HttpResponse.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+					.header(HttpHeaders.CONTENT_RANGE, BYTES + " */" + object.size());
+		}
+
+		// a download is counted when the last byte of the file was sent. Aborted
+		// downloads and probes of the first bytes are not counted, a resumed download
+		// is counted once. Ranges are ordered by start.
+		boolean counted = download.getCount() != -1
+				&& (ranges == null || ranges.get(ranges.size() - 1).end() == object.size() - 1);
+
+		if (ranges == null) {
+			MutableHttpResponse<?> response;
+			if (counted) {
+				response = HttpResponse.ok(countOnCompletion(new FileInputStream(file), object.size(), download))
+						.contentType(MediaType.forFilename(file.getName())).contentLength(object.size());
+			} else {
+				// served by netty as file region (zero-copy)
+				response = HttpResponse.ok(new SystemFile(file));
+			}
+			response.header(HttpHeaders.ETAG, etag).header(HttpHeaders.LAST_MODIFIED, lastModified)
+					.header(HttpHeaders.ACCEPT_RANGES, BYTES);
+			if (download.getChecksum() != null) {
+				String digest = Base64.getEncoder().encodeToString(HexFormat.of().parseHex(download.getChecksum()));
+				response.header(DIGEST, "sha-256=" + digest).header(REPR_DIGEST, "sha-256=:" + digest + ":");
+			}
+			return response;
+		}
+
+		MediaType mediaType = MediaType.forFilename(file.getName());
+
+		if (ranges.size() == 1) {
+			ByteRange byteRange = ranges.get(0);
+			InputStream body = openRange(file, byteRange);
+			if (counted) {
+				body = countOnCompletion(body, byteRange.length(), download);
+			}
+			return HttpResponse.status(HttpStatus.PARTIAL_CONTENT).body(body)
+					.contentType(mediaType).contentLength(byteRange.length())
+					.header(HttpHeaders.CONTENT_RANGE, byteRange.toContentRange(object.size()))
+					.header(HttpHeaders.ETAG, etag).header(HttpHeaders.LAST_MODIFIED, lastModified)
+					.header(HttpHeaders.ACCEPT_RANGES, BYTES);
+		}
+
+		// multiple ranges: multipart/byteranges
+		String boundary = HashUtil.getSha256(etag + System.nanoTime()).substring(0, 32);
+		List<InputStream> parts = new Vector<InputStream>();
+		long length = 0;
+		for (ByteRange byteRange : ranges) {
+			byte[] header = ("\r\n--" + boundary + "\r\n" + HttpHeaders.CONTENT_TYPE + ": " + mediaType + "\r\n"
+					+ HttpHeaders.CONTENT_RANGE + ": " + byteRange.toContentRange(object.size()) + "\r\n\r\n")
+					.getBytes(StandardCharsets.US_ASCII);
+			parts.add(new ByteArrayInputStream(header));
+			parts.add(openRange(file, byteRange));
+			length += header.length + byteRange.length();
+		}
+		byte[] end = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+		parts.add(new ByteArrayInputStream(end));
+		length += end.length;
+
+		InputStream body = new SequenceInputStream(Collections.enumeration(parts));
+		if (counted) {
+			body = countOnCompletion(body, length, download);
+		}
+
+		return HttpResponse.status(HttpStatus.PARTIAL_CONTENT).body(body)
+				.contentType("multipart/byteranges; boundary=" + boundary).contentLength(length)
+				.header(HttpHeaders.ETAG, etag).header(HttpHeaders.LAST_MODIFIED, lastModified)
+				.header(HttpHeaders.ACCEPT_RANGES, BYTES);
+
+	}
+
+	protected void decCount(Download download) {
+		// update download counter if it not set to unlimited
+		if (download.getCount() != -1) {
+			DownloadDao dao = new DownloadDao(application.getDatabase());
+			download.decCount();
+			dao.update(download);
+		}
+	}
+
+	/**
+	 * Decrements the download counter when all bytes of the body were read.
+	 */
+	protected InputStream countOnCompletion(InputStream in, long size, Download download) {
+		if (size == 0) {
+			decCount(download);
+			return in;
+		}
+		ObservableInputStream observable = new ObservableInputStream(in);
+		observable.add(new ObservableInputStream.Observer() {
+
+			private long read = 0;
+
+			@Override
+			public void data(int value) {
+				add(1);
+			}
+
+			@Override
+			public void data(byte[] buffer, int offset, int length) {
+				add(length);
+			}
+
+			private void add(long bytes) {
+				boolean completed = read < size && read + bytes >= size;
+				read += bytes;
+				if (completed) {
+					decCount(download);
+				}
+			}
+
+		});
+		return observable;
+	}
+
+	protected InputStream openRange(File file, ByteRange range) throws IOException {
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+		channel.position(range.start());
+		return new BoundedInputStream(Channels.newInputStream(channel), range.length());
+	}
+
+	protected boolean isNotModified(HttpRequest<?> request, String etag, long lastModified) {
+		String ifNoneMatch = request.getHeaders().get(HttpHeaders.IF_NONE_MATCH);
+		if (ifNoneMatch != null) {
+			return matchesEtag(ifNoneMatch, etag);
+		}
+		Long ifModifiedSince = parseDate(request.getHeaders().get(HttpHeaders.IF_MODIFIED_SINCE));
+		return ifModifiedSince != null && lastModified / 1000 <= ifModifiedSince / 1000;
+	}
+
+	protected boolean isRangeValid(HttpRequest<?> request, String etag, long lastModified) {
+		String ifRange = request.getHeaders().get(HttpHeaders.IF_RANGE);
+		if (ifRange == null) {
+			return true;
+		}
+		if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+			return ifRange.equals(etag);
+		}
+		Long date = parseDate(ifRange);
+		return date != null && lastModified / 1000 == date / 1000;
+	}
+
+	protected boolean matchesEtag(String header, String etag) {
+		for (String value : header.split(",")) {
+			value = value.trim();
+			if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	protected String formatDate(long time) {
+		return DateTimeFormatter.RFC_1123_DATE_TIME
+				.format(ZonedDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneOffset.UTC));
+	}
+
+	protected Long parseDate(String value) {
+		if (value == null) {
+			return null;
+		}
+		try {
+			return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+		} catch (DateTimeParseException e) {
+			return null;
 		}
 	}
 
@@ -0,0 +1,114 @@
+package cloudgene.mapred.server.services;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cloudgene.mapred.database.InputStoreDao;
+import cloudgene.mapred.database.InputStoreDao.Reference;
+import cloudgene.mapred.jobs.workspace.IWorkspace;
+import cloudgene.mapred.jobs.workspace.WorkspaceFactory;
+import cloudgene.mapred.server.Application;
+import cloudgene.mapred.util.HashUtil;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+/**
+ * Content-addressed store for uploaded input files. Every distinct content is
+ * kept once per workspace and linked into the input folders of jobs (hardlinks
+ * on local workspaces, server-side copies on S3). The jobs that use a stored
+ * file are tracked in the database and the file is removed when the last of
+ * them is retired or deleted.
+ */
+@Singleton
+public class InputStoreService {
+
+	private static final Logger log = LoggerFactory.getLogger(InputStoreService.class);
+
+	private static final int LOCKS = 64;
+
+	@Inject
+	protected Application application;
+
+	@Inject
+	protected WorkspaceFactory workspaceFactory;
+
+	private final Object[] locks = new Object[LOCKS];
+
+	public InputStoreService() {
+		for (int i = 0; i < LOCKS; i++) {
+			locks[i] = new Object();
+		}
+	}
+
+	/**
+	 * Adds the file to the input folder of the job. The file is moved, the
+	 * caller must not use it afterwards.
+	 */
+	public String uploadInput(IWorkspace workspace, String job, String id, File file, String digest)
+			throws IOException {
+
+		if (!application.getSettings().isInputStore()) {
+			return workspace.moveInput(id, file);
+		}
+
+		if (digest == null) {
+			digest = HashUtil.getSha256(file);
+		}
+
+		InputStoreDao dao = new InputStoreDao(application.getDatabase());
+
+		synchronized (getLock(digest)) {
+
+			String url = workspace.createStoredInput(digest);
+			if (workspace.exists(url)) {
+				log.info("[Job {}] Input '{}' found in input store ({}).", job, file.getName(), digest);
+			} else {
+				workspace.storeInput(digest, file);
+			}
+
+			if (!dao.insert(job, digest, url)) {
+				throw new IOException("Input '" + file.getName() + "' could not be registered in input store.");
+			}
+
+			return workspace.linkInput(id, file.getName(), url);
+
+		}
+
+	}
+
+	public void release(String job) {
+
+		InputStoreDao dao = new InputStoreDao(application.getDatabase());
+		List<Reference> references = dao.findAllByJob(job);
+		if (references.isEmpty()) {
+			return;
+		}
+
+		dao.deleteAllByJob(job);
+
+		for (Reference reference : references) {
+			synchronized (getLock(reference.digest())) {
+				if (dao.countReferences(reference.digest(), reference.url()) != 0) {
+					continue;
+				}
+				try {
+					IWorkspace workspace = workspaceFactory.getByUrl(reference.url());
+					workspace.deleteStoredInput(reference.url());
+					log.info("[Job {}] Removed unused input {} from input store.", job, reference.digest());
+				} catch (Exception e) {
+					log.error("[Job {}] Removing input {} from input store failed.", job, reference.digest(), e);
+				}
+			}
+		}
+
+	}
+
+	protected Object getLock(String digest) {
+		return locks[Math.floorMod(digest.hashCode(), LOCKS)];
+	}
+
+}
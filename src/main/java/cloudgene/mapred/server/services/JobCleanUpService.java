@@ -11,7 +11,6 @@ import cloudgene.mapred.database.ParameterDao;
 import cloudgene.mapred.database.util.Database;
 import cloudgene.mapred.jobs.AbstractJob;
 import cloudgene.mapred.jobs.workspace.WorkspaceFactory;
-import cloudgene.mapred.jobs.workspace.IWorkspace;
 import cloudgene.mapred.server.Application;
 import cloudgene.mapred.util.MailUtil;
 import cloudgene.mapred.util.Settings;
@@ -30,6 +29,9 @@ public class JobCleanUpService {
 	@Inject
 	protected WorkspaceFactory workspaceFactory;
 
+	@Inject
+	protected WorkspaceCleanupService workspaceCleanupService;
+
 	public int executeRetire() {
 
 		Database database = application.getDatabase();
@@ -59,13 +61,7 @@ public class JobCleanUpService {
 				ParameterDao parameterDao = new ParameterDao(database);
 				parameterDao.deleteSensitiveByJob(job);
 
-				IWorkspace externalWorkspace = workspaceFactory.getByJob(job);
-
-				try {
-					externalWorkspace.delete(job.getId());
-				} catch (Exception e) {
-					log.error("Retire " + job.getId() + " failed.", e);
-				}
+				workspaceCleanupService.deleteAsync(job.getId());
 
 			}
 
@@ -0,0 +1,248 @@
+package cloudgene.mapred.server.services;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+
+import cloudgene.mapred.jobs.AbstractJob;
+import cloudgene.mapred.jobs.Message;
+import cloudgene.mapred.jobs.Step;
+import cloudgene.mapred.server.Application;
+import cloudgene.mapred.server.responses.JobEventResponse;
+import cloudgene.mapred.server.responses.StepResponse;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+/**
+ * Publishes changes of queued and running jobs to subscribed clients. Jobs
+ * of the workflow engine are compared with their last snapshot once per
+ * update: changed states, positions in queue and times are published as
+ * {@link #EVENT_STATE}, steps with new or changed messages as
+ * {@link #EVENT_STEPS}. Progress is updated once per update instead of once
+ * per polling client. The last events are kept, so reconnecting clients can
+ * resume after their last received event.
+ */
+@Singleton
+public class JobEventService {
+
+	public static final String EVENT_STATE = "state";
+
+	public static final String EVENT_STEPS = "steps";
+
+	public static int HISTORY_SIZE = 1000;
+
+	@Inject
+	protected Application application;
+
+	private final Object lock = new Object();
+
+	private long lastId = 0;
+
+	private final Deque<JobEvent> history = new ArrayDeque<JobEvent>();
+
+	// listeners can be removed while an event is published to them
+	private final List<Listener> listeners = new CopyOnWriteArrayList<Listener>();
+
+	private final Map<String, Snapshot> snapshots = new HashMap<String, Snapshot>();
+
+	// jobs sent as snapshot to new listeners, compared in the next update
+	private final Map<String, Snapshot> subscribed = new ConcurrentHashMap<String, Snapshot>();
+
+	/**
+	 * Compares all jobs of the workflow engine with their last snapshot and
+	 * publishes the changes. Jobs that left the engine are published a last time
+	 * with their final state.
+	 */
+	public synchronized void update() {
+
+		if (listeners.isEmpty()) {
+			snapshots.clear();
+			return;
+		}
+
+		Iterator<Snapshot> pending = subscribed.values().iterator();
+		while (pending.hasNext()) {
+			Snapshot snapshot = pending.next();
+			snapshots.putIfAbsent(snapshot.job().getId(), snapshot);
+			pending.remove();
+		}
+
+		// updates progress of running jobs
+		List<AbstractJob> jobs = application.getWorkflowEngine().getAllJobsInLongTimeQueue();
+
+		Set<String> active = new HashSet<String>();
+		for (AbstractJob job : jobs) {
+			active.add(job.getId());
+			Snapshot snapshot = Snapshot.of(job);
+			publishChanges(job, snapshots.get(job.getId()), snapshot);
+			snapshots.put(job.getId(), snapshot);
+		}
+
+		Iterator<Snapshot> iterator = snapshots.values().iterator();
+		while (iterator.hasNext()) {
+			Snapshot old = iterator.next();
+			if (!active.contains(old.job().getId())) {
+				publishChanges(old.job(), old, Snapshot.of(old.job()));
+				iterator.remove();
+			}
+		}
+
+	}
+
+	protected void publishChanges(AbstractJob job, Snapshot old, Snapshot snapshot) {
+
+		if (old == null || old.state() != snapshot.state() || old.positionInQueue() != snapshot.positionInQueue()
+				|| old.startTime() != snapshot.startTime() || old.endTime() != snapshot.endTime()) {
+			publish(EVENT_STATE, job, null);
+		}
+
+		List<Step> steps = getSteps(job);
+		List<Step> changed = new Vector<Step>();
+		for (int i = 0; i < steps.size() && i < snapshot.steps().size(); i++) {
+			boolean known = old != null && i < old.steps().size();
+			if (known ? !old.steps().get(i).equals(snapshot.steps().get(i)) : hasMessages(steps.get(i))) {
+				changed.add(steps.get(i));
+			}
+		}
+		if (!changed.isEmpty()) {
+			publish(EVENT_STEPS, job, StepResponse.build(changed));
+		}
+
+	}
+
+	protected void publish(String type, AbstractJob job, List<StepResponse> steps) {
+		synchronized (lock) {
+			JobEvent event = new JobEvent(++lastId, type, getUserId(job), JobEventResponse.build(job, steps));
+			history.addLast(event);
+			if (history.size() > HISTORY_SIZE) {
+				history.removeFirst();
+			}
+			for (Listener listener : listeners) {
+				if (listener.filter().test(event)) {
+					listener.sink().next(event);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Subscribes to the events of the jobs of a user. Events after lastEventId
+	 * are replayed. If lastEventId is unknown or already dropped from the history,
+	 * a snapshot of the given jobs is sent first.
+	 */
+	public Flux<JobEvent> subscribeByUser(int userId, Long lastEventId, List<AbstractJob> jobs) {
+		return subscribe(event -> event.userId() == userId, lastEventId, jobs);
+	}
+
+	/**
+	 * Subscribes to the events of a job, starting with a snapshot of the job
+	 * unless the client resumes after lastEventId. Finished jobs always start with
+	 * a snapshot, their events may not be in the history.
+	 */
+	public Flux<JobEvent> subscribeByJob(AbstractJob job, Long lastEventId) {
+		String id = job.getId();
+		return subscribe(event -> event.job().getId().equals(id), job.isRunning() ? lastEventId : null,
+				List.of(job));
+	}
+
+	protected Flux<JobEvent> subscribe(Predicate<JobEvent> filter, Long lastEventId, List<AbstractJob> jobs) {
+
+		return Flux.create(sink -> {
+
+			Listener listener = new Listener(filter, sink);
+
+			synchronized (lock) {
+
+				long oldest = history.isEmpty() ? lastId + 1 : history.getFirst().id();
+				if (lastEventId != null && lastEventId >= oldest - 1 && lastEventId <= lastId) {
+					for (JobEvent event : history) {
+						if (event.id() > lastEventId && filter.test(event)) {
+							sink.next(event);
+						}
+					}
+				} else {
+					for (AbstractJob job : jobs) {
+						sink.next(createSnapshot(job));
+					}
+				}
+
+				for (AbstractJob job : jobs) {
+					if (job.isRunning()) {
+						subscribed.putIfAbsent(job.getId(), Snapshot.of(job));
+					}
+				}
+
+				listeners.add(listener);
+
+			}
+
+			sink.onDispose(() -> listeners.remove(listener));
+
+		}, FluxSink.OverflowStrategy.BUFFER);
+
+	}
+
+	/**
+	 * Current state of a job with all steps. The snapshot has the id of the last
+	 * published event, so clients resume with the events that follow it.
+	 */
+	protected JobEvent createSnapshot(AbstractJob job) {
+		List<StepResponse> steps = StepResponse.build(getSteps(job));
+		return new JobEvent(lastId, EVENT_STATE, getUserId(job), JobEventResponse.build(job, steps));
+	}
+
+	public int getListeners() {
+		return listeners.size();
+	}
+
+	protected static int getUserId(AbstractJob job) {
+		return job.getUser() != null ? job.getUser().getId() : -1;
+	}
+
+	protected static List<Step> getSteps(AbstractJob job) {
+		return job.getSteps() != null ? new Vector<Step>(job.getSteps()) : new Vector<Step>();
+	}
+
+	protected static boolean hasMessages(Step step) {
+		return step.getLogMessages() != null && !step.getLogMessages().isEmpty();
+	}
+
+	public record JobEvent(long id, String type, int userId, JobEventResponse job) {
+	}
+
+	protected record Listener(Predicate<JobEvent> filter, FluxSink<JobEvent> sink) {
+	}
+
+	protected record Snapshot(AbstractJob job, int state, int positionInQueue, long startTime, long endTime,
+			List<Integer> steps) {
+
+		public static Snapshot of(AbstractJob job) {
+			List<Integer> steps = new Vector<Integer>();
+			for (Step step : getSteps(job)) {
+				int hash = Objects.hashCode(step.getName());
+				if (step.getLogMessages() != null) {
+					for (Message message : new Vector<Message>(step.getLogMessages())) {
+						hash = 31 * hash + Objects.hash(message.getType(), message.getMessage());
+					}
+				}
+				steps.add(hash);
+			}
+			return new Snapshot(job, job.getState(), job.getPositionInQueue(), job.getStartTime(), job.getEndTime(),
+					steps);
+		}
+
+	}
+
+}
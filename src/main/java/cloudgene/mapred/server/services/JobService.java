@@ -1,14 +1,18 @@
 package cloudgene.mapred.server.services;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Vector;
+import java.util.zip.GZIPInputStream;
 
 import cloudgene.mapred.database.ParameterDao;
 import cloudgene.mapred.jobs.*;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -34,13 +38,25 @@ public class JobService {
 
 	private static final Logger log = LoggerFactory.getLogger(JobService.class);
 
+	public static long ETAG_CLOCK_INTERVAL = 10000;
+
 	@Inject
 	protected Application application;
 
 	@Inject
 	protected WorkspaceFactory workspaceFactory;
 
+	@Inject
+	protected WorkspaceCleanupService cleanupService;
+
+	@Inject
+	protected InputStoreService inputStoreService;
+
 	public AbstractJob getById(String id) {
+		return getById(id, true);
+	}
+
+	public AbstractJob getById(String id, boolean loadDetails) {
 
 		// TODO: better to go via database? only load from engine when running?
 
@@ -49,7 +65,7 @@ public class JobService {
 		if (job == null) {
 			// finished job is in database
 			JobDao dao = new JobDao(application.getDatabase());
-			job = dao.findById(id, true);
+			job = dao.findById(id, loadDetails);
 
 		} else {
 
@@ -66,12 +82,16 @@ public class JobService {
 	}
 
 	public AbstractJob getByIdAndUser(String id, User user) {
+		return getByIdAndUser(id, user, true);
+	}
+
+	public AbstractJob getByIdAndUser(String id, User user, boolean loadDetails) {
 
 		if (user == null) {
 			throw new JsonHttpStatusException(HttpStatus.UNAUTHORIZED, "Access denied.");
 		}
 
-		AbstractJob job = getById(id);
+		AbstractJob job = getById(id, loadDetails);
 
 		// admin has access to all jobs. Other users only to their own jobs.
 		if (!user.isAdmin() && job.getUser().getId() != user.getId()) {
@@ -81,6 +101,41 @@ public class JobService {
 		return job;
 	}
 
+	/**
+	 * Returns the ETag of the job for the user. Parameters and steps of finished
+	 * jobs are not loaded.
+	 */
+	public String getETag(String id, User user) {
+		AbstractJob job = getByIdAndUser(id, user, false);
+		return "\"" + createTag(job, user) + "\"";
+	}
+
+	/**
+	 * Returns the ETag of a page of jobs for the user.
+	 */
+	public String getETag(Page<AbstractJob> page, User user) {
+		StringBuilder tags = new StringBuilder();
+		tags.append(user.getId()).append(':').append(page.getPage()).append(':').append(page.getPageSize())
+				.append(':').append(page.getCount());
+		for (AbstractJob job : page.getData()) {
+			tags.append(':').append(createTag(job, user));
+		}
+		return "\"" + DigestUtils.md5Hex(tags.toString()) + "\"";
+	}
+
+	protected String createTag(AbstractJob job, User user) {
+		StringBuilder tag = new StringBuilder();
+		// versions of running jobs are not stored yet
+		tag.append(job.getId()).append('-').append(job.isRunning() ? 'r' : 'd').append(job.getVersion());
+		tag.append('-').append(user.isAdmin() ? 'a' : 'u');
+		// responses of running jobs contain the current time to show the execution time
+		int state = job.getState();
+		if (state == AbstractJob.STATE_RUNNING || state == AbstractJob.STATE_EXPORTING) {
+			tag.append('-').append(System.currentTimeMillis() / ETAG_CLOCK_INTERVAL);
+		}
+		return tag.toString();
+	}
+
 	public AbstractJob submitJob(String appId, List<Parameter> form, User user, String userAgent) {
 
 		if (user == null) {
@@ -120,9 +175,11 @@ public class JobService {
 			workspace.setup();
 
 			// parse input params
-			inputParams = JobParameterParser.parse(form, app, workspace);
+			inputParams = JobParameterParser.parse(form, app, workspace, inputStoreService, id);
 
 		} catch (Exception e) {
+			// inputs stored before the failure are not used by any job
+			inputStoreService.release(id);
 			throw new JsonHttpStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
 		}
 
@@ -145,6 +202,7 @@ public class JobService {
 		job.setApplication(app.getName() + " " + app.getVersion());
 		job.setApplicationId(appId);
 		job.setUserAgent(userAgent);
+		job.setCleanupService(cleanupService);
 
 		engine.submit(job);
 
@@ -219,14 +277,9 @@ public class JobService {
 		ParameterDao parameterDao = new ParameterDao(application.getDatabase());
 		parameterDao.deleteSensitiveByJob(job);
 
-		// delete all results that are stored on external workspaces
+		// delete all results that are stored on external workspaces in background
 
-		IWorkspace workspace = workspaceFactory.getByJob(job);
-		try {
-			workspace.delete(job.getId());
-		} catch (Exception e) {
-			log.error("Deleting " + job.getId() + " form workspace failed.", e);
-		}
+		cleanupService.deleteAsync(job.getId());
 
 		return job;
 	}
@@ -270,6 +323,7 @@ public class JobService {
 		job.setWorkspace(workspace);
 
 		((CloudgeneJob) job).loadApp(application.getWdlApp());
+		((CloudgeneJob) job).setCleanupService(cleanupService);
 
 		this.application.getWorkflowEngine().restart(job);
 
@@ -326,13 +380,7 @@ public class JobService {
 			ParameterDao parameterDao = new ParameterDao(application.getDatabase());
 			parameterDao.deleteSensitiveByJob(job);
 
-			IWorkspace workspace = workspaceFactory.getByJob(job);
-
-			try {
-				workspace.delete(job.getId());
-			} catch (Exception e) {
-				log.error("Deleting " + job.getId() + " from workspace failed.", e);
-			}
+			cleanupService.deleteAsync(job.getId());
 
 			return "Retired job " + job.getId();
 
@@ -422,8 +470,30 @@ public class JobService {
 			return job.getLog(name);
 		} else {
 			IWorkspace workspace = workspaceFactory.getByJob(job);
+			String compressed = workspace.createLogFile(name + AbstractJob.COMPRESSED_LOG_SUFFIX);
+			if (workspace.exists(compressed)) {
+				try (InputStream in = new GZIPInputStream(workspace.download(compressed))) {
+					return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+				}
+			}
 			return workspace.downloadLog(name);
 		}
 	}
 
+	/**
+	 * Returns the gzip compressed log of a finished job, or null when the log is
+	 * not stored compressed.
+	 */
+	public InputStream getCompressedJobLog(AbstractJob job, String name) throws IOException {
+		if (job.isRunning()) {
+			return null;
+		}
+		IWorkspace workspace = workspaceFactory.getByJob(job);
+		String compressed = workspace.createLogFile(name + AbstractJob.COMPRESSED_LOG_SUFFIX);
+		if (!workspace.exists(compressed)) {
+			return null;
+		}
+		return workspace.download(compressed);
+	}
+
 }
@@ -0,0 +1,226 @@
+package cloudgene.mapred.server.services;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.zip.GZIPInputStream;
+
+import cloudgene.mapred.jobs.AbstractJob;
+import cloudgene.mapred.jobs.workspace.IWorkspace;
+import cloudgene.mapred.jobs.workspace.WorkspaceFactory;
+import cloudgene.mapred.jobs.workspace.WorkspaceObject;
+import cloudgene.mapred.server.Application;
+import cloudgene.mapred.util.HashUtil;
+import genepi.io.FileUtil;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+/**
+ * Reads parts of job logs by byte offset. Logs of running jobs are read from
+ * the local workspace, logs of finished jobs from the job workspace. Offsets
+ * always refer to the uncompressed content. Compressed logs of the job
+ * workspace are decompressed once into a local cache, so every chunk is read
+ * with a seek instead of downloading and decompressing the log again.
+ */
+@Singleton
+public class LogService {
+
+	public static int MAX_LIMIT = 1024 * 1024;
+
+	public static int MAX_CACHED_LOGS = 100;
+
+	private static final String CACHE_DIRECTORY = "log-cache";
+
+	@Inject
+	protected Application application;
+
+	@Inject
+	protected WorkspaceFactory workspaceFactory;
+
+	// decompressed logs by url and etag, least recently used first
+	private final LinkedHashMap<String, File> cache = new LinkedHashMap<String, File>(16, 0.75f, true);
+
+	private File cacheDirectory;
+
+	/**
+	 * Reads up to limit bytes starting at offset. Chunks end with a complete line
+	 * unless the end of the log is reached or the limit is smaller than a line.
+	 */
+	public LogChunk read(AbstractJob job, String name, long offset, int limit) throws IOException {
+
+		if (offset < 0) {
+			offset = 0;
+		}
+		limit = Math.max(1, Math.min(limit, MAX_LIMIT));
+
+		String localWorkspace = FileUtil.path(application.getSettings().getLocalWorkspace(), job.getId());
+
+		// log is staged after the job finished: plain, compressed, then moved
+		File file = new File(FileUtil.path(localWorkspace, name));
+		if (file.exists()) {
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				return read(channel, offset, limit);
+			} catch (IOException e) {
+				if (file.exists()) {
+					throw e;
+				}
+			}
+		}
+
+		File compressed = new File(file.getAbsolutePath() + AbstractJob.COMPRESSED_LOG_SUFFIX);
+		if (compressed.exists()) {
+			try (InputStream in = new GZIPInputStream(new FileInputStream(compressed))) {
+				return read(in, offset, limit);
+			} catch (IOException e) {
+				if (compressed.exists()) {
+					throw e;
+				}
+			}
+		}
+
+		IWorkspace workspace = workspaceFactory.getByJob(job);
+
+		String url = workspace.createLogFile(name + AbstractJob.COMPRESSED_LOG_SUFFIX);
+		if (workspace.exists(url)) {
+			File decompressed = decompress(workspace, url);
+			if (decompressed != null) {
+				try (FileChannel channel = FileChannel.open(decompressed.toPath(), StandardOpenOption.READ)) {
+					return read(channel, offset, limit);
+				}
+			}
+		}
+
+		url = workspace.createLogFile(name);
+		if (workspace.exists(url)) {
+			try (InputStream in = workspace.download(url)) {
+				return read(in, offset, limit);
+			}
+		}
+
+		return new LogChunk("", offset, offset, true);
+
+	}
+
+	/**
+	 * Returns the local decompressed copy of the log or null if the log does not
+	 * exist. A changed log (e.g. of a restarted job) has a new etag and is
+	 * decompressed again.
+	 */
+	protected File decompress(IWorkspace workspace, String url) throws IOException {
+
+		WorkspaceObject object = workspace.getObject(url);
+		if (object == null) {
+			return null;
+		}
+		String key = HashUtil.getSha256(url + "@" + object.etag());
+
+		synchronized (cache) {
+			File file = cache.get(key);
+			if (file != null && file.exists()) {
+				return file;
+			}
+		}
+
+		File directory = getCacheDirectory();
+		File temp = File.createTempFile("log-", ".tmp", directory);
+		try (InputStream in = new GZIPInputStream(workspace.download(url))) {
+			Files.copy(in, temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			temp.delete();
+			throw e;
+		}
+
+		File file = new File(directory, key);
+		synchronized (cache) {
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			cache.put(key, file);
+			// open channels keep reading evicted files
+			Iterator<File> iterator = cache.values().iterator();
+			while (cache.size() > MAX_CACHED_LOGS && iterator.hasNext()) {
+				File evicted = iterator.next();
+				iterator.remove();
+				evicted.delete();
+			}
+		}
+
+		return file;
+
+	}
+
+	protected synchronized File getCacheDirectory() {
+		if (cacheDirectory == null) {
+			cacheDirectory = new File(FileUtil.path(application.getSettings().getTempPath(), CACHE_DIRECTORY));
+			// entries are only kept in memory, old files are useless after a restart
+			FileUtil.deleteDirectory(cacheDirectory.getAbsolutePath());
+			FileUtil.createDirectory(cacheDirectory.getAbsolutePath());
+		}
+		return cacheDirectory;
+	}
+
+	protected LogChunk read(FileChannel channel, long offset, int limit) throws IOException {
+
+		long size = channel.size();
+		if (offset >= size) {
+			return new LogChunk("", offset, offset, true);
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(limit, size - offset));
+		channel.position(offset);
+		while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+		}
+
+		boolean complete = offset + buffer.position() >= size;
+		return createChunk(buffer.array(), buffer.position(), offset, complete);
+
+	}
+
+	protected LogChunk read(InputStream in, long offset, int limit) throws IOException {
+
+		try {
+			in.skipNBytes(offset);
+		} catch (EOFException e) {
+			return new LogChunk("", offset, offset, true);
+		}
+
+		byte[] bytes = in.readNBytes(limit);
+		boolean complete = bytes.length < limit || in.read() == -1;
+		return createChunk(bytes, bytes.length, offset, complete);
+
+	}
+
+	protected LogChunk createChunk(byte[] bytes, int length, long offset, boolean complete) {
+
+		if (!complete) {
+			// do not split lines (and utf-8 characters) between chunks
+			for (int i = length - 1; i >= 0; i--) {
+				if (bytes[i] == '\n') {
+					length = i + 1;
+					break;
+				}
+			}
+		}
+
+		String content = new String(bytes, 0, length, StandardCharsets.UTF_8);
+		return new LogChunk(content, offset, offset + length, complete);
+
+	}
+
+	/**
+	 * Part of a log. next is the offset of the following chunk, complete is true
+	 * when the chunk reaches the current end of the log.
+	 */
+	public record LogChunk(String content, long offset, long next, boolean complete) {
+	}
+
+}
@@ -0,0 +1,208 @@
+package cloudgene.mapred.server.services;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cloudgene.mapred.database.DownloadDao;
+import cloudgene.mapred.jobs.Download;
+import cloudgene.mapred.server.Application;
+import cloudgene.mapred.util.FileTransfer;
+import cloudgene.mapred.util.S3Util;
+import cloudgene.mapred.util.Settings;
+import genepi.io.FileUtil;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+/**
+ * Moves the results of finished jobs from the local workspace to a second
+ * storage tier (an S3 bucket or a local folder on cheaper disks). Jobs are
+ * migrated when they are older than the configured age or, oldest first, as
+ * long as the disk usage of the local workspace is above the watermark. Files
+ * are copied first, then the paths of all downloads of a job are updated in a
+ * single statement and the local files are removed. Logs are not migrated.
+ */
+@Singleton
+public class TieringService {
+
+	private static final Logger log = LoggerFactory.getLogger(TieringService.class);
+
+	private static final long DAY = 24L * 60L * 60L * 1000L;
+
+	@Inject
+	protected Application application;
+
+	private AtomicBoolean running = new AtomicBoolean(false);
+
+	public int migrate() {
+
+		Settings settings = application.getSettings();
+		if (!isEnabled()) {
+			return 0;
+		}
+
+		if (!running.compareAndSet(false, true)) {
+			return 0;
+		}
+
+		try {
+
+			DownloadDao dao = new DownloadDao(application.getDatabase());
+			long now = System.currentTimeMillis();
+
+			int migrated = 0;
+
+			List<String> agedJobs = dao.findJobsWithLocalDownloads(now - settings.getTieringAge() * DAY,
+					settings.getTieringMaxJobs());
+			for (String job : agedJobs) {
+				if (migrateQuietly(job)) {
+					migrated++;
+				}
+			}
+
+			if (isAboveWatermark()) {
+				List<String> jobs = dao.findJobsWithLocalDownloads(now, settings.getTieringMaxJobs());
+				for (String job : jobs) {
+					if (!isAboveWatermark()) {
+						break;
+					}
+					if (migrateQuietly(job)) {
+						migrated++;
+					}
+				}
+			}
+
+			if (migrated > 0) {
+				log.info("Migrated results of " + migrated + " jobs to " + settings.getTieringLocation() + ".");
+			}
+
+			return migrated;
+
+		} finally {
+			running.set(false);
+		}
+
+	}
+
+	public void migrate(String job) throws IOException {
+
+		String prefix = getPrefix();
+		String localWorkspace = new File(application.getSettings().getLocalWorkspace()).getAbsolutePath();
+
+		DownloadDao dao = new DownloadDao(application.getDatabase());
+		List<Download> downloads = dao.findAllLocalByJob(job);
+		if (downloads.isEmpty()) {
+			return;
+		}
+
+		long start = System.currentTimeMillis();
+
+		// copy first, downloads are served from the local files until paths are updated
+		for (Download download : downloads) {
+			File file = new File(FileUtil.path(localWorkspace, download.getPath()));
+			if (!file.isFile()) {
+				throw new IOException("File '" + file.getAbsolutePath() + "' not found.");
+			}
+			copy(file, prefix + download.getPath());
+		}
+
+		if (dao.updateLocalPaths(job, prefix) < 0) {
+			throw new IOException("Paths of downloads could not be updated.");
+		}
+
+		File root = new File(localWorkspace, job);
+		for (Download download : downloads) {
+			File file = new File(FileUtil.path(localWorkspace, download.getPath()));
+			file.delete();
+			deleteEmptyParents(file.getParentFile(), root);
+		}
+
+		log.info("[Job {}] Migrated {} files to {} in {} ms.", job, downloads.size(), prefix,
+				System.currentTimeMillis() - start);
+
+	}
+
+	/**
+	 * Removes all migrated results of the job.
+	 */
+	public void delete(String job) throws IOException {
+
+		if (!isEnabled()) {
+			return;
+		}
+
+		String folder = getPrefix() + job;
+		if (S3Util.isValidS3Url(folder)) {
+			S3Util.deleteFolder(folder);
+		} else {
+			FileUtil.deleteDirectory(folder);
+		}
+
+	}
+
+	public boolean isEnabled() {
+		String location = application.getSettings().getTieringLocation();
+		return location != null && !location.isEmpty();
+	}
+
+	protected boolean migrateQuietly(String job) {
+		try {
+			migrate(job);
+			return true;
+		} catch (Exception e) {
+			log.error("[Job {}] Migration of results failed.", job, e);
+			return false;
+		}
+	}
+
+	protected boolean isAboveWatermark() {
+
+		int watermark = application.getSettings().getTieringWatermark();
+		if (watermark <= 0) {
+			return false;
+		}
+
+		File root = new File(application.getSettings().getLocalWorkspace());
+		long total = root.getTotalSpace();
+		if (total == 0) {
+			return false;
+		}
+
+		long used = total - root.getUsableSpace();
+		return used * 100 / total >= watermark;
+
+	}
+
+	protected void copy(File file, String url) throws IOException {
+		if (S3Util.isValidS3Url(url)) {
+			S3Util.copyToS3(file, url);
+		} else {
+			FileTransfer.copy(file.toPath(), Path.of(url));
+		}
+	}
+
+	protected String getPrefix() {
+		String location = application.getSettings().getTieringLocation();
+		if (!S3Util.isValidS3Url(location)) {
+			// downloads with absolute paths are resolved outside of the local workspace
+			location = new File(location).getAbsolutePath();
+		}
+		return location.endsWith("/") ? location : location + "/";
+	}
+
+	protected void deleteEmptyParents(File folder, File root) {
+		while (folder != null && !folder.equals(root) && folder.toPath().startsWith(root.toPath())) {
+			String[] children = folder.list();
+			if (children == null || children.length > 0 || !folder.delete()) {
+				return;
+			}
+			folder = folder.getParentFile();
+		}
+	}
+
+}
@@ -0,0 +1,195 @@
+package cloudgene.mapred.server.services;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import cloudgene.mapred.database.WorkspaceTaskDao;
+import cloudgene.mapred.database.WorkspaceTaskDao.WorkspaceTask;
+import cloudgene.mapred.jobs.workspace.IWorkspace;
+import cloudgene.mapred.jobs.workspace.WorkspaceFactory;
+import cloudgene.mapred.server.Application;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+
+/**
+ * Cleans up and deletes job workspaces in the background. Tasks are written to
+ * the database before they are executed, so pending and failed tasks are
+ * picked up again by {@link #processPending()}, also after a restart. The
+ * number of parallel tasks and the number of tasks started per minute are
+ * limited.
+ */
+@Singleton
+public class WorkspaceCleanupService {
+
+	private static final Logger log = LoggerFactory.getLogger(WorkspaceCleanupService.class);
+
+	public static final String CLEANUP = "cleanup";
+
+	public static final String DELETE = "delete";
+
+	public static int MAX_ATTEMPTS = 5;
+
+	public static int MAX_PENDING_TASKS = 1000;
+
+	@Inject
+	protected Application application;
+
+	@Inject
+	protected WorkspaceFactory workspaceFactory;
+
+	@Inject
+	protected InputStoreService inputStoreService;
+
+	@Inject
+	protected TieringService tieringService;
+
+	private ExecutorService executor;
+
+	private Set<Integer> scheduled = ConcurrentHashMap.newKeySet();
+
+	private long nextStart = 0;
+
+	public void cleanupAsync(String job) {
+		submit(job, CLEANUP);
+	}
+
+	public void deleteAsync(String job) {
+		submit(job, DELETE);
+	}
+
+	public int processPending() {
+
+		WorkspaceTaskDao dao = new WorkspaceTaskDao(application.getDatabase());
+		List<WorkspaceTask> tasks = dao.findAllPending(MAX_ATTEMPTS, MAX_PENDING_TASKS);
+
+		int count = 0;
+		for (WorkspaceTask task : tasks) {
+			if (schedule(task)) {
+				count++;
+			}
+		}
+
+		if (count > 0) {
+			log.info("Scheduled " + count + " pending workspace tasks.");
+		}
+
+		return count;
+
+	}
+
+	protected void submit(String job, String action) {
+
+		WorkspaceTaskDao dao = new WorkspaceTaskDao(application.getDatabase());
+		WorkspaceTask task = dao.insert(job, action);
+		if (task == null) {
+			// not persisted, but still worth a try
+			task = new WorkspaceTask(-1, job, action, 0);
+		}
+		schedule(task);
+
+	}
+
+	protected boolean schedule(WorkspaceTask task) {
+
+		if (task.id() != -1 && !scheduled.add(task.id())) {
+			return false;
+		}
+
+		getExecutor().submit(() -> execute(task));
+		return true;
+
+	}
+
+	protected void execute(WorkspaceTask task) {
+
+		WorkspaceTaskDao dao = new WorkspaceTaskDao(application.getDatabase());
+
+		try {
+
+			waitForRateLimit();
+
+			long start = System.currentTimeMillis();
+
+			IWorkspace workspace = workspaceFactory.getDefault();
+			workspace.setJob(task.job());
+
+			if (task.action().equals(DELETE)) {
+				workspace.delete(task.job());
+				tieringService.delete(task.job());
+				inputStoreService.release(task.job());
+			} else {
+				workspace.cleanup(task.job());
+			}
+
+			log.info("[Job {}] Workspace task '{}' finished in {} ms.", task.job(), task.action(),
+					System.currentTimeMillis() - start);
+
+			if (task.id() != -1) {
+				dao.delete(task);
+			}
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (Exception e) {
+			log.error("[Job {}] Workspace task '{}' failed (attempt {}).", task.job(), task.action(),
+					task.attempts() + 1, e);
+			if (task.id() != -1) {
+				dao.updateFailed(task, e.getMessage());
+			}
+		} finally {
+			scheduled.remove(task.id());
+		}
+
+	}
+
+	protected void waitForRateLimit() throws InterruptedException {
+
+		int rate = application.getSettings().getWorkspaceCleanupRate();
+		if (rate <= 0) {
+			return;
+		}
+
+		long wait;
+		synchronized (this) {
+			long now = System.currentTimeMillis();
+			nextStart = Math.max(nextStart, now);
+			wait = nextStart - now;
+			nextStart += 60 * 1000 / rate;
+		}
+
+		if (wait > 0) {
+			Thread.sleep(wait);
+		}
+
+	}
+
+	protected synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			int threads = application.getSettings().getWorkspaceCleanupThreads();
+			executor = Executors.newFixedThreadPool(threads, new CleanupThreadFactory());
+		}
+		return executor;
+	}
+
+	static class CleanupThreadFactory implements ThreadFactory {
+
+		private AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "workspace-cleanup-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+
+	}
+
+}
@@ -1,7 +1,11 @@
 package cloudgene.mapred.server.tasks;
 
 import cloudgene.mapred.server.Application;
+import cloudgene.mapred.server.services.ChecksumService;
 import cloudgene.mapred.server.services.JobCleanUpService;
+import cloudgene.mapred.server.services.JobEventService;
+import cloudgene.mapred.server.services.TieringService;
+import cloudgene.mapred.server.services.WorkspaceCleanupService;
 import io.micronaut.scheduling.annotation.Scheduled;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
@@ -15,6 +19,18 @@ public class JobTasks {
 	@Inject
 	protected JobCleanUpService cleanUpService;
 
+	@Inject
+	protected WorkspaceCleanupService workspaceCleanupService;
+
+	@Inject
+	protected TieringService tieringService;
+
+	@Inject
+	protected ChecksumService checksumService;
+
+	@Inject
+	protected JobEventService jobEventService;
+
 	@Scheduled(fixedDelay = "${micronaut.autoRetireInterval:1m}")
 	public void executeRetire() {
 
@@ -24,6 +40,26 @@ public class JobTasks {
 
 	}
 
+	@Scheduled(fixedDelay = "${micronaut.workspaceCleanupInterval:1m}")
+	public void processWorkspaceTasks() {
+		workspaceCleanupService.processPending();
+	}
+
+	@Scheduled(fixedDelay = "${micronaut.tieringInterval:10m}")
+	public void migrateResults() {
+		tieringService.migrate();
+	}
+
+	@Scheduled(fixedDelay = "${micronaut.jobEventsInterval:1s}")
+	public void publishJobEvents() {
+		jobEventService.update();
+	}
+
+	@Scheduled(fixedDelay = "${micronaut.checksumInterval:1m}")
+	public void computeChecksums() {
+		checksumService.computeMissing();
+	}
+
 	@Scheduled(fixedDelay = "${micronaut.autoRetireInterval:1m}")
 	public void sendNotifications() {
 
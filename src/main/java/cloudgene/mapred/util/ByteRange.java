@@ -0,0 +1,110 @@
+package cloudgene.mapred.util;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Vector;
+
+/**
+ * Inclusive byte range of a HTTP Range header (RFC 9110).
+ */
+public record ByteRange(long start, long end) {
+
+	private static final String UNIT = "bytes=";
+
+	public static final int MAX_RANGES = 32;
+
+	public long length() {
+		return end - start + 1;
+	}
+
+	public String toContentRange(long size) {
+		return "bytes " + start + "-" + end + "/" + size;
+	}
+
+	/**
+	 * Parses a Range header for a file with the given size. Returns null if the
+	 * header is malformed and should be ignored, and an empty list if no range
+	 * is satisfiable. Overlapping and adjacent ranges are merged, the result is
+	 * ordered by start.
+	 */
+	public static List<ByteRange> parse(String header, long size) {
+
+		if (header == null || !header.startsWith(UNIT)) {
+			return null;
+		}
+
+		String[] specs = header.substring(UNIT.length()).split(",");
+		if (specs.length > MAX_RANGES) {
+			return null;
+		}
+
+		List<ByteRange> ranges = new Vector<ByteRange>();
+
+		for (String spec : specs) {
+
+			spec = spec.trim();
+			int dash = spec.indexOf('-');
+			if (dash < 0) {
+				return null;
+			}
+
+			String first = spec.substring(0, dash).trim();
+			String last = spec.substring(dash + 1).trim();
+
+			long start;
+			long end;
+
+			try {
+				if (first.isEmpty()) {
+					// suffix range: last n bytes
+					if (last.isEmpty()) {
+						return null;
+					}
+					long suffix = Long.parseLong(last);
+					if (suffix == 0) {
+						continue;
+					}
+					start = Math.max(0, size - suffix);
+					end = size - 1;
+				} else {
+					start = Long.parseLong(first);
+					end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+					if (!last.isEmpty() && Long.parseLong(last) < start) {
+						return null;
+					}
+				}
+			} catch (NumberFormatException e) {
+				return null;
+			}
+
+			if (start >= size || start > end) {
+				continue;
+			}
+
+			ranges.add(new ByteRange(start, end));
+		}
+
+		return merge(ranges);
+
+	}
+
+	protected static List<ByteRange> merge(List<ByteRange> ranges) {
+
+		ranges.sort(Comparator.comparingLong(ByteRange::start));
+
+		List<ByteRange> merged = new Vector<ByteRange>();
+		for (ByteRange range : ranges) {
+			if (!merged.isEmpty()) {
+				ByteRange last = merged.get(merged.size() - 1);
+				if (range.start() <= last.end() + 1) {
+					merged.set(merged.size() - 1, new ByteRange(last.start(), Math.max(last.end(), range.end())));
+					continue;
+				}
+			}
+			merged.add(range);
+		}
+		return merged;
+
+	}
+
+}
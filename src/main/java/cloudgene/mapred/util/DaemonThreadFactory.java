@@ -0,0 +1,27 @@
+package cloudgene.mapred.util;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates named daemon threads for shared pools, so idle pools do not block the
+ * shutdown of the server.
+ */
+public class DaemonThreadFactory implements ThreadFactory {
+
+	private String name;
+
+	private AtomicInteger count = new AtomicInteger();
+
+	public DaemonThreadFactory(String name) {
+		this.name = name;
+	}
+
+	@Override
+	public Thread newThread(Runnable runnable) {
+		Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+		thread.setDaemon(true);
+		return thread;
+	}
+
+}
@@ -0,0 +1,161 @@
+package cloudgene.mapred.util;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Moves, links and copies local files with the cheapest operation the file
+ * system supports: a rename for moves on the same device, a hardlink for
+ * links, a reflink (copy-on-write clone) for large copies and a channel
+ * transfer (sendfile/copy_file_range) as fallback for everything else.
+ */
+public class FileTransfer {
+
+	private static final Logger log = LoggerFactory.getLogger(FileTransfer.class);
+
+	public static long REFLINK_MIN_SIZE = 16 * 1024 * 1024;
+
+	public static long REFLINK_TIMEOUT_SEC = 60;
+
+	private static final String REFLINK_NOT_SUPPORTED = "Operation not supported";
+
+	private static volatile boolean reflinkSupported = System.getProperty("os.name", "").toLowerCase()
+			.contains("linux");
+
+	// file systems without reflinks, e.g. ext4 next to a btrfs or xfs volume
+	private static final Set<FileStore> reflinkUnsupported = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Moves the source to the target. The source does not exist afterwards.
+	 */
+	public static void move(Path source, Path target) throws IOException {
+		Files.createDirectories(target.getParent());
+		try {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			// a rename keeps the mode, files from Files.createTempFile are only readable
+			// by the owner
+			makeReadable(target);
+		} catch (AtomicMoveNotSupportedException e) {
+			// different device
+			copy(source, target);
+			Files.delete(source);
+		}
+	}
+
+	/**
+	 * Links the target to the source. Both share their content afterwards, the
+	 * file is copied when no hardlink can be created.
+	 */
+	public static void link(Path source, Path target) throws IOException {
+		Files.createDirectories(target.getParent());
+		Files.deleteIfExists(target);
+		try {
+			Files.createLink(target, source);
+		} catch (FileSystemException | UnsupportedOperationException e) {
+			copy(source, target);
+		}
+	}
+
+	/**
+	 * Copies the source to the target. Both files are independent afterwards.
+	 */
+	public static void copy(Path source, Path target) throws IOException {
+		Files.createDirectories(target.getParent());
+		if (Files.size(source) >= REFLINK_MIN_SIZE && reflink(source, target)) {
+			return;
+		}
+		try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+				FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+						StandardOpenOption.TRUNCATE_EXISTING)) {
+			long size = in.size();
+			long position = 0;
+			while (position < size) {
+				position += in.transferTo(position, size - position, out);
+			}
+		}
+	}
+
+	/**
+	 * Adds read permissions for group and others, as a newly created file has.
+	 */
+	protected static void makeReadable(Path file) throws IOException {
+		PosixFileAttributeView view = Files.getFileAttributeView(file, PosixFileAttributeView.class);
+		if (view == null) {
+			return;
+		}
+		Set<PosixFilePermission> permissions = view.readAttributes().permissions();
+		if (permissions.add(PosixFilePermission.GROUP_READ) | permissions.add(PosixFilePermission.OTHERS_READ)) {
+			view.setPermissions(permissions);
+		}
+	}
+
+	protected static boolean reflink(Path source, Path target) {
+
+		if (!reflinkSupported) {
+			return false;
+		}
+
+		FileStore store;
+		try {
+			store = Files.getFileStore(target.getParent());
+			// reflinks work only within one file system
+			if (reflinkUnsupported.contains(store) || !store.equals(Files.getFileStore(source))) {
+				return false;
+			}
+		} catch (IOException e) {
+			return false;
+		}
+
+		// the jdk has no api for FICLONE. With --reflink=always cp fails instead of
+		// copying the data.
+		String output;
+		try {
+			ProcessBuilder builder = new ProcessBuilder("cp", "--reflink=always", "--", source.toString(),
+					target.toString()).redirectErrorStream(true);
+			// untranslated error messages
+			builder.environment().put("LC_ALL", "C");
+			Process process = builder.start();
+			if (!process.waitFor(REFLINK_TIMEOUT_SEC, TimeUnit.SECONDS)) {
+				process.destroyForcibly();
+				return false;
+			}
+			if (process.exitValue() == 0) {
+				return true;
+			}
+			output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+		} catch (IOException e) {
+			log.info("Reflinks not available. Falling back to regular copies.", e);
+			reflinkSupported = false;
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+
+		if (output.contains(REFLINK_NOT_SUPPORTED)) {
+			log.info("File system '" + store + "' does not support reflinks. Falling back to regular copies.");
+			reflinkUnsupported.add(store);
+		} else {
+			log.debug("Reflink of '" + source + "' failed: " + output);
+		}
+		return false;
+
+	}
+
+}
@@ -5,11 +5,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.util.List;
 import java.util.Vector;
 import java.util.function.Function;
 
 import cloudgene.mapred.server.controller.JobController;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.reactivestreams.Publisher;
 import org.reactivestreams.Subscriber;
@@ -90,11 +94,13 @@ public class FormUtil {
 
 				long start = System.currentTimeMillis();
 				log.debug("Write data to " + file.getAbsolutePath() + "...");
-				InputStream stream = completedPart.getInputStream();
+				// content hash is calculated while writing, used by the input store
+				MessageDigest digest = DigestUtils.getSha256Digest();
+				InputStream stream = new DigestInputStream(completedPart.getInputStream(), digest);
 				FileUtils.copyInputStreamToFile(stream, file);
 				stream.close();
 				log.debug("Data written to " + file.getAbsolutePath() + " in " + (System.currentTimeMillis() - start) + " ms.");
-				return new Parameter(partName, file);
+				return new Parameter(partName, file, Hex.encodeHexString(digest.digest()));
 			} catch (IOException e) {
 				log.error("Write data to " + file.getAbsolutePath() + " failed", e);
 			}
@@ -123,11 +129,19 @@ public class FormUtil {
 
 		private Object value;
 
+		private String digest;
+
 		public Parameter(String name, Object value) {
 			this.name = name;
 			this.value = value;
 		}
 
+		public Parameter(String name, Object value, String digest) {
+			this.name = name;
+			this.value = value;
+			this.digest = digest;
+		}
+
 		public String getName() {
 			return name;
 		}
@@ -143,6 +157,14 @@ public class FormUtil {
 		public void setValue(Object value) {
 			this.value = value;
 		}
+
+		public String getDigest() {
+			return digest;
+		}
+
+		public void setDigest(String digest) {
+			this.digest = digest;
+		}
 	}
 
 }
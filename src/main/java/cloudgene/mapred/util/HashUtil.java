@@ -1,16 +1,24 @@
 package cloudgene.mapred.util;
 
+import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.springframework.security.crypto.bcrypt.BCrypt;
 
 import cloudgene.mapred.core.User;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigInteger;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 
 public class HashUtil {
 
+	private static final SecureRandom random = new SecureRandom();
+
 	public static String getActivationHash(User user) {
 		return HashUtil.getSha256(System.currentTimeMillis() + "_" + Math.round(2000));
 	}
@@ -23,6 +31,19 @@ public class HashUtil {
 		return DigestUtils.sha256Hex(name);
 	}
 
+	/** Returns an unguessable id (256 random bits, hex encoded) */
+	public static String createUniqueId() {
+		byte[] bytes = new byte[32];
+		random.nextBytes(bytes);
+		return Hex.encodeHexString(bytes);
+	}
+
+	public static String getSha256(File file) throws IOException {
+		try (InputStream in = new FileInputStream(file)) {
+			return DigestUtils.sha256Hex(in);
+		}
+	}
+
 	private static String getMD5(String pwd) {
 		MessageDigest m = null;
 		String result = "";
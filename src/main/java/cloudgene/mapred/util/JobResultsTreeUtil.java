@@ -1,7 +1,11 @@
 package cloudgene.mapred.util;
 
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Vector;
 
 import cloudgene.mapred.jobs.CloudgeneParameterOutput;
@@ -10,46 +14,117 @@ import cloudgene.mapred.jobs.JobResultsTreeItem;
 
 public class JobResultsTreeUtil {
 
+	public static int CACHE_SIZE = 100;
+
+	private static final JobsResultsTreeItemComparator COMPARATOR = new JobsResultsTreeItemComparator();
+
+	// trees of stored parameters by id, rebuilt when the files of a parameter change
+	private static final Map<Integer, CachedTree> cache = new LinkedHashMap<Integer, CachedTree>(16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, CachedTree> eldest) {
+			return size() > CACHE_SIZE;
+		}
+
+	};
+
+	/**
+	 * Returns the tree of the parameter. Trees are cached, so the tree of a
+	 * finished job is built only once. The returned tree must not be modified.
+	 */
+	public static List<JobResultsTreeItem> getTree(CloudgeneParameterOutput param) {
+
+		if (param.getId() <= 0) {
+			return createTree(param);
+		}
+
+		long fingerprint = getFingerprint(param);
+		synchronized (cache) {
+			CachedTree cached = cache.get(param.getId());
+			if (cached != null && cached.fingerprint() == fingerprint) {
+				return cached.tree();
+			}
+		}
+
+		List<JobResultsTreeItem> tree = createTree(param);
+		synchronized (cache) {
+			cache.put(param.getId(), new CachedTree(fingerprint, tree));
+		}
+		return tree;
+
+	}
+
+	/**
+	 * Builds the tree in one pass: folders are found by their path and every
+	 * folder is sorted once at the end.
+	 */
 	public static List<JobResultsTreeItem> createTree(CloudgeneParameterOutput param) {
+
 		List<JobResultsTreeItem> items = new Vector<JobResultsTreeItem>();
+		if (param.getFiles() == null) {
+			return items;
+		}
+
+		Map<String, JobResultsTreeItem> folders = new HashMap<String, JobResultsTreeItem>();
+
 		for (Download file : param.getFiles()) {
-			String[] tiles = file.getName().split("/");
-			JobResultsTreeItem root = null;
-			for (int i = 0; i < tiles.length - 1; i++) {
-				List<JobResultsTreeItem> _items = null;
-				if (root == null) {
-					_items = items;
-				} else {
-					_items = root.getChilds();
-				}
-				root = get(_items, tiles[i]);
-				if (root == null) {
-					root = new JobResultsTreeItem();
-					root.setName(tiles[i]);
-					root.setFolder(true);
-					_items.add(root);
+
+			String name = file.getName();
+			List<JobResultsTreeItem> parent = items;
+
+			int start = 0;
+			int end = name.indexOf('/');
+			while (end != -1) {
+				String path = name.substring(0, end);
+				JobResultsTreeItem folder = folders.get(path);
+				if (folder == null) {
+					folder = new JobResultsTreeItem();
+					folder.setName(name.substring(start, end));
+					folder.setFolder(true);
+					folders.put(path, folder);
+					parent.add(folder);
 				}
-				_items.sort(new JobsResultsTreeItemComparator());
+				parent = folder.getChilds();
+				start = end + 1;
+				end = name.indexOf('/', start);
 			}
+
 			JobResultsTreeItem item = new JobResultsTreeItem();
-			item.setName(tiles[tiles.length - 1]);
+			item.setName(name.substring(start));
 			if (param.getHash() != null) {
-				item.setPath("/browse/" + param.getHash() + "/" + file.getName());
+				item.setPath("/browse/" + param.getHash() + "/" + name);
 			} else {
-				item.setPath("/share/results/" + file.getHash() + "/" + file.getName());
+				item.setPath("/share/results/" + file.getHash() + "/" + name);
 			}
 			item.setHash(file.getHash());
 			item.setSize(file.getSize());
 			item.setFolder(false);
-			if (root == null) {
-				items.add(item);
-				items.sort(new JobsResultsTreeItemComparator());
-			} else {
-				root.getChilds().add(item);
-				root.getChilds().sort(new JobsResultsTreeItemComparator());
-			}
+			parent.add(item);
+
+		}
+
+		items.sort(COMPARATOR);
+		for (JobResultsTreeItem folder : folders.values()) {
+			folder.getChilds().sort(COMPARATOR);
 		}
+
 		return items;
+
+	}
+
+	protected static long getFingerprint(CloudgeneParameterOutput param) {
+		long fingerprint = Objects.hashCode(param.getHash());
+		if (param.getFiles() != null) {
+			for (Download file : param.getFiles()) {
+				fingerprint = 31 * fingerprint + Objects.hashCode(file.getName());
+				fingerprint = 31 * fingerprint + Objects.hashCode(file.getHash());
+				fingerprint = 31 * fingerprint + Objects.hashCode(file.getSize());
+			}
+			fingerprint = 31 * fingerprint + param.getFiles().size();
+		}
+		return fingerprint;
 	}
 
 	public static JobResultsTreeItem get(List<JobResultsTreeItem> items, String name) {
@@ -60,16 +135,19 @@ public class JobResultsTreeUtil {
 		}
 		return null;
 	}
-	
+
 	protected static class JobsResultsTreeItemComparator implements Comparator<JobResultsTreeItem> {
 		@Override
 		public int compare(JobResultsTreeItem arg0, JobResultsTreeItem arg1) {
 			if (arg0.isFolder() != arg1.isFolder()) {
 				return arg0.isFolder() ? -1 : 1;
 			}
-			
+
 			return arg0.getName().compareToIgnoreCase(arg1.getName());
 		}
 	}
 
+	private record CachedTree(long fingerprint, List<JobResultsTreeItem> tree) {
+	}
+
 }
@@ -0,0 +1,226 @@
+package cloudgene.mapred.util;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lists all files below a local folder. Each directory is read by its own task
+ * with a single walkFileTree pass that returns the attributes of all entries,
+ * so sub folders are traversed in parallel. Files are passed to the consumer
+ * on the calling thread as soon as they are found; the consumer does not need
+ * to be thread-safe.
+ * <p>
+ * Symbolic links are followed. A link to a folder of its own branch (e.g. a
+ * parent folder) is skipped, so cycles do not end in a loop. Several links to
+ * the same folder from different branches are all listed.
+ * <p>
+ * Tasks run on a shared executor; when the caller stops early, pending tasks
+ * are skipped and running tasks stop at the next entry.
+ */
+public class LocalFileLister {
+
+	private static final Logger log = LoggerFactory.getLogger(LocalFileLister.class);
+
+	private static final int QUEUE_SIZE = 10000;
+
+	private static final Entry END_OF_LISTING = new Entry(null, null, 0);
+
+	private ExecutorService executor;
+
+	private String ignore;
+
+	public record Entry(String name, Path path, long size) {
+	}
+
+	// real paths of the current folder and its ancestors
+	private record Branch(Path folder, Branch parent) {
+
+		public boolean contains(Path path) {
+			for (Branch branch = this; branch != null; branch = branch.parent) {
+				if (branch.folder.equals(path)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+	}
+
+	public LocalFileLister(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	public void setIgnore(String ignore) {
+		this.ignore = ignore;
+	}
+
+	public void list(Path folder, Consumer<Entry> consumer) throws IOException {
+
+		if (!Files.exists(folder)) {
+			return;
+		}
+
+		BasicFileAttributes attributes = Files.readAttributes(folder, BasicFileAttributes.class);
+		if (!attributes.isDirectory()) {
+			consumer.accept(new Entry(folder.getFileName().toString(), folder, attributes.size()));
+			return;
+		}
+
+		Listing listing = new Listing();
+		listing.submit("", folder, null);
+
+		try {
+			while (true) {
+				Entry entry = listing.queue.take();
+				if (entry == END_OF_LISTING) {
+					break;
+				}
+				if (listing.error.get() == null) {
+					consumer.accept(entry);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Listing '" + folder + "' interrupted.", e);
+		} finally {
+			listing.close();
+		}
+
+		if (listing.error.get() != null) {
+			throw new IOException("Listing '" + folder + "' failed.", listing.error.get());
+		}
+
+		log.debug("Listed " + listing.count.get() + " files in " + listing.folders.get() + " folders for '" + folder
+				+ "'.");
+
+	}
+
+	private class Listing {
+
+		private BlockingQueue<Entry> queue = new LinkedBlockingQueue<Entry>(QUEUE_SIZE);
+
+		private AtomicInteger pending = new AtomicInteger();
+
+		private AtomicInteger count = new AtomicInteger();
+
+		private AtomicInteger folders = new AtomicInteger();
+
+		private AtomicReference<Exception> error = new AtomicReference<Exception>();
+
+		private AtomicBoolean closed = new AtomicBoolean(false);
+
+		public void submit(String prefix, Path folder, Branch parent) {
+			pending.incrementAndGet();
+			executor.submit(() -> {
+				try {
+					if (error.get() == null && !closed.get()) {
+						listFolder(prefix, folder, parent);
+					}
+				} catch (Exception e) {
+					error.compareAndSet(null, e);
+				} finally {
+					if (pending.decrementAndGet() == 0 && !closed.get()) {
+						putQuietly(END_OF_LISTING);
+					}
+				}
+			});
+		}
+
+		private void listFolder(String prefix, Path folder, Branch parent) throws IOException {
+
+			// walks the target of a link, a link as start path is visited as file
+			Path target = folder.toRealPath();
+			if (parent != null && parent.contains(target)) {
+				log.debug("Skipping '" + folder + "', folder '" + target + "' is a parent folder.");
+				return;
+			}
+			Branch branch = new Branch(target, parent);
+
+			folders.incrementAndGet();
+
+			// depth 1: every entry of the folder is visited once with its attributes
+			Files.walkFileTree(target, EnumSet.noneOf(FileVisitOption.class), 1,
+					new SimpleFileVisitor<Path>() {
+
+						@Override
+						public FileVisitResult visitFile(Path file, BasicFileAttributes attributes)
+								throws IOException {
+
+							if (closed.get()) {
+								return FileVisitResult.TERMINATE;
+							}
+
+							String filename = file.getFileName().toString();
+							String name = prefix.isEmpty() ? filename : prefix + "/" + filename;
+							// keeps the path below the listed folder
+							file = folder.resolve(filename);
+
+							// follow links, as File.isFile() did
+							if (attributes.isSymbolicLink()) {
+								attributes = Files.readAttributes(file, BasicFileAttributes.class);
+							}
+
+							if (attributes.isDirectory()) {
+								submit(name, file, branch);
+							} else if (!filename.equals(ignore)) {
+								add(name, file, attributes.size());
+							}
+
+							return FileVisitResult.CONTINUE;
+						}
+
+						@Override
+						public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+							throw e;
+						}
+
+					});
+
+		}
+
+		private void add(String name, Path file, long size) throws IOException {
+			count.incrementAndGet();
+			try {
+				queue.put(new Entry(name, file, size));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Listing interrupted.", e);
+			}
+		}
+
+		/**
+		 * Stops all tasks of this listing. The queue is cleared, so tasks blocked
+		 * on a full queue continue and see the flag.
+		 */
+		public void close() {
+			closed.set(true);
+			queue.clear();
+		}
+
+		private void putQuietly(Entry entry) {
+			try {
+				queue.put(entry);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+	}
+
+}
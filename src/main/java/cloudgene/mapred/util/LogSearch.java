@@ -0,0 +1,267 @@
+package cloudgene.mapred.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Searches server log files written with the pattern
+ * <code>%d{HH:mm:ss.SSS} [%thread] %-5level %logger - %msg%n</code>. Files
+ * are memory-mapped and scanned in parallel chunks. Every chunk starts and ends
+ * at the beginning of a log entry, so multi-line entries (e.g. stack traces)
+ * are never split. The date of an entry is taken from the file name
+ * (<code>cloudgene-yyyy-MM-dd.log</code>) or from the last modification of the
+ * current log file.
+ */
+public class LogSearch {
+
+	public static int CHUNK_SIZE = 64 * 1024 * 1024;
+
+	public static int THREADS = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+	public static final int MAX_LIMIT = 10000;
+
+	private static final Pattern ENTRY = Pattern
+			.compile("^(\\d{2}:\\d{2}:\\d{2}\\.\\d{3}) \\[.*\\] (TRACE|DEBUG|INFO|WARN|ERROR)\\s");
+
+	private static final Pattern DATED_FILE = Pattern.compile(".*-(\\d{4}-\\d{2}-\\d{2})\\.log$");
+
+	private String level;
+
+	private byte[] textBytes;
+
+	private LocalDateTime from;
+
+	private LocalDateTime to;
+
+	private int limit = 1000;
+
+	public void setLevel(String level) {
+		this.level = level != null ? level.toUpperCase() : null;
+	}
+
+	/** Case sensitive text that the entry contains, e.g. a job id */
+	public void setText(String text) {
+		this.textBytes = text != null && !text.isEmpty() ? text.getBytes(StandardCharsets.UTF_8) : null;
+	}
+
+	public void setFrom(LocalDateTime from) {
+		this.from = from;
+	}
+
+	public void setTo(LocalDateTime to) {
+		this.to = to;
+	}
+
+	/** Maximal number of entries, at most {@link #MAX_LIMIT} */
+	public void setLimit(int limit) {
+		if (limit < 1) {
+			throw new IllegalArgumentException("Limit must be at least 1.");
+		}
+		this.limit = Math.min(limit, MAX_LIMIT);
+	}
+
+	/**
+	 * Returns the first matching entries of all files, ordered by date.
+	 */
+	public List<Entry> search(List<File> files) throws IOException {
+
+		List<Chunk> chunks = new ArrayList<Chunk>();
+		for (File file : files) {
+			LocalDate date = getDate(file);
+			if (!isDateInRange(date)) {
+				continue;
+			}
+			long size = file.length();
+			for (long start = 0; start < size; start += CHUNK_SIZE) {
+				chunks.add(new Chunk(file, date, start, Math.min(size, start + CHUNK_SIZE)));
+			}
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(THREADS, Math.max(1, chunks.size())));
+		try {
+
+			List<Future<List<Entry>>> futures = new ArrayList<Future<List<Entry>>>();
+			for (Chunk chunk : chunks) {
+				futures.add(executor.submit(() -> scan(chunk)));
+			}
+
+			List<Entry> entries = new ArrayList<Entry>();
+			for (Future<List<Entry>> future : futures) {
+				entries.addAll(future.get());
+			}
+
+			entries.sort(Comparator.comparing(Entry::time));
+			return entries.size() > limit ? new ArrayList<Entry>(entries.subList(0, limit)) : entries;
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Log search interrupted.", e);
+		} catch (ExecutionException e) {
+			throw new IOException("Log search failed.", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+
+	}
+
+	protected List<Entry> scan(Chunk chunk) throws IOException {
+
+		List<Entry> entries = new ArrayList<Entry>();
+
+		try (FileChannel channel = FileChannel.open(chunk.file().toPath(), StandardOpenOption.READ)) {
+
+			long size = channel.size();
+			// the byte before the chunk tells if an entry starts with the chunk. Entries
+			// may continue after the chunk, map up to one more chunk.
+			long mapStart = Math.max(0, chunk.start() - 1);
+			long mapEnd = Math.min(size, chunk.end() + CHUNK_SIZE);
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, mapEnd - mapStart);
+			int end = (int) (chunk.end() - mapStart);
+
+			int position = 0;
+			// skip the entry that belongs to the previous chunk
+			if (chunk.start() > 0) {
+				position = nextEntry(buffer, 0);
+			}
+
+			while (position >= 0 && position < end && entries.size() < limit) {
+
+				int next = nextEntry(buffer, position);
+				int entryEnd = next >= 0 ? next : buffer.limit();
+
+				Entry entry = match(chunk, buffer, mapStart, position, entryEnd);
+				if (entry != null) {
+					entries.add(entry);
+				}
+
+				position = next;
+			}
+
+		}
+
+		return entries;
+
+	}
+
+	/**
+	 * Returns the position of the next line after position that starts a log
+	 * entry, or -1.
+	 */
+	protected int nextEntry(MappedByteBuffer buffer, int position) {
+		int limit = buffer.limit();
+		for (int i = position; i < limit; i++) {
+			if (buffer.get(i) == '\n' && i + 1 < limit && isEntryStart(buffer, i + 1)) {
+				return i + 1;
+			}
+		}
+		return -1;
+	}
+
+	protected boolean isEntryStart(MappedByteBuffer buffer, int position) {
+		// HH:mm:ss.SSS
+		if (position + 12 > buffer.limit()) {
+			return false;
+		}
+		return isDigit(buffer.get(position)) && isDigit(buffer.get(position + 1)) && buffer.get(position + 2) == ':'
+				&& buffer.get(position + 5) == ':' && buffer.get(position + 8) == '.';
+	}
+
+	protected Entry match(Chunk chunk, MappedByteBuffer buffer, long offset, int start, int end) {
+
+		// most entries are rejected without decoding them
+		if (textBytes != null && indexOf(buffer, start, end, textBytes) == -1) {
+			return null;
+		}
+
+		byte[] bytes = new byte[end - start];
+		buffer.get(start, bytes);
+		String content = new String(bytes, StandardCharsets.UTF_8);
+
+		Matcher matcher = ENTRY.matcher(content);
+		if (!matcher.find()) {
+			return null;
+		}
+
+		if (level != null && !level.isEmpty() && !level.equals(matcher.group(2))) {
+			return null;
+		}
+
+		LocalDateTime time;
+		try {
+			time = LocalDateTime.of(chunk.date(), LocalTime.parse(matcher.group(1)));
+		} catch (DateTimeParseException e) {
+			return null;
+		}
+
+		if ((from != null && time.isBefore(from)) || (to != null && time.isAfter(to))) {
+			return null;
+		}
+
+		return new Entry(chunk.file().getName(), offset + start, time, matcher.group(2), content.strip());
+
+	}
+
+	protected boolean isDateInRange(LocalDate date) {
+		if (from != null && date.isBefore(from.toLocalDate())) {
+			return false;
+		}
+		if (to != null && date.isAfter(to.toLocalDate())) {
+			return false;
+		}
+		return true;
+	}
+
+	protected LocalDate getDate(File file) {
+		Matcher matcher = DATED_FILE.matcher(file.getName());
+		if (matcher.matches()) {
+			try {
+				return LocalDate.parse(matcher.group(1));
+			} catch (DateTimeParseException e) {
+			}
+		}
+		return LocalDate.ofInstant(Instant.ofEpochMilli(file.lastModified()), ZoneId.systemDefault());
+	}
+
+	protected int indexOf(MappedByteBuffer buffer, int start, int end, byte[] pattern) {
+		for (int i = start; i <= end - pattern.length; i++) {
+			int j = 0;
+			while (j < pattern.length && buffer.get(i + j) == pattern[j]) {
+				j++;
+			}
+			if (j == pattern.length) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean isDigit(byte value) {
+		return value >= '0' && value <= '9';
+	}
+
+	protected record Chunk(File file, LocalDate date, long start, long end) {
+	}
+
+	public record Entry(String file, long offset, LocalDateTime time, String level, String message) {
+	}
+
+}
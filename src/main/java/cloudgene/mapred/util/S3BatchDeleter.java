@@ -0,0 +1,141 @@
+package cloudgene.mapred.util;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest.KeyVersion;
+import com.amazonaws.services.s3.model.MultiObjectDeleteException;
+
+/**
+ * Deletes all objects below one or more S3 urls. Keys are collected while
+ * listing and removed with multi-object delete requests of up to 1,000 keys,
+ * so deleting overlaps with listing. Urls are listed one after another, each
+ * listing is parallel. Listings and delete requests run on shared executors
+ * and the number of delete requests in flight is bounded.
+ */
+public class S3BatchDeleter {
+
+	private static final Logger log = LoggerFactory.getLogger(S3BatchDeleter.class);
+
+	public static final int MAX_KEYS_PER_REQUEST = 1000;
+
+	private ExecutorService listings;
+
+	private ExecutorService deletes;
+
+	private int threads;
+
+	public S3BatchDeleter(ExecutorService listings, ExecutorService deletes, int threads) {
+		this.listings = listings;
+		this.deletes = deletes;
+		this.threads = Math.max(1, threads);
+	}
+
+	public long delete(String... urls) throws IOException {
+
+		Semaphore inFlight = new Semaphore(threads * 2);
+		AtomicLong deleted = new AtomicLong();
+
+		List<Future<?>> batches = new Vector<Future<?>>();
+
+		boolean completed = false;
+
+		try {
+
+			for (String url : urls) {
+				deletePrefix(url, inFlight, batches, deleted);
+			}
+
+			waitFor(batches);
+			completed = true;
+
+		} finally {
+			if (!completed) {
+				// batches that have not started yet are not sent
+				for (Future<?> batch : batches) {
+					batch.cancel(false);
+				}
+			}
+		}
+
+		return deleted.get();
+
+	}
+
+	private void deletePrefix(String url, Semaphore inFlight, List<Future<?>> batches, AtomicLong deleted)
+			throws IOException {
+
+		S3Util.UrlParts urlParts = S3Util.getParts(url);
+		String bucket = urlParts.bucket();
+
+		List<KeyVersion> keys = new Vector<KeyVersion>();
+
+		S3ObjectLister lister = new S3ObjectLister(listings);
+		lister.setIncludeFolders(true);
+		lister.list(url, summary -> {
+			keys.add(new KeyVersion(summary.getKey()));
+			if (keys.size() == MAX_KEYS_PER_REQUEST) {
+				batches.add(submitBatch(bucket, new Vector<KeyVersion>(keys), inFlight, deleted));
+				keys.clear();
+			}
+		});
+
+		if (!keys.isEmpty()) {
+			batches.add(submitBatch(bucket, keys, inFlight, deleted));
+		}
+
+		log.debug("All objects in '" + url + "' submitted for deletion.");
+
+	}
+
+	private Future<?> submitBatch(String bucket, List<KeyVersion> keys, Semaphore inFlight, AtomicLong deleted) {
+
+		// block the listing when too many delete requests are pending
+		inFlight.acquireUninterruptibly();
+
+		return deletes.submit(() -> {
+			try {
+				AmazonS3 s3 = S3Util.getAmazonS3();
+				DeleteObjectsRequest request = new DeleteObjectsRequest(bucket).withKeys(keys).withQuiet(true);
+				s3.deleteObjects(request);
+				deleted.addAndGet(keys.size());
+			} catch (MultiObjectDeleteException e) {
+				deleted.addAndGet(keys.size() - e.getErrors().size());
+				throw new IOException(e.getErrors().size() + " of " + keys.size() + " objects in bucket '" + bucket
+						+ "' could not be deleted.", e);
+			} finally {
+				inFlight.release();
+			}
+			return null;
+		});
+
+	}
+
+	private void waitFor(List<Future<?>> futures) throws IOException {
+		for (int i = 0; i < futures.size(); i++) {
+			try {
+				futures.get(i).get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Deleting objects interrupted.", e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof IOException) {
+					throw (IOException) e.getCause();
+				}
+				throw new IOException("Deleting objects failed.", e.getCause());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,192 @@
+package cloudgene.mapred.util;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+
+/**
+ * Lists all objects below an S3 url. Every listing request is paginated, and
+ * each common prefix ("sub folder") is listed by its own task, so large
+ * folders are listed in parallel. Object summaries are passed to the consumer
+ * on the calling thread as soon as they arrive; the consumer does not need to
+ * be thread-safe.
+ * <p>
+ * Tasks run on a shared executor; when the caller stops early, pending tasks
+ * are skipped and running tasks stop at the next object.
+ */
+public class S3ObjectLister {
+
+	private static final Logger log = LoggerFactory.getLogger(S3ObjectLister.class);
+
+	private static final String DELIMITER = "/";
+
+	private static final int QUEUE_SIZE = 10000;
+
+	private static final S3ObjectSummary END_OF_LISTING = new S3ObjectSummary();
+
+	private ExecutorService executor;
+
+	private boolean includeFolders = false;
+
+	public S3ObjectLister(ExecutorService executor) {
+		this.executor = executor;
+	}
+
+	public void setIncludeFolders(boolean includeFolders) {
+		this.includeFolders = includeFolders;
+	}
+
+	public void list(String url, Consumer<S3ObjectSummary> consumer) throws IOException {
+
+		S3Util.UrlParts urlParts = S3Util.getParts(url);
+
+		Listing listing = new Listing(urlParts.bucket(), urlParts.key());
+
+		// a key ending with a slash is a folder, otherwise it could be a file or a
+		// folder and we have to check the first level against the key itself.
+		listing.submit(urlParts.key(), !urlParts.key().endsWith(DELIMITER));
+
+		try {
+			while (true) {
+				S3ObjectSummary summary = listing.queue.take();
+				if (summary == END_OF_LISTING) {
+					break;
+				}
+				if (listing.error.get() == null) {
+					consumer.accept(summary);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Listing '" + url + "' interrupted.", e);
+		} finally {
+			listing.close();
+		}
+
+		if (listing.error.get() != null) {
+			throw new IOException("Listing '" + url + "' failed.", listing.error.get());
+		}
+
+		log.debug("Listed " + listing.count.get() + " objects in " + listing.requests.get() + " requests for '" + url
+				+ "'.");
+
+	}
+
+	private class Listing {
+
+		private String bucket;
+
+		private String rootKey;
+
+		private AmazonS3 s3 = S3Util.getAmazonS3();
+
+		private BlockingQueue<S3ObjectSummary> queue = new LinkedBlockingQueue<S3ObjectSummary>(QUEUE_SIZE);
+
+		private AtomicInteger pending = new AtomicInteger();
+
+		private AtomicInteger count = new AtomicInteger();
+
+		private AtomicInteger requests = new AtomicInteger();
+
+		private AtomicReference<Exception> error = new AtomicReference<Exception>();
+
+		private AtomicBoolean closed = new AtomicBoolean(false);
+
+		public Listing(String bucket, String rootKey) {
+			this.bucket = bucket;
+			this.rootKey = rootKey;
+		}
+
+		public void submit(String prefix, boolean root) {
+			pending.incrementAndGet();
+			executor.submit(() -> {
+				try {
+					if (isActive()) {
+						listPrefix(prefix, root);
+					}
+				} catch (Exception e) {
+					error.compareAndSet(null, e);
+				} finally {
+					if (pending.decrementAndGet() == 0 && !closed.get()) {
+						putQuietly(END_OF_LISTING);
+					}
+				}
+			});
+		}
+
+		private void listPrefix(String prefix, boolean root) throws InterruptedException {
+
+			ListObjectsV2Request request = new ListObjectsV2Request().withBucketName(bucket).withPrefix(prefix)
+					.withDelimiter(DELIMITER);
+
+			ListObjectsV2Result result;
+			do {
+
+				result = s3.listObjectsV2(request);
+				requests.incrementAndGet();
+
+				for (S3ObjectSummary summary : result.getObjectSummaries()) {
+					if (closed.get()) {
+						return;
+					}
+					// on the first level, ignore siblings that only share the prefix
+					if (root && !summary.getKey().equals(rootKey)) {
+						continue;
+					}
+					if (!includeFolders && summary.getKey().endsWith(DELIMITER)) {
+						continue;
+					}
+					count.incrementAndGet();
+					queue.put(summary);
+				}
+
+				for (String commonPrefix : result.getCommonPrefixes()) {
+					if (root && !commonPrefix.equals(rootKey + DELIMITER)) {
+						continue;
+					}
+					submit(commonPrefix, false);
+				}
+
+				request.setContinuationToken(result.getNextContinuationToken());
+
+			} while (result.isTruncated() && isActive());
+
+		}
+
+		private boolean isActive() {
+			return error.get() == null && !closed.get();
+		}
+
+		/**
+		 * Stops all tasks of this listing. The queue is cleared, so tasks blocked
+		 * on a full queue continue and see the flag.
+		 */
+		public void close() {
+			closed.set(true);
+			queue.clear();
+		}
+
+		private void putQuietly(S3ObjectSummary summary) {
+			try {
+				queue.put(summary);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+	}
+
+}
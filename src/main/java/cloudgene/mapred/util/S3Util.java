@@ -2,12 +2,13 @@ package cloudgene.mapred.util;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
-import com.amazonaws.services.s3.model.ListObjectsRequest;
 import com.amazonaws.services.s3.model.ObjectListing;
-import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.services.s3.transfer.Copy;
 import com.amazonaws.services.s3.transfer.Download;
 import com.amazonaws.services.s3.transfer.TransferManager;
 import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
@@ -17,8 +18,16 @@ public class S3Util {
 
 	public record UrlParts(String bucket, String key) {};
 
+	public static int LISTING_THREADS = 8;
+
+	public static int DELETE_THREADS = 4;
+
 	private static AmazonS3 s3;
 
+	private static ExecutorService listingExecutor;
+
+	private static ExecutorService deleteExecutor;
+
 	private static TransferManager tm;
 
 	public static AmazonS3 getAmazonS3() {
@@ -36,6 +45,26 @@ public class S3Util {
 		return tm;
 	}
 
+	/**
+	 * Returns the pool shared by all listings, see {@link S3ObjectLister}.
+	 */
+	public static synchronized ExecutorService getListingExecutor() {
+		if (listingExecutor == null) {
+			listingExecutor = Executors.newFixedThreadPool(LISTING_THREADS, new DaemonThreadFactory("s3-listing"));
+		}
+		return listingExecutor;
+	}
+
+	/**
+	 * Returns the pool shared by all delete requests, see {@link S3BatchDeleter}.
+	 */
+	public static synchronized ExecutorService getDeleteExecutor() {
+		if (deleteExecutor == null) {
+			deleteExecutor = Executors.newFixedThreadPool(DELETE_THREADS, new DaemonThreadFactory("s3-delete"));
+		}
+		return deleteExecutor;
+	}
+
 	public static UrlParts getParts(String url) {
 		if (!url.startsWith("s3://")) {
 			throw new IllegalArgumentException("S3 URLs must start with 's3://'; found: '" + url + "'");
@@ -102,6 +131,20 @@ public class S3Util {
 		s3.putObject(bucket, key, content);
 	}
 
+	public static void copyObject(String from, String to) throws IOException {
+		UrlParts source = getParts(from);
+		UrlParts target = getParts(to);
+		// server-side copy, uses multipart copy for large objects
+		TransferManager tm = getTransferManager();
+		Copy copy = tm.copy(source.bucket(), source.key(), target.bucket(), target.key());
+
+		try {
+			copy.waitForCompletion();
+		} catch (InterruptedException e) {
+			throw new IOException(e);
+		}
+	}
+
 	public static ObjectListing listObjects(String url) throws IOException {
 		UrlParts urlParts = getParts(url);
 		AmazonS3 s3 = getAmazonS3();
@@ -109,22 +152,12 @@ public class S3Util {
 		return objects;
 	}
 
-	public static void deleteFolder(String url) {
-		UrlParts urlParts = getParts(url);
-		AmazonS3 s3 = S3Util.getAmazonS3();
-
-		ListObjectsRequest listObjectsRequest = new ListObjectsRequest().withBucketName(urlParts.bucket()).withPrefix(urlParts.key());
-		ObjectListing objectListing = s3.listObjects(listObjectsRequest);
-
-		while (true) {
-			for (S3ObjectSummary objectSummary : objectListing.getObjectSummaries()) {
-				s3.deleteObject(urlParts.bucket(), objectSummary.getKey());
-			}
-			if (objectListing.isTruncated()) {
-				objectListing = s3.listNextBatchOfObjects(objectListing);
-			} else {
-				break;
-			}
-		}
+	public static void deleteFolder(String url) throws IOException {
+		deleteFolders(url);
+	}
+
+	public static long deleteFolders(String... urls) throws IOException {
+		S3BatchDeleter deleter = new S3BatchDeleter(getListingExecutor(), getDeleteExecutor(), DELETE_THREADS);
+		return deleter.delete(urls);
 	}
 }
@@ -73,6 +73,8 @@ public class Settings {
 
 	private boolean showLogs = false;
 
+	private boolean compressLogs = true;
+
 	private List<MenuItem> navigation = new Vector<MenuItem>();
 
 	private Map<String, String> externalWorkspace = null;
@@ -83,10 +85,30 @@ public class Settings {
 
 	private int maxDownloads = 10;
 
+	private int maxInlineFiles = 1000;
+
 	private String port = "8082";
 
 	private boolean workspaceCleanup = true;
 
+	private int workspaceCleanupThreads = 2;
+
+	private int workspaceCleanupRate = 60;
+
+	private int workspaceCacheSize = 1024;
+
+	private int workspaceCacheMaxObjectSize = 64;
+
+	private boolean inputStore = true;
+
+	private String tieringLocation = null;
+
+	private int tieringAge = 7;
+
+	private int tieringWatermark = 0;
+
+	private int tieringMaxJobs = 10;
+
 	private List<String> counters = new Vector<String>();
 
 	public static final String DEFAULT_SECURITY_KEY = "default-key-change-me-immediately";
@@ -414,6 +436,14 @@ public class Settings {
 		return maxDownloads;
 	}
 
+	public void setMaxInlineFiles(int maxInlineFiles) {
+		this.maxInlineFiles = maxInlineFiles;
+	}
+
+	public int getMaxInlineFiles() {
+		return maxInlineFiles;
+	}
+
 	public void setPort(String port) {
 		this.port = port;
 	}
@@ -426,6 +456,86 @@ public class Settings {
 
 	public boolean getWorkspaceCleanup() { return workspaceCleanup; }
 
+	public void setWorkspaceCleanupThreads(int workspaceCleanupThreads) {
+		this.workspaceCleanupThreads = workspaceCleanupThreads;
+	}
+
+	public int getWorkspaceCleanupThreads() {
+		return workspaceCleanupThreads;
+	}
+
+	public void setWorkspaceCleanupRate(int workspaceCleanupRate) {
+		this.workspaceCleanupRate = workspaceCleanupRate;
+	}
+
+	public int getWorkspaceCleanupRate() {
+		return workspaceCleanupRate;
+	}
+
+	public void setTieringLocation(String tieringLocation) {
+		this.tieringLocation = tieringLocation;
+	}
+
+	public String getTieringLocation() {
+		return tieringLocation;
+	}
+
+	public void setTieringAge(int tieringAge) {
+		this.tieringAge = tieringAge;
+	}
+
+	public int getTieringAge() {
+		return tieringAge;
+	}
+
+	public void setTieringWatermark(int tieringWatermark) {
+		this.tieringWatermark = tieringWatermark;
+	}
+
+	public int getTieringWatermark() {
+		return tieringWatermark;
+	}
+
+	public void setTieringMaxJobs(int tieringMaxJobs) {
+		this.tieringMaxJobs = tieringMaxJobs;
+	}
+
+	public int getTieringMaxJobs() {
+		return tieringMaxJobs;
+	}
+
+	public void setWorkspaceCacheSize(int workspaceCacheSize) {
+		this.workspaceCacheSize = workspaceCacheSize;
+	}
+
+	public int getWorkspaceCacheSize() {
+		return workspaceCacheSize;
+	}
+
+	public void setWorkspaceCacheMaxObjectSize(int workspaceCacheMaxObjectSize) {
+		this.workspaceCacheMaxObjectSize = workspaceCacheMaxObjectSize;
+	}
+
+	public int getWorkspaceCacheMaxObjectSize() {
+		return workspaceCacheMaxObjectSize;
+	}
+
+	public void setInputStore(boolean inputStore) {
+		this.inputStore = inputStore;
+	}
+
+	public boolean isInputStore() {
+		return inputStore;
+	}
+
+	public void setCompressLogs(boolean compressLogs) {
+		this.compressLogs = compressLogs;
+	}
+
+	public boolean isCompressLogs() {
+		return compressLogs;
+	}
+
 	public void setShowLogs(boolean showLogs) {
 		this.showLogs = showLogs;
 	}
@@ -5,55 +5,64 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 
 public class TextUtil {
 
     private static final Logger log = LoggerFactory.getLogger(TextUtil.class);
 
+    public static int TAIL_BLOCK_SIZE = 64 * 1024;
+
+    /**
+     * Returns the last lines of the file. The file is read backwards in blocks
+     * until enough line breaks are found.
+     */
     public static String tail(File file, int lines) {
-        java.io.RandomAccessFile fileHandler = null;
-        try {
-            fileHandler = new java.io.RandomAccessFile(file, "r");
-            long fileLength = fileHandler.length() - 1;
-            StringBuilder sb = new StringBuilder();
-            int line = 0;
-
-            for (long filePointer = fileLength; filePointer != -1; filePointer--) {
-                fileHandler.seek(filePointer);
-                int readByte = fileHandler.readByte();
-
-                if (readByte == 0xA) {
-                    line = line + 1;
-                    if (line == lines) {
-                        if (filePointer == fileLength) {
-                            continue;
-                        }
-                        break;
-                    }
-                } else if (readByte == 0xD) {
-                    line = line + 1;
-                    if (line == lines) {
-                        if (filePointer == fileLength - 1) {
-                            continue;
-                        }
-                        break;
-                    }
-                }
-                sb.append((char) readByte);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = findTailStart(channel, size, lines);
+            ByteBuffer buffer = ByteBuffer.allocate((int) (size - start));
+            while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) != -1) {
             }
-
-            String lastLine = sb.reverse().toString();
-            return lastLine;
-        } catch (java.io.IOException e) {
+            return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
             log.error("Parsing log file failed.", e);
             return null;
-        } finally {
-            if (fileHandler != null)
-                try {
-                    fileHandler.close();
-                } catch (IOException e) {
-                    log.error("Parsing log file failed.", e);
+        }
+    }
+
+    protected static long findTailStart(FileChannel channel, long size, int lines) throws IOException {
+
+        if (lines <= 0) {
+            return size;
+        }
+
+        ByteBuffer block = ByteBuffer.allocate(TAIL_BLOCK_SIZE);
+        int found = 0;
+        long end = size;
+
+        while (end > 0) {
+            long begin = Math.max(0, end - TAIL_BLOCK_SIZE);
+            block.clear();
+            block.limit((int) (end - begin));
+            while (block.hasRemaining() && channel.read(block, begin + block.position()) != -1) {
+            }
+            for (int i = block.position() - 1; i >= 0; i--) {
+                // a line break at the end of the file does not start a new line
+                if (block.get(i) == '\n' && begin + i != size - 1) {
+                    found++;
+                    if (found == lines) {
+                        return begin + i + 1;
+                    }
                 }
+            }
+            end = begin;
         }
+
+        return 0;
+
     }
 }
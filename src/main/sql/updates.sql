@@ -189,4 +189,33 @@ create table job_values (
 );
 
 -- 3.0.1
-ALTER TABLE parameter modify `value` varchar(200) NULL;
\ No newline at end of file
+ALTER TABLE parameter modify `value` varchar(200) NULL;
+
+-- 3.1.4
+create table input_store (
+	job_id		varchar(100) not null,
+	digest		varchar(64) not null,
+	url			varchar(1000) not null,
+	created_on	timestamp default CURRENT_TIMESTAMP
+);
+
+create index idx_input_store_job_id on input_store(job_id);
+create index idx_input_store_digest on input_store(digest);
+
+ALTER TABLE downloads modify path varchar(500) NULL;
+create index idx_downloads_job_id on downloads(job_id);
+update downloads set job_id = (select job_id from parameter where parameter.id = downloads.parameter_id) where job_id = '-1' and exists (select 1 from parameter where parameter.id = downloads.parameter_id);
+alter table downloads add column checksum varchar(64) null;
+alter table downloads add column checksum_attempts integer not null default 0;
+alter table job add column version bigint not null default 0;
+alter table downloads add column bytes bigint not null default -1;
+create index idx_downloads_parameter_name on downloads(parameter_id, name);
+
+create table workspace_tasks (
+	id			integer not null auto_increment primary key,
+	job_id		varchar(100) not null,
+	action		varchar(20) not null,
+	attempts	integer not null default 0,
+	error		varchar(1000) null,
+	created_on	timestamp default CURRENT_TIMESTAMP
+);
\ No newline at end of file
@@ -161,6 +161,11 @@ public class TestApplication extends cloudgene.mapred.server.Application {
 		app24.setPermission("private");
 		applications.add(app24);
 
+		Application app25 = new Application();
+		app25.setFilename("test-data/nextflow-resume.yaml");
+		app25.setPermission("public");
+		applications.add(app25);
+
 		settings.setApps(applications);
 
 		return applications;
@@ -1,13 +1,35 @@
 package cloudgene.mapred.api.v2.jobs;
 
 import static org.hamcrest.core.IsEqual.equalTo;
+import static org.hamcrest.core.StringContains.containsString;
+import static org.hamcrest.core.StringStartsWith.startsWith;
 import static org.junit.jupiter.api.Assertions.assertEquals;
-
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.junit.jupiter.api.Test;
 
 import cloudgene.mapred.TestApplication;
+import cloudgene.mapred.database.DownloadDao;
+import cloudgene.mapred.database.JobDao;
 import cloudgene.mapred.jobs.AbstractJob;
+import cloudgene.mapred.jobs.Download;
+import cloudgene.mapred.server.services.ChecksumService;
+import cloudgene.mapred.server.services.TieringService;
 import cloudgene.mapred.util.CloudgeneClientRestAssured;
+import cloudgene.mapred.util.HashUtil;
+import cloudgene.mapred.util.Settings;
+import genepi.io.FileUtil;
 import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
 import io.restassured.RestAssured;
 import io.restassured.http.Header;
@@ -23,6 +45,12 @@ public class DownloadResultsTest {
 	@Inject
 	CloudgeneClientRestAssured client;
 
+	@Inject
+	TieringService tieringService;
+
+	@Inject
+	ChecksumService checksumService;
+
 	@Test
 	public void testDownloadSingleFile() throws InterruptedException {
 
@@ -94,6 +122,62 @@ public class DownloadResultsTest {
 
 	}
 
+	@Test
+	public void testBrowseResults() throws InterruptedException {
+
+		Header accessToken = client.loginAsPublicUser();
+
+		// submit job
+		String id = RestAssured.given().header(accessToken).and().multiPart("inputtext", "lukas_text").when()
+				.post("/api/v2/jobs/submit/write-files-to-folder").then().statusCode(200).and().extract()
+				.jsonPath().getString("id");
+
+		// wait until submitted job is complete
+		client.waitForJob(id, accessToken);
+
+		// large outputs are sent as summary only
+		Settings settings = application.getSettings();
+		int maxInlineFiles = settings.getMaxInlineFiles();
+		settings.setMaxInlineFiles(2);
+		Response response;
+		try {
+			response = RestAssured.given().header(accessToken).when().get("/api/v2/jobs/" + id).thenReturn();
+		} finally {
+			settings.setMaxInlineFiles(maxInlineFiles);
+		}
+		response.then().statusCode(200).and().body("state", equalTo(AbstractJob.STATE_SUCCESS)).and()
+				.body("outputParams[0].fileCount", equalTo(5)).and()
+				.body("outputParams[0].totalBytes", equalTo(50)).and().body("outputParams[0].files", equalTo(null))
+				.and().body("outputParams[0].tree", equalTo(null));
+
+		String param = response.jsonPath().getString("outputParams[0].hash");
+
+		// first page
+		response = RestAssured.given().when().get("/api/v2/browse/" + param + "?pageSize=2").thenReturn();
+		response.then().statusCode(200).and().body("count", equalTo(5)).and().body("data.size()", equalTo(2))
+				.and().body("data[0].name", equalTo("file1.txt")).and().body("data[0].folder", equalTo(false))
+				.and().body("next", equalTo(2));
+
+		// download file of last page
+		response = RestAssured.given().when().get("/api/v2/browse/" + param + "?pageSize=2&page=3").thenReturn();
+		response.then().statusCode(200).and().body("data.size()", equalTo(1)).and()
+				.body("data[0].name", equalTo("file5.txt"));
+		String path = response.jsonPath().getString("data[0].path");
+		RestAssured.given().when().get(path).then().statusCode(200).and().body(equalTo("lukas_text"));
+
+		// filter and order
+		RestAssured.given().when().get("/api/v2/browse/" + param + "?filter=FILE3").then().statusCode(200).and()
+				.body("count", equalTo(1)).and().body("data[0].name", equalTo("file3.txt"));
+		RestAssured.given().when().get("/api/v2/browse/" + param + "?sort=size&order=desc").then().statusCode(200)
+				.and().body("count", equalTo(5)).and().body("data[0].name", equalTo("file5.txt"));
+
+		// invalid requests
+		RestAssured.given().when().get("/api/v2/browse/" + param + "?sort=date").then().statusCode(400);
+		RestAssured.given().when().get("/api/v2/browse/" + param + "?path=missing").then().statusCode(404);
+		RestAssured.given().when().get("/api/v2/browse/unknown-hash").then().statusCode(404);
+
+	}
+
 	@Test
 	public void testDownloadCounter() throws InterruptedException {
 
@@ -135,6 +219,337 @@ public class DownloadResultsTest {
 
 	}
 
+	@Test
+	public void testDownloadRange() throws InterruptedException {
+
+		Header accessToken = client.loginAsPublicUser();
+
+		// submit job
+		String id = RestAssured.given().header(accessToken).and().multiPart("inputtext", "lukas_text").when()
+				.post("/api/v2/jobs/submit/write-text-to-file").then().statusCode(200).and().extract()
+				.jsonPath().getString("id");
+
+		// wait until submitted job is complete
+		client.waitForJob(id, accessToken);
+
+		// TODO: check why file is not available without this sleep
+		Thread.sleep(5000);
+
+		Response response = RestAssured.given().header(accessToken).when().get("/api/v2/jobs/" + id).thenReturn();
+		String name = response.jsonPath().getString("outputParams[0].files[0].name");
+		String hash = response.jsonPath().getString("outputParams[0].files[0].hash");
+
+		// full download announces range support and an etag
+		String etag = RestAssured.given().header(accessToken).when().get("/downloads/" + id + "/" + hash + "/" + name)
+				.then().statusCode(200).and().header("Accept-Ranges", equalTo("bytes")).and()
+				.body(equalTo("lukas_text")).extract().header("ETag");
+
+		// resume download
+		RestAssured.given().header(accessToken).header("Range", "bytes=6-").when()
+				.get("/downloads/" + id + "/" + hash + "/" + name).then().statusCode(206).and()
+				.header("Content-Range", equalTo("bytes 6-9/10")).and().body(equalTo("text"));
+
+		// conditional request
+		RestAssured.given().header(accessToken).header("If-None-Match", etag).when()
+				.get("/downloads/" + id + "/" + hash + "/" + name).then().statusCode(304);
+
+		// range outside of file
+		RestAssured.given().header(accessToken).header("Range", "bytes=100-").when()
+				.get("/downloads/" + id + "/" + hash + "/" + name).then().statusCode(416);
+
+	}
+
+	@Test
+	public void testDownloadRangeCounter() throws InterruptedException {
+
+		Header accessToken = client.loginAsPublicUser();
+
+		// submit job
+		String id = RestAssured.given().header(accessToken).and().multiPart("inputtext", "lukas_text").when()
+				.post("/api/v2/jobs/submit/write-text-to-file").then().statusCode(200).and().extract()
+				.jsonPath().getString("id");
+
+		// wait until submitted job is complete
+		client.waitForJob(id, accessToken);
+
+		// TODO: check why file is not available without this sleep
+		Thread.sleep(5000);
+
+		Response response = RestAssured.given().header(accessToken).when().get("/api/v2/jobs/" + id).thenReturn();
+		String name = response.jsonPath().getString("outputParams[0].files[0].name");
+		String hash = response.jsonPath().getString("outputParams[0].files[0].hash");
+
+		int maxDownloads = application.getSettings().getMaxDownloads();
+
+		// probes of the first bytes are not counted
+		for (int i = 0; i < maxDownloads; i++) {
+			RestAssured.given().header(accessToken).header("Range", "bytes=0-0").when()
+					.get("/downloads/" + id + "/" + hash + "/" + name).then().statusCode(206).and()
+					.body(equalTo("l"));
+		}
+
+		// a resumed download is counted once
+		for (int i = 0; i < maxDownloads; i++) {
+			RestAssured.given().header(accessToken).header("Range", "bytes=0-5").when()
+					.get("/downloads/" + id + "/" + hash + "/" + name).then().statusCode(206).and()
+					.body(equalTo("lukas_"));
+			RestAssured.given().header(accessToken).header("Range", "bytes=6-").when()
+					.get("/downloads/" + id + "/" + hash + "/" + name).then().statusCode(206).and()
+					.body(equalTo("text"));
+		}
+
+		RestAssured.given().header(accessToken).when().get("/downloads/" + id + "/" + hash + "/" + name).then()
+				.statusCode(400).and().body("message", equalTo("number of max downloads exceeded."));
+
+	}
+
+	@Test
+	public void testDownloadArchive() throws InterruptedException, IOException {
+
+		Header accessToken = client.loginAsPublicUser();
+
+		// submit job
+		String id = RestAssured.given().header(accessToken).and().multiPart("inputtext", "lukas_text").when()
+				.post("/api/v2/jobs/submit/write-text-to-file").then().statusCode(200).and().extract()
+				.jsonPath().getString("id");
+
+		// wait until submitted job is complete
+		client.waitForJob(id, accessToken);
+
+		// TODO: check why file is not available without this sleep
+		Thread.sleep(5000);
+
+		Response response = RestAssured.given().header(accessToken).when().get("/api/v2/jobs/" + id).thenReturn();
+		String param = response.jsonPath().getString("outputParams[0].hash");
+		String name = response.jsonPath().getString("outputParams[0].files[0].name");
+
+		byte[] archive = RestAssured.given().when().get("/browse/" + param + ".zip").then().statusCode(200).and()
+				.contentType("application/zip").extract().asByteArray();
+
+		try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+			ZipEntry entry = zip.getNextEntry();
+			assertTrue(entry.getName().endsWith("/" + name));
+			assertEquals("lukas_text", new String(zip.readAllBytes()));
+			assertNull(zip.getNextEntry());
+		}
+
+		// entry sizes of tar archives are taken from the stored downloads
+		byte[] tarArchive = RestAssured.given().when().get("/browse/" + param + ".tar").then().statusCode(200).and()
+				.contentType("application/x-tar").extract().asByteArray();
+
+		try (TarArchiveInputStream tar = new TarArchiveInputStream(new ByteArrayInputStream(tarArchive))) {
+			TarArchiveEntry entry = tar.getNextEntry();
+			assertTrue(entry.getName().endsWith("/" + name));
+			assertEquals(10, entry.getSize());
+			assertEquals("lukas_text", new String(tar.readAllBytes()));
+			assertNull(tar.getNextEntry());
+		}
+
+		RestAssured.given().when().get("/browse/unknown-hash.zip").then().statusCode(404);
+
+	}
+
+	@Test
+	public void testDownloadMigratedFile() throws InterruptedException, IOException {
+
+		Header accessToken = client.loginAsPublicUser();
+
+		// submit job
+		String id = RestAssured.given().header(accessToken).and().multiPart("inputtext", "lukas_text").when()
+				.post("/api/v2/jobs/submit/write-text-to-file").then().statusCode(200).and().extract()
+				.jsonPath().getString("id");
+
+		// wait until submitted job is complete
+		client.waitForJob(id, accessToken);
+
+		// TODO: check why file is not available without this sleep
+		Thread.sleep(5000);
+
+		// local folder as stand-in for the second tier
+		String tier = FileUtil.path(application.getSettings().getTempPath(), "tier");
+		application.getSettings().setTieringLocation(tier);
+
+		try {
+
+			tieringService.migrate(id);
+
+			Response response = RestAssured.given().header(accessToken).when().get("/api/v2/jobs/" + id)
+					.thenReturn();
+			String path = response.jsonPath().getString("outputParams[0].files[0].path");
+			String name = response.jsonPath().getString("outputParams[0].files[0].name");
+			String hash = response.jsonPath().getString("outputParams[0].files[0].hash");
+
+			// location of the second tier is not exposed
+			assertEquals(id + "/output/output", path);
+			assertTrue(new File(FileUtil.path(tier, id, "output", "output")).exists());
+			assertFalse(new File(FileUtil.path(application.getSettings().getLocalWorkspace(), id, "output", "output"))
+					.exists());
+
+			// download is served from the second tier
+			RestAssured.given().header(accessToken).when().get("/downloads/" + id + "/" + hash + "/" + name).then()
+					.statusCode(200).and().body(equalTo("lukas_text"));
+
+			// logs stay in the local workspace
+			RestAssured.given().header(accessToken).when().get("/logs/" + id).then().statusCode(200);
+
+		} finally {
+			application.getSettings().setTieringLocation(null);
+		}
+
+	}
+
+	@Test
+	public void testDownloadChecksum() throws InterruptedException {
+
+		Header accessToken = client.loginAsPublicUser();
+
+		// submit job
+		String id = RestAssured.given().header(accessToken).and().multiPart("inputtext", "lukas_text").when()
+				.post("/api/v2/jobs/submit/write-text-to-file").then().statusCode(200).and().extract()
+				.jsonPath().getString("id");
+
+		// wait until submitted job is complete
+		client.waitForJob(id, accessToken);
+
+		// TODO: check why file is not available without this sleep
+		Thread.sleep(5000);
+
+		Response response = RestAssured.given().header(accessToken).when().get("/api/v2/jobs/" + id).thenReturn();
+		String param = response.jsonPath().getString("outputParams[0].hash");
+		String name = response.jsonPath().getString("outputParams[0].files[0].name");
+		String hash = response.jsonPath().getString("outputParams[0].files[0].hash");
+
+		String etag = RestAssured.given().header(accessToken).when().get("/downloads/" + id + "/" + hash + "/" + name)
+				.then().statusCode(200).extract().header("ETag");
+
+		while (checksumService.computeMissing() == ChecksumService.MAX_DOWNLOADS) {
+			// process all pending downloads
+		}
+
+		String checksum = HashUtil.getSha256("lukas_text");
+
+		// checksum is used as digest, the etag does not change
+		RestAssured.given().header(accessToken).when().get("/downloads/" + id + "/" + hash + "/" + name).then()
+				.statusCode(200).and().header("ETag", equalTo(etag)).and()
+				.header("Digest", startsWith("sha-256=")).and().body(equalTo("lukas_text"));
+
+		// manifest in sha256sum format
+		RestAssured.given().when().get("/get/" + param + "/sha256sums").then().statusCode(200).and()
+				.body(equalTo(checksum + "  " + name + "\n"));
+
+		// script verifies downloaded files
+		RestAssured.given().when().get("/get/" + param).then().statusCode(200).and()
+				.body(containsString("sha256sum -c"));
+
+		assertTrue(checksumService.verify(id).isEmpty());
+
+	}
+
+	@Test
+	public void testVerifyCorruptedFile() throws InterruptedException, IOException {
+
+		Header accessToken = client.loginAsPublicUser();
+
+		// submit job
+		String id = RestAssured.given().header(accessToken).and().multiPart("inputtext", "lukas_text").when()
+				.post("/api/v2/jobs/submit/write-text-to-file").then().statusCode(200).and().extract()
+				.jsonPath().getString("id");
+
+		// wait until submitted job is complete
+		client.waitForJob(id, accessToken);
+
+		while (checksumService.computeMissing() == ChecksumService.MAX_DOWNLOADS) {
+			// process all pending downloads
+		}
+
+		assertTrue(checksumService.verify(id).isEmpty());
+
+		// change content of the output file
+		String output = FileUtil.path(application.getSettings().getLocalWorkspace(), id, "output", "output");
+		FileUtil.writeStringBufferToFile(output, new StringBuffer("corrupted"));
+
+		List<Download> corrupted = checksumService.verify(id);
+		assertEquals(1, corrupted.size());
+		assertEquals("output", corrupted.get(0).getName());
+
+	}
+
+	@Test
+	public void testChecksumOfMissingFile() throws InterruptedException {
+
+		Header accessToken = client.loginAsPublicUser();
+
+		String[] ids = new String[2];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = RestAssured.given().header(accessToken).and().multiPart("inputtext", "lukas_text").when()
+					.post("/api/v2/jobs/submit/write-text-to-file").then().statusCode(200).and().extract()
+					.jsonPath().getString("id");
+			client.waitForJob(ids[i], accessToken);
+		}
+
+		// file is gone before its checksum is computed
+		String output = FileUtil.path(application.getSettings().getLocalWorkspace(), ids[0], "output", "output");
+		new File(output).delete();
+
+		DownloadDao dao = new DownloadDao(application.getDatabase());
+		Download download = dao.findAllByJob(ids[0]).get(0);
+		download.setChecksumAttempts(ChecksumService.MAX_ATTEMPTS - 1);
+		dao.updateChecksumAttempts(download);
+
+		// files of retired jobs are not read
+		JobDao jobDao = new JobDao(application.getDatabase());
+		AbstractJob retired = jobDao.findById(ids[1]);
+		retired.setState(AbstractJob.STATE_RETIRED);
+		jobDao.update(retired);
+
+		for (int i = 0; i < 10; i++) {
+			checksumService.computeMissing();
+		}
+
+		// last attempt is stored, the download is not read again after a restart
+		download = dao.findAllByJob(ids[0]).get(0);
+		assertNull(download.getChecksum());
+		assertEquals(ChecksumService.MAX_ATTEMPTS, download.getChecksumAttempts());
+
+		download = dao.findAllByJob(ids[1]).get(0);
+		assertNull(download.getChecksum());
+		assertEquals(0, download.getChecksumAttempts());
+
+	}
+
+	@Test
+	public void testVerifyAsAdmin() throws InterruptedException {
+
+		Header accessToken = client.loginAsPublicUser();
+
+		// submit job
+		String id = RestAssured.given().header(accessToken).and().multiPart("inputtext", "lukas_text").when()
+				.post("/api/v2/jobs/submit/write-text-to-file").then().statusCode(200).and().extract()
+				.jsonPath().getString("id");
+
+		// wait until submitted job is complete
+		client.waitForJob(id, accessToken);
+
+		while (checksumService.computeMissing() == ChecksumService.MAX_DOWNLOADS) {
+			// process all pending downloads
+		}
+
+		Header adminToken = client.login("admin", "admin1978");
+
+		RestAssured.given().header(adminToken).when().get("/api/v2/admin/jobs/job-lukas277/verify").then()
+				.statusCode(404);
+
+		// files are verified in the background
+		String message = "";
+		for (int i = 0; i < 100 && !message.equals(id + ": all files verified."); i++) {
+			Thread.sleep(100);
+			message = RestAssured.given().header(adminToken).when().get("/api/v2/admin/jobs/" + id + "/verify")
+					.then().statusCode(200).and().extract().jsonPath().getString("message");
+		}
+		assertEquals(id + ": all files verified.", message);
+
+	}
+
 	@Test
 	public void testJobNotFound() throws InterruptedException {
 
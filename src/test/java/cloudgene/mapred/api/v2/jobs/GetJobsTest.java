@@ -2,6 +2,8 @@ package cloudgene.mapred.api.v2.jobs;
 
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.List;
 
@@ -70,4 +72,69 @@ public class GetJobsTest {
 
 	}
 
+	@Test
+	public void testConditionalRequests() {
+
+		Header accessToken = client.login("admin", "admin1978");
+
+		String id = RestAssured.given().header(accessToken).and().multiPart("input", "input-file")
+				.post("/api/v2/jobs/submit/return-true-step-public").then().statusCode(200).and().extract().jsonPath()
+				.getString("id");
+
+		client.waitForJob(id, accessToken);
+
+		// unchanged job is not sent again
+		String etag = RestAssured.given().header(accessToken).when().get("/api/v2/jobs/" + id + "/status").then()
+				.statusCode(200).extract().header("ETag");
+		assertNotNull(etag);
+		RestAssured.given().header(accessToken).header("If-None-Match", etag).when()
+				.get("/api/v2/jobs/" + id + "/status").then().statusCode(304);
+		RestAssured.given().header(accessToken).header("If-None-Match", etag).when().get("/api/v2/jobs/" + id)
+				.then().statusCode(304);
+		RestAssured.given().header(accessToken).header("If-None-Match", "\"other\"").when()
+				.get("/api/v2/jobs/" + id + "/status").then().statusCode(200).and()
+				.body("state", equalTo(AbstractJob.STATE_SUCCESS));
+
+		String listTag = RestAssured.given().header(accessToken).when().get("/api/v2/jobs").then().statusCode(200)
+				.extract().header("ETag");
+		RestAssured.given().header(accessToken).header("If-None-Match", listTag).when().get("/api/v2/jobs").then()
+				.statusCode(304);
+
+		// deleted job changes the list
+		RestAssured.given().header(accessToken).when().delete("/api/v2/jobs/" + id).then().statusCode(200);
+		RestAssured.given().header(accessToken).header("If-None-Match", listTag).when().get("/api/v2/jobs").then()
+				.statusCode(200);
+
+	}
+
+	@Test
+	public void testJobEvents() {
+
+		Header accessToken = client.login("admin", "admin1978");
+
+		String id = RestAssured.given().header(accessToken).and().multiPart("input", "input-file")
+				.post("/api/v2/jobs/submit/return-true-step-public").then().statusCode(200).and().extract().jsonPath()
+				.getString("id");
+
+		// stream of a job ends with its final state
+		Response response = RestAssured.given().header(accessToken).when().get("/api/v2/jobs/" + id + "/events")
+				.thenReturn();
+		response.then().statusCode(200);
+		String events = response.body().asString();
+		assertTrue(events.contains("event: state") || events.contains("event:state"));
+		assertTrue(events.contains("\"state\":" + AbstractJob.STATE_SUCCESS));
+
+		// finished jobs are resumed with their final state
+		response = RestAssured.given().header(accessToken).header("Last-Event-ID", "0").when()
+				.get("/api/v2/jobs/" + id + "/events").thenReturn();
+		response.then().statusCode(200);
+		assertTrue(response.body().asString().contains("\"state\":" + AbstractJob.STATE_SUCCESS));
+
+		RestAssured.given().header("Last-Event-ID", "abc").header(accessToken).when()
+				.get("/api/v2/jobs/" + id + "/events").then().statusCode(400);
+
+		RestAssured.when().get("/api/v2/jobs/events").then().statusCode(401);
+
+	}
+
 }
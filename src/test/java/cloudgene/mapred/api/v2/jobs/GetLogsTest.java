@@ -2,6 +2,7 @@ package cloudgene.mapred.api.v2.jobs;
 
 import static org.hamcrest.Matchers.emptyString;
 import static org.hamcrest.core.IsEqual.equalTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
@@ -105,6 +106,44 @@ public class GetLogsTest {
 		assertTrue(content.contains("taks write to log2"));
 		assertTrue(content.contains("taks write to log3"));
 
+		// single log file is served compressed to clients that accept gzip
+		response = RestAssured.given().header(accessToken).header("Accept-Encoding", "gzip").when()
+				.get("/logs/" + id + "/std.out").thenReturn();
+		response.then().statusCode(200).and().header("Content-Encoding", "gzip");
+		assertTrue(response.body().asString().contains("taks write to system out3"));
+
+		// and as plain text to all others
+		response = RestAssured.given().header(accessToken).header("Accept-Encoding", "identity").when()
+				.get("/logs/" + id + "/job.txt").thenReturn();
+		response.then().statusCode(200);
+		assertTrue(response.body().asString().contains("taks write to log3"));
+
+		// ranged reads end with complete lines and return the next offset
+		response = RestAssured.given().header(accessToken).when()
+				.get("/logs/" + id + "/std.out?offset=0&limit=30").thenReturn();
+		response.then().statusCode(200).and().header("X-Log-Complete", "false");
+		String chunk = response.body().asString();
+		assertTrue(chunk.endsWith("\n"));
+		long next = Long.parseLong(response.header("X-Log-Next-Offset"));
+		assertEquals(chunk.getBytes().length, next);
+
+		response = RestAssured.given().header(accessToken).when()
+				.get("/logs/" + id + "/std.out?offset=" + next + "&limit=100000").thenReturn();
+		response.then().statusCode(200).and().header("X-Log-Complete", "true");
+		assertTrue((chunk + response.body().asString()).contains("taks write to system out3"));
+
+		// stream of a finished job sends the remaining log and ends
+		response = RestAssured.given().header(accessToken).when()
+				.get("/logs/" + id + "/stream?name=std.out&offset=" + next).thenReturn();
+		response.then().statusCode(200);
+		String events = response.body().asString();
+		assertTrue(events.contains("event: log") || events.contains("event:log"));
+		assertTrue(events.contains("event: end") || events.contains("event:end"));
+		assertTrue(events.contains("taks write to system out3"));
+
+		// only job logs are available
+		RestAssured.given().header(accessToken).when().get("/logs/" + id + "/config.yaml").then().statusCode(404);
+
 		// should return 401 without login
 		RestAssured.given().when().get("/logs/" + id).then().statusCode(401);
 
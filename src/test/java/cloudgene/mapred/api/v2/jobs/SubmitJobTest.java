@@ -3,15 +3,22 @@ package cloudgene.mapred.api.v2.jobs;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.hamcrest.core.StringContains.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import cloudgene.mapred.TestApplication;
+import cloudgene.mapred.database.InputStoreDao;
 import cloudgene.mapred.jobs.AbstractJob;
 import cloudgene.mapred.jobs.sdk.WorkflowContext;
+import cloudgene.mapred.jobs.workspace.LocalWorkspace;
 import cloudgene.mapred.util.CloudgeneClientRestAssured;
+import cloudgene.mapred.util.HashUtil;
 import genepi.io.FileUtil;
 import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
 import io.restassured.RestAssured;
@@ -28,6 +35,9 @@ public class SubmitJobTest {
 	@Inject
 	CloudgeneClientRestAssured client;
 
+	@TempDir
+	File folder;
+
 	@Test
 	public void testSubmitWithoutLogin() {
 
@@ -91,6 +101,62 @@ public class SubmitJobTest {
 
 	}
 
+	@Test
+	public void testSubmitSameFileTwiceUsesInputStore() {
+
+		Header accessToken = client.loginAsPublicUser();
+
+		String content = "content-of-my-shared-file";
+		File file = new File(folder, "test-shared.txt");
+		FileUtil.writeStringBufferToFile(file.getAbsolutePath(), new StringBuffer(content));
+
+		String[] ids = new String[2];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = RestAssured.given().header(accessToken).and().multiPart("input-text", "my-text").and()
+					.multiPart("input-number", "27").and().multiPart("input-list", "keya").and()
+					.multiPart("input-file", file).and()
+					.multiPart("input-folder", file).when()
+					.post("/api/v2/jobs/submit/all-possible-inputs").then().statusCode(200).and().extract()
+					.jsonPath().getString("id");
+			client.waitForJob(ids[i], accessToken);
+		}
+
+		// one stored copy, each job links it into two input folders
+		String digest = HashUtil.getSha256(content);
+		LocalWorkspace workspace = new LocalWorkspace(application.getSettings().getLocalWorkspace());
+		String url = workspace.createStoredInput(digest);
+		assertTrue(new File(url).exists());
+
+		InputStoreDao dao = new InputStoreDao(application.getDatabase());
+		assertEquals(4, dao.countReferences(digest, url));
+		assertEquals(2, dao.findAllByJob(ids[0]).size());
+
+	}
+
+	@Test
+	public void testFailedSubmitReleasesInputStore() {
+
+		Header accessToken = client.loginAsPublicUser();
+
+		String content = "content-of-a-failed-submit";
+		File file = new File(folder, "test-failed.txt");
+		FileUtil.writeStringBufferToFile(file.getAbsolutePath(), new StringBuffer(content));
+
+		// file is stored before the unknown parameter fails the submit
+		RestAssured.given().header(accessToken).and().multiPart("input-file", file).and()
+				.multiPart("input-unknown", "value").when().post("/api/v2/jobs/submit/all-possible-inputs").then()
+				.statusCode(400).and().body("message", equalTo("Parameter 'unknown' not found."));
+
+		String digest = HashUtil.getSha256(content);
+		LocalWorkspace workspace = new LocalWorkspace(application.getSettings().getLocalWorkspace());
+		String url = workspace.createStoredInput(digest);
+
+		InputStoreDao dao = new InputStoreDao(application.getDatabase());
+		assertEquals(0, dao.countReferences(digest, url));
+		assertFalse(new File(url).exists());
+
+	}
+
 	@Test
 	public void testSubmitReturnTrueStepPublic() {
 
@@ -0,0 +1,91 @@
+package cloudgene.mapred.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class JobLogWriterTest {
+
+	@TempDir
+	File folder;
+
+	@Test
+	public void testConcurrentWrites() throws Exception {
+
+		File file = new File(folder, "job.txt");
+		JobLogWriter writer = new JobLogWriter(file.getAbsolutePath());
+
+		int threads = 8;
+		int lines = 20000;
+		List<Thread> workers = new ArrayList<Thread>();
+		for (int t = 0; t < threads; t++) {
+			int id = t;
+			Thread worker = new Thread(() -> {
+				try {
+					for (int i = 0; i < lines; i++) {
+						writer.write(("thread " + id + " line " + i + "\n").getBytes(StandardCharsets.UTF_8));
+					}
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			});
+			workers.add(worker);
+			worker.start();
+		}
+		for (Thread worker : workers) {
+			worker.join();
+		}
+		writer.close();
+
+		// every line is written once and never split
+		List<String> content = Files.readAllLines(file.toPath());
+		assertEquals(threads * lines, content.size());
+		Set<String> unique = new HashSet<String>(content);
+		assertEquals(threads * lines, unique.size());
+		assertTrue(unique.contains("thread 7 line 19999"));
+
+		assertThrows(IOException.class, () -> writer.write("closed\n".getBytes()));
+
+	}
+
+	@Test
+	public void testFlush() throws Exception {
+
+		File file = new File(folder, "std.out");
+		JobLogWriter writer = new JobLogWriter(file.getAbsolutePath());
+
+		writer.write("first\n".getBytes());
+		assertEquals(0, file.length());
+		writer.flush();
+		assertEquals("first\n", Files.readString(file.toPath()));
+
+		// flushed by the background thread
+		writer.write("second\n".getBytes());
+		long timeout = System.currentTimeMillis() + 10 * JobLogWriter.FLUSH_INTERVAL_MS;
+		while (file.length() < 13 && System.currentTimeMillis() < timeout) {
+			Thread.sleep(50);
+		}
+		assertEquals("first\nsecond\n", Files.readString(file.toPath()));
+
+		// large chunks bypass the buffer and keep their order
+		byte[] large = new byte[JobLogWriter.BUFFER_SIZE];
+		writer.write("third\n".getBytes());
+		writer.write(large);
+		writer.close();
+		assertEquals(13 + 6 + large.length, file.length());
+
+	}
+
+}
@@ -0,0 +1,74 @@
+package cloudgene.mapred.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Vector;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class OutputTailerTest {
+
+	@TempDir
+	File folder;
+
+	@Test
+	public void testBoundedTail() throws Exception {
+
+		File file = new File(folder, "std.out");
+		try (OutputStream out = new FileOutputStream(file)) {
+			out.write("output of a previous step\n".getBytes());
+		}
+
+		List<String> lines = new Vector<String>();
+		OutputTailer tailer = new OutputTailer(file, file.length(), 1024);
+		tailer.setListener(lines::add);
+		tailer.start();
+
+		try (OutputStream out = new FileOutputStream(file, true)) {
+			for (int i = 0; i < 100000; i++) {
+				out.write(("line " + i + "\n").getBytes());
+			}
+			out.write("last line without break".getBytes());
+		}
+
+		tailer.stop();
+
+		assertEquals(100001, lines.size());
+		assertEquals("line 0", lines.get(0));
+		assertEquals("last line without break", lines.get(100000));
+
+		String tail = tailer.getTail();
+		assertTrue(tail.length() <= 1024);
+		assertTrue(tail.startsWith("line "));
+		assertTrue(tail.endsWith("line 99999\nlast line without break"));
+
+	}
+
+	@Test
+	public void testProcessOutput() throws Exception {
+
+		File file = new File(folder, "std.out");
+		file.createNewFile();
+
+		OutputTailer tailer = new OutputTailer(file, 0, 1024);
+		tailer.start();
+
+		ProcessBuilder builder = new ProcessBuilder("sh", "-c", "echo hello; echo world 1>&2");
+		builder.redirectErrorStream(true);
+		builder.redirectOutput(ProcessBuilder.Redirect.appendTo(file));
+		Process process = builder.start();
+		process.waitFor();
+
+		tailer.stop();
+
+		assertEquals("hello\nworld\n", tailer.getTail());
+
+	}
+
+}
@@ -16,6 +16,7 @@ import cloudgene.mapred.core.User;
 import cloudgene.mapred.database.UserDao;
 import cloudgene.mapred.jobs.sdk.WorkflowContext;
 import cloudgene.mapred.jobs.workspace.WorkspaceFactory;
+import cloudgene.mapred.util.LogTestUtil;
 import cloudgene.mapred.util.Settings;
 import cloudgene.mapred.wdl.WdlApp;
 import cloudgene.mapred.wdl.WdlReader;
@@ -471,11 +472,9 @@ public class WorkflowEngineTest {
 
 		assertEquals(AbstractJob.STATE_SUCCESS, job.getState());
 
-		String stdout = FileUtil.path(application.getSettings().getLocalWorkspace(), job.getId(), "logs", "std.out");
-		String contentStdOut = FileUtil.readFileAsString(stdout);
+		String contentStdOut = LogTestUtil.readCompressedLog(application.getSettings(), job.getId(), AbstractJob.JOB_OUT);
 
-		String log = FileUtil.path(application.getSettings().getLocalWorkspace(), job.getId(), "logs", "job.txt");
-		String contentlog = FileUtil.readFileAsString(log);
+		String contentlog = LogTestUtil.readCompressedLog(application.getSettings(), job.getId(), AbstractJob.JOB_LOG);
 
 		assertTrue(contentStdOut.contains("taks write to system out"));
 		assertTrue(contentStdOut.contains("taks write to system out2"));
@@ -0,0 +1,88 @@
+package cloudgene.mapred.jobs.workspace;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import genepi.io.FileUtil;
+
+public class WorkspaceCacheTest {
+
+	@TempDir
+	File folder;
+
+	@Test
+	public void testReadThrough() throws IOException {
+
+		LocalWorkspace workspace = new LocalWorkspace(folder.getAbsolutePath());
+		String file = writeFile("file.txt", "lukas_text");
+
+		WorkspaceCache cache = new WorkspaceCache(FileUtil.path(folder.getAbsolutePath(), "cache"), 1000, 1000);
+
+		assertEquals("lukas_text", read(cache.open(workspace, file)));
+		assertEquals("lukas_text", read(cache.open(workspace, file)));
+
+		assertEquals(1L, cache.getStatistics().get("misses"));
+		assertEquals(1L, cache.getStatistics().get("hits"));
+		assertEquals(10L, cache.getStatistics().get("size"));
+
+	}
+
+	@Test
+	public void testNegativeCaching() throws IOException {
+
+		LocalWorkspace workspace = new LocalWorkspace(folder.getAbsolutePath());
+		String file = FileUtil.path(folder.getAbsolutePath(), "missing.txt");
+
+		WorkspaceCache cache = new WorkspaceCache(FileUtil.path(folder.getAbsolutePath(), "cache"), 1000, 1000);
+
+		assertFalse(cache.exists(workspace, file));
+		assertFalse(cache.exists(workspace, file));
+
+		assertEquals(1L, cache.getStatistics().get("validations"));
+		assertEquals(1L, cache.getStatistics().get("negativeHits"));
+
+		// file appears, invalidate removes negative entry
+		writeFile("missing.txt", "now here");
+		cache.invalidate(file);
+		assertTrue(cache.exists(workspace, file));
+
+	}
+
+	@Test
+	public void testEviction() throws IOException {
+
+		LocalWorkspace workspace = new LocalWorkspace(folder.getAbsolutePath());
+		String file1 = writeFile("file1.txt", "123456");
+		String file2 = writeFile("file2.txt", "abcdef");
+
+		WorkspaceCache cache = new WorkspaceCache(FileUtil.path(folder.getAbsolutePath(), "cache"), 10, 10);
+
+		assertEquals("123456", read(cache.open(workspace, file1)));
+		assertEquals("abcdef", read(cache.open(workspace, file2)));
+
+		assertEquals(1L, cache.getStatistics().get("evictions"));
+		assertEquals(6L, cache.getStatistics().get("size"));
+
+	}
+
+	private String writeFile(String name, String content) {
+		String filename = FileUtil.path(folder.getAbsolutePath(), name);
+		FileUtil.writeStringBufferToFile(filename, new StringBuffer(content));
+		return filename;
+	}
+
+	private String read(InputStream stream) throws IOException {
+		try (stream) {
+			return new String(stream.readAllBytes());
+		}
+	}
+
+}
@@ -0,0 +1,295 @@
+package cloudgene.mapred.plugins.nextflow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import cloudgene.mapred.core.User;
+import cloudgene.mapred.jobs.CloudgeneContext;
+import cloudgene.mapred.jobs.CloudgeneJob;
+import cloudgene.mapred.jobs.workspace.LocalWorkspace;
+import cloudgene.mapred.util.Settings;
+
+import genepi.io.FileUtil;
+
+public class NextflowCollectorTest {
+
+	@TempDir
+	File folder;
+
+	@Test
+	public void testConcurrentEvents() throws Exception {
+
+		ExecutorService workers = Executors.newFixedThreadPool(2);
+		NextflowCollector collector = new NextflowCollector(workers, 100000);
+		CloudgeneContext context = createContext("concurrent");
+		collector.addContext(context, new HashMap<String, NextflowProcessConfig>());
+
+		int tasks = 10000;
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<Future<Object>> results = new Vector<Future<Object>>();
+		for (int i = 0; i < tasks; i++) {
+			int id = i;
+			results.add(executor.submit(() -> {
+				// completed events can overtake the submitted and running events
+				collector.addEvent(context.getPublicJobId(), createEvent("process-" + (id % 4), id, "COMPLETED"));
+				collector.addEvent(context.getPublicJobId(), createEvent("process-" + (id % 4), id, "SUBMITTED"));
+				collector.addEvent(context.getPublicJobId(), createEvent("process-" + (id % 4), id, "RUNNING"));
+				return null;
+			}));
+		}
+		for (Future<Object> result : results) {
+			result.get();
+		}
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.MINUTES);
+		collector.flush(context);
+		workers.shutdown();
+
+		List<NextflowProcess> processes = collector.getProcesses(context);
+		assertEquals(4, processes.size());
+		int count = 0;
+		for (NextflowProcess process : processes) {
+			for (NextflowTask task : process.getTasks()) {
+				assertEquals("COMPLETED", task.getTrace().get("status"));
+				count++;
+			}
+		}
+		assertEquals(tasks, count);
+
+		collector.cleanProcesses(context);
+		assertEquals(0, collector.getProcesses(context).size());
+
+	}
+
+	@Test
+	public void testKill() throws Exception {
+
+		NextflowCollector collector = new NextflowCollector(Runnable::run, 100);
+		CloudgeneContext context = createContext("kill");
+		collector.addContext(context, new HashMap<String, NextflowProcessConfig>());
+
+		collector.addEvent(context.getPublicJobId(), createEvent("process", 1, "RUNNING"));
+		collector.addEvent(context.getPublicJobId(), createEvent("process", 2, "COMPLETED"));
+
+		NextflowProcess process = collector.getProcesses(context).get(0);
+		for (NextflowTask task : process.getTasks()) {
+			task.kill();
+		}
+
+		assertEquals("KILLED", process.getTask(1).getTrace().get("status"));
+		assertEquals("COMPLETED", process.getTask(2).getTrace().get("status"));
+
+	}
+
+	@Test
+	public void testCounters() throws Exception {
+
+		NextflowCollector collector = new NextflowCollector(Runnable::run, 100);
+		CloudgeneContext context = createContext("counters");
+		collector.addContext(context, new HashMap<String, NextflowProcessConfig>());
+
+		collector.addEvent(context.getPublicJobId(), createEvent("process", 1, "SUBMITTED"));
+		collector.addEvent(context.getPublicJobId(), createEvent("process", 2, "SUBMITTED"));
+		collector.addEvent(context.getPublicJobId(), createEvent("process", 3, "SUBMITTED"));
+		collector.addEvent(context.getPublicJobId(), createEvent("process", 1, "RUNNING"));
+		collector.addEvent(context.getPublicJobId(), createEvent("process", 2, "COMPLETED"));
+
+		NextflowProcess process = collector.getProcesses(context).get(0);
+		assertEquals(2, process.getRunning());
+		assertEquals(1, process.getCompleted());
+		assertEquals(0, process.getFailed());
+
+		// older or repeated events do not change the process
+		long version = process.getVersion();
+		collector.addEvent(context.getPublicJobId(), createEvent("process", 2, "RUNNING"));
+		collector.addEvent(context.getPublicJobId(), createEvent("process", 1, "RUNNING"));
+		assertEquals(version, process.getVersion());
+
+		collector.addEvent(context.getPublicJobId(), createEvent("process", 3, "FAILED"));
+		process.getTask(1).kill();
+		assertTrue(process.getVersion() > version);
+		assertEquals(0, process.getRunning());
+		assertEquals(1, process.getCompleted());
+		assertEquals(2, process.getFailed());
+
+	}
+
+	@Test
+	public void testResumedTask() throws Exception {
+
+		NextflowCollector collector = new NextflowCollector(Runnable::run, 100);
+		CloudgeneContext context = createContext("resumed");
+		collector.addContext(context, new HashMap<String, NextflowProcessConfig>());
+
+		// work dir of the previous run
+		File workDir = new File(folder, "work/1");
+		workDir.mkdirs();
+		FileUtil.writeStringBufferToFile(new File(workDir, "cloudgene.out").getAbsolutePath(),
+				new StringBuffer("::set-value name=chunks::10\n"));
+
+		// resumed run sends no submitted or running events for cached tasks
+		collector.addEvent(context.getPublicJobId(), createEvent("process", 1, "CACHED"));
+
+		NextflowProcess process = collector.getProcesses(context).get(0);
+		assertEquals(1, process.getCompleted());
+		assertEquals(0, process.getRunning());
+		assertEquals("10", context.getValues().get("chunks"));
+
+	}
+
+	@Test
+	public void testBatchesAndBackpressure() throws Exception {
+
+		// workers that run only when the test says so
+		List<Runnable> workers = new Vector<Runnable>();
+		NextflowCollector collector = new NextflowCollector(workers::add, 10);
+		CloudgeneContext context = createContext("backpressure");
+		collector.addContext(context, new HashMap<String, NextflowProcessConfig>());
+
+		// queue keeps the latest event of 10 tasks
+		for (int i = 0; i < 10; i++) {
+			assertTrue(collector.addEvent(context.getPublicJobId(), createEvent("process", i, "SUBMITTED")));
+		}
+		for (int i = 0; i < 10; i++) {
+			assertTrue(collector.addEvent(context.getPublicJobId(), createEvent("process", i, "RUNNING")));
+		}
+		assertTrue(collector.addEvent(context.getPublicJobId(), createEvent("process", 0, "COMPLETED")));
+		// older event does not replace the final one
+		assertTrue(collector.addEvent(context.getPublicJobId(), createEvent("process", 0, "RUNNING")));
+
+		// queue is full, events of new tasks are dropped instead of blocking
+		assertFalse(collector.addEvent(context.getPublicJobId(), createEvent("process", 10, "SUBMITTED")));
+		// final events are never dropped
+		assertTrue(collector.addEvent(context.getPublicJobId(), createEvent("process", 11, "FAILED")));
+		assertEquals(1, workers.size());
+		assertEquals(0, collector.getProcesses(context).size());
+		assertEquals(11, collector.getStatistics().get("queued"));
+
+		workers.get(0).run();
+
+		NextflowProcess process = collector.getProcesses(context).get(0);
+		assertEquals(11, process.getTasks().size());
+		assertEquals("COMPLETED", process.getTask(0).getTrace().get("status"));
+		assertEquals("RUNNING", process.getTask(1).getTrace().get("status"));
+		assertEquals("FAILED", process.getTask(11).getTrace().get("status"));
+		assertEquals(9, process.getRunning());
+		assertEquals(1, process.getCompleted());
+		assertEquals(1, process.getFailed());
+
+		Map<String, Long> statistics = collector.getStatistics();
+		assertEquals(23, statistics.get("received"));
+		assertEquals(11, statistics.get("processed"));
+		assertEquals(12, statistics.get("coalesced"));
+		assertEquals(1, statistics.get("dropped"));
+		assertEquals(0, statistics.get("queued"));
+
+	}
+
+	@Test
+	public void testGetTaskById() throws Exception {
+
+		NextflowCollector collector = new NextflowCollector(Runnable::run, 100);
+		CloudgeneContext context = createContext("tasks");
+		collector.addContext(context, new HashMap<String, NextflowProcessConfig>());
+
+		int tasks = 50000;
+		for (int i = 0; i < tasks; i++) {
+			collector.addEvent(context.getPublicJobId(), createEvent("process", i, "SUBMITTED"));
+		}
+
+		NextflowProcess process = collector.getProcesses(context).get(0);
+		NextflowTask task = process.getTask(tasks - 1);
+		assertEquals(tasks - 1, task.getId());
+
+		// events of a task update the same task
+		collector.addEvent(context.getPublicJobId(), createEvent("process", tasks - 1, "RUNNING"));
+		assertSame(task, process.getTask(tasks - 1));
+		assertEquals("RUNNING", task.getTrace().get("status"));
+		assertEquals(tasks, process.getTasks().size());
+		assertEquals(tasks - 1, process.getTasks().get(tasks - 1).getId());
+		assertNull(process.getTask(tasks));
+
+	}
+
+	/**
+	 * Benchmark: the cost of an event must not grow with the number of tasks of
+	 * a process (it did grow linearly when tasks were found by a scan). Depends
+	 * on the machine, runs only with -Dbenchmark=true.
+	 */
+	@Test
+	@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+	public void testEventCostIsFlat() throws Exception {
+
+		// warm up
+		measureEventCost(20000);
+
+		double small = measureEventCost(2000);
+		double large = measureEventCost(50000);
+
+		// 25 times more tasks, a scan would be about 25 times slower
+		assertTrue(large < small * 5, "cost per event grows with the number of tasks: " + Math.round(small)
+				+ " ns/event with 2,000 tasks, " + Math.round(large) + " ns/event with 50,000 tasks");
+
+	}
+
+	protected double measureEventCost(int tasks) throws Exception {
+
+		// events are processed in the calling thread
+		NextflowCollector collector = new NextflowCollector(Runnable::run, 100);
+		CloudgeneContext context = createContext("benchmark-" + tasks);
+		collector.addContext(context, new HashMap<String, NextflowProcessConfig>());
+
+		long start = System.nanoTime();
+		for (int i = 0; i < tasks; i++) {
+			collector.addEvent(context.getPublicJobId(), createEvent("process", i, "SUBMITTED"));
+		}
+		for (int i = 0; i < tasks; i++) {
+			collector.addEvent(context.getPublicJobId(), createEvent("process", i, "RUNNING"));
+		}
+		long time = System.nanoTime() - start;
+
+		collector.cleanProcesses(context);
+		return (double) time / (2 * tasks);
+
+	}
+
+	protected CloudgeneContext createContext(String id) {
+		CloudgeneJob job = new CloudgeneJob();
+		job.setId(id);
+		job.setUser(new User());
+		job.setSettings(new Settings());
+		job.setLocalWorkspace(folder.getAbsolutePath());
+		job.setWorkspace(new LocalWorkspace(folder.getAbsolutePath()));
+		return new CloudgeneContext(job);
+	}
+
+	protected Map<String, Object> createEvent(String process, int taskId, String status) {
+		Map<String, Object> trace = new HashMap<String, Object>();
+		trace.put("process", process);
+		trace.put("task_id", taskId);
+		trace.put("name", process + " (" + taskId + ")");
+		trace.put("status", status);
+		trace.put("workdir", new File(folder, "work/" + taskId).getAbsolutePath());
+		Map<String, Object> event = new HashMap<String, Object>();
+		event.put("trace", trace);
+		return event;
+	}
+
+}
@@ -0,0 +1,58 @@
+package cloudgene.mapred.plugins.nextflow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import genepi.io.FileUtil;
+
+public class NextflowHistoryTest {
+
+	@TempDir
+	File folder;
+
+	@Test
+	public void testFindSessionByRunName() throws Exception {
+
+		NextflowHistory history = new NextflowHistory(folder);
+
+		// no run yet
+		assertNull(history.findSessionByRunName("cloudgene-job-1-step1"));
+
+		new File(folder, ".nextflow").mkdirs();
+		StringBuffer content = new StringBuffer();
+		content.append(
+				"2024-01-01 10:00:00\t1h\tcloudgene-job-1-step1\t-\t0f4b2a\t5d2ad3e4-10d6-4b5e-9d4c-2a3f0d5e6b7c\tnextflow run main.nf\n");
+		content.append(
+				"2024-01-01 12:00:00\t2h\tfervent_curie\tOK\t0f4b2a\t5d2ad3e4-10d6-4b5e-9d4c-2a3f0d5e6b7c\tnextflow run main.nf -resume\n");
+		FileUtil.writeStringBufferToFile(new File(folder, NextflowHistory.FILENAME).getAbsolutePath(), content);
+
+		assertEquals("5d2ad3e4-10d6-4b5e-9d4c-2a3f0d5e6b7c", history.findSessionByRunName("cloudgene-job-1-step1"));
+		assertNull(history.findSessionByRunName("cloudgene-job-1-step2"));
+
+	}
+
+	@Test
+	public void testCreateRunName() {
+
+		assertEquals("cloudgene-job-20240101-102030-123-step1",
+				NextflowHistory.createRunName("job-20240101-102030-123", "step1-"));
+		assertEquals("cloudgene-my-job-step2", NextflowHistory.createRunName("My__Job", "step2-"));
+
+		String name = NextflowHistory.createRunName("a".repeat(100), "step1-");
+		assertTrue(name.length() <= 80);
+
+		// rules of nextflow for run names
+		for (String runName : List.of(name, NextflowHistory.createRunName("job.1", "step3-"))) {
+			assertTrue(runName.matches("^[a-z](?:[a-z\\d]|[-_](?=[a-z\\d])){0,79}$"), runName);
+		}
+
+	}
+
+}
@@ -0,0 +1,111 @@
+package cloudgene.mapred.plugins.nextflow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import cloudgene.mapred.TestApplication;
+import cloudgene.mapred.core.User;
+import cloudgene.mapred.database.UserDao;
+import cloudgene.mapred.jobs.AbstractJob;
+import cloudgene.mapred.jobs.CloudgeneJob;
+import cloudgene.mapred.jobs.WorkflowEngine;
+import cloudgene.mapred.jobs.workspace.IWorkspace;
+import cloudgene.mapred.jobs.workspace.WorkspaceFactory;
+import cloudgene.mapred.util.Settings;
+import cloudgene.mapred.wdl.WdlApp;
+import cloudgene.mapred.wdl.WdlReader;
+import genepi.io.FileUtil;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+
+@MicronautTest
+public class NextflowStepTest {
+
+	@Inject
+	TestApplication application;
+
+	@Inject
+	WorkspaceFactory workspaceFactory;
+
+	@Test
+	public void testResumeRestartedStep() throws Exception {
+
+		Settings settings = application.getSettings();
+		Map<String, Map<String, String>> plugins = settings.getPlugins();
+
+		// fake binary: fails the first run, a resumed run needs the overwrite config
+		Map<String, String> nextflow = new HashMap<String, String>();
+		nextflow.put("home", new File("test-data/nextflow-bin").getAbsolutePath());
+		Map<String, Map<String, String>> testPlugins = new HashMap<String, Map<String, String>>();
+		testPlugins.put(NextflowPlugin.ID, nextflow);
+		settings.setPlugins(testPlugins);
+
+		try {
+
+			WorkflowEngine engine = application.getWorkflowEngine();
+
+			WdlApp app = WdlReader.loadAppFromFile("test-data/nextflow-resume.yaml");
+
+			Map<String, String> inputs = new HashMap<String, String>();
+			inputs.put("input", "input-text");
+
+			CloudgeneJob job = createJobFromWdl(app, inputs);
+			engine.submit(job);
+			while (job.isRunning()) {
+				Thread.sleep(500);
+			}
+			assertEquals(AbstractJob.STATE_FAILED, job.getState());
+
+			// first run is in the history, the restarted step resumes its session
+			String runName = NextflowHistory.createRunName(job.getId(), "step1-");
+			assertEquals("session-1",
+					new NextflowHistory(new File(job.getLocalWorkspace())).findSessionByRunName(runName));
+
+			engine.restart(job);
+			while (job.isRunning()) {
+				Thread.sleep(500);
+			}
+			assertEquals(AbstractJob.STATE_SUCCESS, job.getState());
+			assertTrue(new File(FileUtil.path(job.getLocalWorkspace(), "step1-resume.config")).exists());
+
+		} finally {
+			settings.setPlugins(plugins);
+		}
+
+	}
+
+	protected CloudgeneJob createJobFromWdl(WdlApp app, Map<String, String> inputs) throws Exception {
+
+		Settings settings = application.getSettings();
+
+		UserDao userDao = new UserDao(application.getDatabase());
+		User user = userDao.findByUsername("admin");
+
+		String id = "test_" + System.currentTimeMillis();
+
+		String localWorkspace = FileUtil.path(settings.getLocalWorkspace(), id);
+		FileUtil.createDirectory(localWorkspace);
+
+		IWorkspace workspace = workspaceFactory.getDefault();
+		workspace.setJob(id);
+		workspace.setup();
+
+		CloudgeneJob job = new CloudgeneJob(user, id, app, inputs);
+		job.setId(id);
+		job.setName(id);
+		job.setWorkspace(workspace);
+		job.setLocalWorkspace(localWorkspace);
+		job.setSettings(settings);
+		job.setApplication(app.getName() + " " + app.getVersion());
+		job.setApplicationId(app.getId());
+
+		return job;
+	}
+
+}
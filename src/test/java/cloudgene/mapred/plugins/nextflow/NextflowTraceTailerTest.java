@@ -0,0 +1,141 @@
+package cloudgene.mapred.plugins.nextflow;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import cloudgene.mapred.core.User;
+import cloudgene.mapred.jobs.CloudgeneContext;
+import cloudgene.mapred.jobs.CloudgeneJob;
+import cloudgene.mapred.jobs.workspace.LocalWorkspace;
+import cloudgene.mapred.util.Settings;
+
+public class NextflowTraceTailerTest {
+
+	private static final String HEADER = "task_id\tprocess\tname\tstatus\tworkdir\n";
+
+	@TempDir
+	File folder;
+
+	@Test
+	public void testReadIncrementally() throws Exception {
+
+		NextflowCollector collector = new NextflowCollector(Runnable::run, 100);
+		CloudgeneContext context = createContext("trace");
+		collector.addContext(context, new HashMap<String, NextflowProcessConfig>());
+
+		File file = new File(folder, "trace.csv");
+		NextflowTraceTailer tailer = new NextflowTraceTailer(file, collector, context);
+
+		// file not created yet
+		assertEquals(0, tailer.read());
+
+		append(file, HEADER);
+		append(file, createRow(1, "align", "COMPLETED"));
+		append(file, createRow(2, "align", "FAILED"));
+		// incomplete row
+		append(file, "3\talign\talign (3)\tCOMP");
+		assertEquals(2, tailer.read());
+
+		List<NextflowProcess> processes = collector.getProcesses(context);
+		assertEquals(1, processes.size());
+		assertEquals(2, processes.get(0).getTasks().size());
+		assertEquals(1, processes.get(0).getCompleted());
+		assertEquals(1, processes.get(0).getFailed());
+
+		// nothing changed
+		assertEquals(0, tailer.read());
+
+		append(file, "LETED\t-\n");
+		append(file, createRow(4, "merge", "COMPLETED"));
+		assertEquals(2, tailer.read());
+
+		processes = collector.getProcesses(context);
+		assertEquals(2, processes.size());
+		assertEquals(2, processes.get(0).getCompleted());
+		assertEquals("COMPLETED", processes.get(0).getTask(3).getTrace().get("status"));
+		assertEquals(null, processes.get(0).getTask(3).getTrace().get("workdir"));
+		assertEquals(1, processes.get(1).getCompleted());
+
+	}
+
+	@Test
+	public void testSkipLongRow() throws Exception {
+
+		NextflowCollector collector = new NextflowCollector(Runnable::run, 100);
+		CloudgeneContext context = createContext("long");
+		collector.addContext(context, new HashMap<String, NextflowProcessConfig>());
+
+		File file = new File(folder, "trace.csv");
+		NextflowTraceTailer tailer = new NextflowTraceTailer(file, collector, context);
+
+		// row is larger than a chunk and not finished yet
+		String tag = "x".repeat(3 * 1024 * 1024);
+		append(file, HEADER);
+		append(file, createRow(1, "align", "COMPLETED"));
+		append(file, "2	align	" + tag.substring(0, 2 * 1024 * 1024));
+		assertEquals(1, tailer.read());
+
+		append(file, tag.substring(2 * 1024 * 1024) + "	COMPLETED	-\n");
+		append(file, createRow(3, "align", "COMPLETED"));
+		assertEquals(1, tailer.read());
+
+		List<NextflowProcess> processes = collector.getProcesses(context);
+		assertEquals(1, processes.size());
+		assertEquals(2, processes.get(0).getCompleted());
+		assertEquals(null, processes.get(0).getTask(2));
+
+	}
+
+	@Test
+	public void testStartAndStop() throws Exception {
+
+		NextflowCollector collector = new NextflowCollector(Runnable::run, 100);
+		CloudgeneContext context = createContext("watch");
+		collector.addContext(context, new HashMap<String, NextflowProcessConfig>());
+
+		File file = new File(folder, "trace.csv");
+		NextflowTraceTailer tailer = new NextflowTraceTailer(file, collector, context);
+		tailer.start();
+
+		append(file, HEADER);
+		for (int i = 0; i < 1000; i++) {
+			append(file, createRow(i, "process", "COMPLETED"));
+		}
+
+		// rows written before stop are read
+		tailer.stop();
+
+		assertEquals(1000, collector.getProcesses(context).get(0).getCompleted());
+
+	}
+
+	protected String createRow(int taskId, String process, String status) {
+		String workdir = new File(folder, "work/" + taskId).getAbsolutePath();
+		return taskId + "\t" + process + "\t" + process + " (" + taskId + ")\t" + status + "\t" + workdir + "\n";
+	}
+
+	protected void append(File file, String content) throws IOException {
+		try (FileWriter writer = new FileWriter(file, true)) {
+			writer.write(content);
+		}
+	}
+
+	protected CloudgeneContext createContext(String id) {
+		CloudgeneJob job = new CloudgeneJob();
+		job.setId(id);
+		job.setUser(new User());
+		job.setSettings(new Settings());
+		job.setLocalWorkspace(folder.getAbsolutePath());
+		job.setWorkspace(new LocalWorkspace(folder.getAbsolutePath()));
+		return new CloudgeneContext(job);
+	}
+
+}
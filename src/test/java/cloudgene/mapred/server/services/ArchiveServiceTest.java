@@ -0,0 +1,94 @@
+package cloudgene.mapred.server.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.Test;
+
+import cloudgene.mapred.jobs.Download;
+import cloudgene.mapred.server.services.ArchiveService.Format;
+
+public class ArchiveServiceTest {
+
+	@Test
+	public void testWriteArchive() throws IOException {
+
+		AtomicBoolean completed = new AtomicBoolean();
+		InputStream in = new TestArchiveService().createArchive("output",
+				List.of(createDownload("a.txt"), createDownload("b.txt")), Format.ZIP, () -> completed.set(true));
+
+		try (ZipInputStream zip = new ZipInputStream(in)) {
+			ZipEntry entry = zip.getNextEntry();
+			assertEquals("output/a.txt", entry.getName());
+			assertEquals("lukas_text", new String(zip.readAllBytes()));
+			assertEquals("output/b.txt", zip.getNextEntry().getName());
+			assertNull(zip.getNextEntry());
+		}
+		assertTrue(completed.get());
+
+	}
+
+	@Test
+	public void testFailedFileBreaksArchive() throws IOException {
+
+		for (Format format : Format.values()) {
+
+			AtomicBoolean completed = new AtomicBoolean();
+			InputStream in = new TestArchiveService().createArchive("output",
+					List.of(createDownload("a.txt"), createDownload("failing.txt"), createDownload("b.txt")),
+					format, () -> completed.set(true));
+
+			// no regular end of stream, the truncated archive is not sent as complete
+			assertThrows(IOException.class, () -> in.readAllBytes());
+			in.close();
+			assertFalse(completed.get());
+
+		}
+
+	}
+
+	protected Download createDownload(String name) {
+		Download download = new Download();
+		download.setName(name);
+		download.setPath("output/" + name);
+		download.setBytes(10);
+		return download;
+	}
+
+	static class TestArchiveService extends ArchiveService {
+
+		@Override
+		protected InputStream open(Download download) throws IOException {
+			if (!download.getName().equals("failing.txt")) {
+				return new ByteArrayInputStream("lukas_text".getBytes());
+			}
+			// fails after the first bytes
+			return new InputStream() {
+
+				private int count = 0;
+
+				@Override
+				public int read() throws IOException {
+					if (count++ >= 5) {
+						throw new IOException("Connection reset.");
+					}
+					return 'x';
+				}
+
+			};
+		}
+
+	}
+
+}
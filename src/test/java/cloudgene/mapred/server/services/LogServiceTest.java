@@ -0,0 +1,115 @@
+package cloudgene.mapred.server.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import cloudgene.mapred.jobs.AbstractJob;
+import cloudgene.mapred.jobs.workspace.LocalWorkspace;
+import cloudgene.mapred.server.services.LogService.LogChunk;
+
+public class LogServiceTest {
+
+	@TempDir
+	File folder;
+
+	@Test
+	public void testDecompressOnce() throws IOException {
+
+		TestWorkspace workspace = new TestWorkspace(new File(folder, "workspace").getAbsolutePath());
+		workspace.setJob("job-1");
+		String url = workspace.createLogFile("std.out" + AbstractJob.COMPRESSED_LOG_SUFFIX);
+
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < 1000; i++) {
+			content.append("line " + i + "\n");
+		}
+		try (OutputStream out = new GZIPOutputStream(new FileOutputStream(url))) {
+			out.write(content.toString().getBytes(StandardCharsets.UTF_8));
+		}
+
+		File cache = new File(folder, "cache");
+		cache.mkdirs();
+		LogService service = new LogService() {
+			@Override
+			protected File getCacheDirectory() {
+				return cache;
+			}
+		};
+
+		// every chunk is read from the same local copy
+		long offset = 0;
+		StringBuilder chunks = new StringBuilder();
+		boolean complete = false;
+		while (!complete) {
+			File file = service.decompress(workspace, url);
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				LogChunk chunk = service.read(channel, offset, 1000);
+				chunks.append(chunk.content());
+				offset = chunk.next();
+				complete = chunk.complete();
+			}
+		}
+		assertEquals(content.toString(), chunks.toString());
+		assertEquals(1, workspace.downloads);
+
+		// changed log is decompressed again
+		try (OutputStream out = new GZIPOutputStream(new FileOutputStream(url))) {
+			out.write("restarted\n".getBytes(StandardCharsets.UTF_8));
+		}
+		new File(url).setLastModified(System.currentTimeMillis() + 10000);
+		File file = service.decompress(workspace, url);
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			assertEquals("restarted\n", service.read(channel, 0, 1000).content());
+		}
+		assertEquals(2, workspace.downloads);
+
+		// least recently used logs are removed
+		int maxCachedLogs = LogService.MAX_CACHED_LOGS;
+		LogService.MAX_CACHED_LOGS = 1;
+		try {
+			String other = workspace.createLogFile("job.txt" + AbstractJob.COMPRESSED_LOG_SUFFIX);
+			try (OutputStream out = new GZIPOutputStream(new FileOutputStream(other))) {
+				out.write("log\n".getBytes(StandardCharsets.UTF_8));
+			}
+			assertTrue(service.decompress(workspace, other).exists());
+			assertFalse(file.exists());
+		} finally {
+			LogService.MAX_CACHED_LOGS = maxCachedLogs;
+		}
+
+		assertNull(service.decompress(workspace, workspace.createLogFile("missing.txt.gz")));
+
+	}
+
+	static class TestWorkspace extends LocalWorkspace {
+
+		private int downloads = 0;
+
+		public TestWorkspace(String location) {
+			super(location);
+		}
+
+		@Override
+		public InputStream download(String path) throws IOException {
+			downloads++;
+			return super.download(path);
+		}
+
+	}
+
+}
@@ -0,0 +1,54 @@
+package cloudgene.mapred.server.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+
+import org.junit.jupiter.api.Test;
+
+import cloudgene.mapred.TestApplication;
+import cloudgene.mapred.database.WorkspaceTaskDao;
+import genepi.io.FileUtil;
+import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import jakarta.inject.Inject;
+
+@MicronautTest
+public class WorkspaceCleanupServiceTest {
+
+	@Inject
+	TestApplication application;
+
+	@Inject
+	WorkspaceCleanupService cleanupService;
+
+	@Test
+	public void testPendingTasksAreExecuted() throws InterruptedException {
+
+		// no rate limit, tasks of other tests may still be pending
+		application.getSettings().setWorkspaceCleanupRate(0);
+
+		String job = "job-cleanup-test";
+		String folder = FileUtil.path(application.getSettings().getLocalWorkspace(), job);
+		FileUtil.createDirectory(FileUtil.path(folder, "temp"));
+		FileUtil.writeStringBufferToFile(FileUtil.path(folder, "temp", "file.txt"), new StringBuffer("lukas_text"));
+		FileUtil.createDirectory(FileUtil.path(folder, "outputs"));
+
+		// task is only stored, e.g. before a restart
+		WorkspaceTaskDao dao = new WorkspaceTaskDao(application.getDatabase());
+		dao.insert(job, WorkspaceCleanupService.CLEANUP);
+
+		assertTrue(cleanupService.processPending() >= 1);
+
+		for (int i = 0; i < 100 && !dao.findAllPending(WorkspaceCleanupService.MAX_ATTEMPTS, 10).isEmpty(); i++) {
+			Thread.sleep(100);
+		}
+
+		assertEquals(0, dao.findAllPending(WorkspaceCleanupService.MAX_ATTEMPTS, 10).size());
+		assertFalse(new File(FileUtil.path(folder, "temp")).exists());
+		assertTrue(new File(FileUtil.path(folder, "outputs")).exists());
+
+	}
+
+}
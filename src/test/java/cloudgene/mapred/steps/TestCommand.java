@@ -19,6 +19,7 @@ import cloudgene.mapred.jobs.Message;
 import cloudgene.mapred.jobs.WorkflowEngine;
 import cloudgene.mapred.jobs.sdk.WorkflowContext;
 import cloudgene.mapred.jobs.workspace.WorkspaceFactory;
+import cloudgene.mapred.util.LogTestUtil;
 import cloudgene.mapred.util.Settings;
 import cloudgene.mapred.wdl.WdlApp;
 import cloudgene.mapred.wdl.WdlReader;
@@ -58,14 +59,12 @@ public class TestCommand {
 		assertEquals(messages.getFirst().getType(), WorkflowContext.OK);
 		assertTrue(messages.getFirst().getMessage().contains("Execution successful."));
 
-		String stdout = FileUtil.path(application.getSettings().getLocalWorkspace(), job.getId(), "logs", "std.out");
-		String contentStdOut = FileUtil.readFileAsString(stdout);
+		String contentStdOut = LogTestUtil.readCompressedLog(application.getSettings(), job.getId(), AbstractJob.JOB_OUT);
 
 		// simple ls result check
 		assertTrue(contentStdOut.contains("invalid-command.yaml"));
 
-		String jobLog = FileUtil.path(application.getSettings().getLocalWorkspace(), job.getId(), "logs", "job.txt");
-		String contentjobLog = FileUtil.readFileAsString(jobLog);
+		String contentjobLog = LogTestUtil.readCompressedLog(application.getSettings(), job.getId(), AbstractJob.JOB_LOG);
 
 		// simple check if exit code = 0
 		assertTrue(contentjobLog.contains("Exit Code: 0"));
@@ -156,4 +155,5 @@ public class TestCommand {
 
 		return job;
 	}
+
 }
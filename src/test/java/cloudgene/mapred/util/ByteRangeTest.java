@@ -0,0 +1,60 @@
+package cloudgene.mapred.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class ByteRangeTest {
+
+	@Test
+	public void testSingleRange() {
+		List<ByteRange> ranges = ByteRange.parse("bytes=0-4", 10);
+		assertEquals(1, ranges.size());
+		assertEquals(0, ranges.get(0).start());
+		assertEquals(4, ranges.get(0).end());
+		assertEquals(5, ranges.get(0).length());
+		assertEquals("bytes 0-4/10", ranges.get(0).toContentRange(10));
+	}
+
+	@Test
+	public void testOpenAndSuffixRanges() {
+		List<ByteRange> ranges = ByteRange.parse("bytes=2-3, -2", 10);
+		assertEquals(2, ranges.size());
+		assertEquals(new ByteRange(2, 3), ranges.get(0));
+		assertEquals(new ByteRange(8, 9), ranges.get(1));
+	}
+
+	@Test
+	public void testMergeRanges() {
+		// overlapping ranges return the file once
+		assertEquals(List.of(new ByteRange(0, 9)), ByteRange.parse("bytes=0-,0-0", 10));
+		assertEquals(List.of(new ByteRange(6, 9)), ByteRange.parse("bytes=6-, -3", 10));
+		// adjacent ranges
+		assertEquals(List.of(new ByteRange(0, 5)), ByteRange.parse("bytes=0-1, 4-5, 2-3", 10));
+		// ordered by start
+		assertEquals(List.of(new ByteRange(0, 1), new ByteRange(6, 7)), ByteRange.parse("bytes=6-7, 0-1", 10));
+	}
+
+	@Test
+	public void testEndIsClipped() {
+		List<ByteRange> ranges = ByteRange.parse("bytes=5-100", 10);
+		assertEquals(new ByteRange(5, 9), ranges.get(0));
+	}
+
+	@Test
+	public void testUnsatisfiable() {
+		assertTrue(ByteRange.parse("bytes=10-20", 10).isEmpty());
+	}
+
+	@Test
+	public void testMalformed() {
+		assertNull(ByteRange.parse("items=0-1", 10));
+		assertNull(ByteRange.parse("bytes=a-b", 10));
+		assertNull(ByteRange.parse("bytes=5-1", 10));
+	}
+
+}
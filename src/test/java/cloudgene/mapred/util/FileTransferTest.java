@@ -0,0 +1,107 @@
+package cloudgene.mapred.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class FileTransferTest {
+
+	@TempDir
+	File folder;
+
+	@Test
+	public void testMove() throws IOException {
+
+		Path source = writeFile("source.txt", "lukas_text");
+		Path target = folder.toPath().resolve("job/input/file.txt");
+
+		FileTransfer.move(source, target);
+
+		assertFalse(Files.exists(source));
+		assertEquals("lukas_text", Files.readString(target));
+
+	}
+
+	@Test
+	public void testMoveTempFile() throws IOException {
+
+		// created with mode 0600
+		Path source = Files.createTempFile(folder.toPath(), "upload_", ".txt");
+		Files.writeString(source, "lukas_text");
+		Path target = folder.toPath().resolve("job/input/file.txt");
+
+		FileTransfer.move(source, target);
+
+		Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(target);
+		assertTrue(permissions.contains(PosixFilePermission.OWNER_WRITE));
+		assertTrue(permissions.contains(PosixFilePermission.GROUP_READ));
+		assertTrue(permissions.contains(PosixFilePermission.OTHERS_READ));
+
+	}
+
+	@Test
+	public void testLink() throws IOException {
+
+		Path source = writeFile("source.txt", "lukas_text");
+		Path target = folder.toPath().resolve("job/input/file.txt");
+
+		FileTransfer.link(source, target);
+
+		assertTrue(Files.exists(source));
+		assertEquals("lukas_text", Files.readString(target));
+
+	}
+
+	@Test
+	public void testCopy() throws IOException {
+
+		Path source = writeFile("source.txt", "lukas_text");
+		Path target = folder.toPath().resolve("job/input/file.txt");
+		Files.createDirectories(target.getParent());
+		Files.writeString(target, "an older and longer content");
+
+		FileTransfer.copy(source, target);
+
+		Files.writeString(source, "changed");
+		assertEquals("lukas_text", Files.readString(target));
+
+	}
+
+	@Test
+	public void testCopyWithReflink() throws IOException {
+
+		long minSize = FileTransfer.REFLINK_MIN_SIZE;
+		FileTransfer.REFLINK_MIN_SIZE = 0;
+		try {
+			// no option for cp
+			Path source = writeFile("-source.txt", "lukas_text");
+			Path target = folder.toPath().resolve("job/input/-file.txt");
+
+			FileTransfer.copy(source, target);
+			FileTransfer.copy(source, folder.toPath().resolve("job/input/-file2.txt"));
+
+			Files.writeString(source, "changed");
+			assertEquals("lukas_text", Files.readString(target));
+		} finally {
+			FileTransfer.REFLINK_MIN_SIZE = minSize;
+		}
+
+	}
+
+	private Path writeFile(String name, String content) throws IOException {
+		Path file = folder.toPath().resolve(name);
+		Files.writeString(file, content);
+		return file;
+	}
+
+}
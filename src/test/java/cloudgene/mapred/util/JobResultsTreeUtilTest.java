@@ -0,0 +1,93 @@
+package cloudgene.mapred.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Vector;
+
+import org.junit.jupiter.api.Test;
+
+import cloudgene.mapred.jobs.CloudgeneParameterOutput;
+import cloudgene.mapred.jobs.Download;
+import cloudgene.mapred.jobs.JobResultsTreeItem;
+
+public class JobResultsTreeUtilTest {
+
+	@Test
+	public void testCreateTree() {
+
+		CloudgeneParameterOutput param = createParameter(1, "report.html", "chr2/b.txt", "chr1/sub/c.txt",
+				"chr1/A.txt", "Chr3.txt");
+
+		List<JobResultsTreeItem> tree = JobResultsTreeUtil.createTree(param);
+
+		// folders first, then files, ignoring case
+		assertEquals(4, tree.size());
+		assertEquals("chr1", tree.get(0).getName());
+		assertTrue(tree.get(0).isFolder());
+		assertEquals("chr2", tree.get(1).getName());
+		assertEquals("Chr3.txt", tree.get(2).getName());
+		assertEquals("report.html", tree.get(3).getName());
+
+		List<JobResultsTreeItem> chr1 = tree.get(0).getChilds();
+		assertEquals(2, chr1.size());
+		assertEquals("sub", chr1.get(0).getName());
+		assertEquals("A.txt", chr1.get(1).getName());
+		assertEquals("/browse/param-hash/chr1/A.txt", chr1.get(1).getPath());
+		assertEquals("c.txt", chr1.get(0).getChilds().get(0).getName());
+
+	}
+
+	@Test
+	public void testLargeFolder() {
+
+		String[] names = new String[20000];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = "folder/file-" + (names.length - i) + ".txt";
+		}
+		CloudgeneParameterOutput param = createParameter(2, names);
+
+		List<JobResultsTreeItem> tree = JobResultsTreeUtil.createTree(param);
+		assertEquals(1, tree.size());
+		List<JobResultsTreeItem> files = tree.get(0).getChilds();
+		assertEquals(20000, files.size());
+		assertEquals("file-1.txt", files.get(0).getName());
+
+	}
+
+	@Test
+	public void testCache() {
+
+		CloudgeneParameterOutput param = createParameter(3, "a/b.txt", "c.txt");
+		List<JobResultsTreeItem> tree = JobResultsTreeUtil.getTree(param);
+
+		// same parameter loaded again
+		assertSame(tree, JobResultsTreeUtil.getTree(createParameter(3, "a/b.txt", "c.txt")));
+
+		// files changed
+		List<JobResultsTreeItem> changed = JobResultsTreeUtil.getTree(createParameter(3, "a/b.txt", "d.txt"));
+		assertNotSame(tree, changed);
+		assertEquals("d.txt", changed.get(1).getName());
+
+	}
+
+	protected CloudgeneParameterOutput createParameter(int id, String... names) {
+		CloudgeneParameterOutput param = new CloudgeneParameterOutput();
+		param.setId(id);
+		param.setHash("param-hash");
+		List<Download> files = new Vector<Download>();
+		for (String name : names) {
+			Download download = new Download();
+			download.setName(name);
+			download.setHash("hash-" + name);
+			download.setSize("1 KB");
+			files.add(download);
+		}
+		param.setFiles(files);
+		return param;
+	}
+
+}
@@ -0,0 +1,156 @@
+package cloudgene.mapred.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import genepi.io.FileUtil;
+
+public class LocalFileListerTest {
+
+	private static final ExecutorService executor = Executors.newFixedThreadPool(4,
+			new DaemonThreadFactory("listing-test"));
+
+	@TempDir
+	File folder;
+
+	@Test
+	public void testListNestedFolders() throws IOException {
+
+		for (int i = 0; i < 10; i++) {
+			for (int j = 0; j < 20; j++) {
+				writeFile("chr" + i + "/part" + j + "/file.txt", "content" + j);
+			}
+		}
+		writeFile("summary.txt", "lukas_text");
+		writeFile("cloudgene.out", "ignored");
+
+		LocalFileLister lister = new LocalFileLister(executor);
+		lister.setIgnore("cloudgene.out");
+
+		Map<String, Long> files = new HashMap<String, Long>();
+		lister.list(folder.toPath(), entry -> files.put(entry.name(), entry.size()));
+
+		assertEquals(201, files.size());
+		assertEquals(10L, files.get("summary.txt"));
+		assertEquals(9L, files.get("chr3/part12/file.txt"));
+
+	}
+
+	@Test
+	public void testListSingleFile() throws IOException {
+
+		writeFile("summary.txt", "lukas_text");
+
+		Map<String, Long> files = new HashMap<String, Long>();
+		new LocalFileLister(executor).list(new File(folder, "summary.txt").toPath(),
+				entry -> files.put(entry.name(), entry.size()));
+
+		assertEquals(1, files.size());
+		assertTrue(files.containsKey("summary.txt"));
+
+	}
+
+	@Test
+	public void testListLinkedFolders() throws IOException {
+
+		writeFile("data/chr1.txt", "chr1");
+		writeFile("results/summary.txt", "lukas_text");
+		File output = new File(folder, "output");
+		output.mkdirs();
+		Files.createSymbolicLink(new File(output, "data").toPath(), new File(folder, "data").toPath());
+		// link to a parent folder
+		Files.createSymbolicLink(new File(output, "loop").toPath(), output.toPath());
+
+		Map<String, Long> files = new HashMap<String, Long>();
+		new LocalFileLister(executor).list(output.toPath(), entry -> files.put(entry.name(), entry.size()));
+
+		assertEquals(1, files.size());
+		assertEquals(4L, files.get("data/chr1.txt"));
+
+		// link as start folder
+		File link = new File(folder, "link");
+		Files.createSymbolicLink(link.toPath(), new File(folder, "results").toPath());
+		files.clear();
+		new LocalFileLister(executor).list(link.toPath(), entry -> files.put(entry.name(), entry.size()));
+
+		assertEquals(1, files.size());
+		assertEquals(10L, files.get("summary.txt"));
+
+	}
+
+	@Test
+	public void testListFolderLinkedTwice() throws IOException {
+
+		writeFile("data/chr1.txt", "chr1");
+		File output = new File(folder, "output");
+		new File(output, "b").mkdirs();
+		// two links to the same folder, no cycle
+		Files.createSymbolicLink(new File(output, "a").toPath(), new File(folder, "data").toPath());
+		Files.createSymbolicLink(new File(output, "b/data").toPath(), new File(folder, "data").toPath());
+
+		Map<String, Long> files = new HashMap<String, Long>();
+		new LocalFileLister(executor).list(output.toPath(), entry -> files.put(entry.name(), entry.size()));
+
+		assertEquals(2, files.size());
+		assertEquals(4L, files.get("a/chr1.txt"));
+		assertEquals(4L, files.get("b/data/chr1.txt"));
+
+	}
+
+	@Test
+	public void testListMissingFolder() throws IOException {
+
+		Map<String, Long> files = new HashMap<String, Long>();
+		new LocalFileLister(executor).list(new File(folder, "missing").toPath(), entry -> files.put(entry.name(), 0L));
+
+		assertEquals(0, files.size());
+
+	}
+
+	@Test
+	public void testStopListingEarly() throws IOException {
+
+		// every folder fills the queue, all tasks are blocked when the consumer fails
+		for (int i = 0; i < 4; i++) {
+			for (int j = 0; j < 10000; j++) {
+				writeFile("chr" + i + "/file" + j + ".txt", "content");
+			}
+		}
+
+		assertThrows(IllegalStateException.class, () -> new LocalFileLister(executor).list(folder.toPath(), entry -> {
+			try {
+				// slow consumer, tasks fill the queue in the meantime
+				Thread.sleep(1000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			throw new IllegalStateException("Consumer failed.");
+		}));
+
+		// blocked tasks are released, the shared executor lists the next folder
+		Map<String, Long> files = new HashMap<String, Long>();
+		new LocalFileLister(executor).list(folder.toPath(), entry -> files.put(entry.name(), entry.size()));
+
+		assertEquals(40000, files.size());
+
+	}
+
+	private void writeFile(String name, String content) {
+		File file = new File(folder, name);
+		FileUtil.createDirectory(file.getParent());
+		FileUtil.writeStringBufferToFile(file.getAbsolutePath(), new StringBuffer(content));
+	}
+
+}
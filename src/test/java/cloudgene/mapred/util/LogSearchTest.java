@@ -0,0 +1,88 @@
+package cloudgene.mapred.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class LogSearchTest {
+
+	@TempDir
+	File folder;
+
+	@Test
+	public void testSearchInChunks() throws IOException {
+
+		File file = new File(folder, "cloudgene-2026-01-15.log");
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			String level = i % 10 == 0 ? "ERROR" : "INFO ";
+			content.append(String.format("%02d:%02d:%02d.000 [main] %s cloudgene.Test - [Job job-%d] message %d\n",
+					10 + i / 3600, (i / 60) % 60, i % 60, level, i % 3, i));
+			if (i % 10 == 0) {
+				content.append("java.io.IOException: failed\n\tat cloudgene.Test.run(Test.java:1)\n");
+			}
+		}
+		Files.writeString(file.toPath(), content);
+
+		int chunkSize = LogSearch.CHUNK_SIZE;
+		LogSearch.CHUNK_SIZE = 4096;
+
+		try {
+
+			LogSearch search = new LogSearch();
+			search.setLimit(100000);
+			assertEquals(5000, search.search(List.of(file)).size());
+
+			search.setLevel("error");
+			search.setText("[Job job-1]");
+			List<LogSearch.Entry> entries = search.search(List.of(file));
+			// every 10th entry is an error, every 3rd of them belongs to job-1
+			assertEquals(167, entries.size());
+			assertTrue(entries.get(0).message().endsWith("at cloudgene.Test.run(Test.java:1)"));
+			assertEquals(LocalDateTime.parse("2026-01-15T10:00:10"), entries.get(0).time());
+
+			search.setFrom(LocalDateTime.parse("2026-01-15T10:01:00"));
+			search.setTo(LocalDateTime.parse("2026-01-15T10:01:59"));
+			assertEquals(2, search.search(List.of(file)).size());
+
+			search.setFrom(LocalDateTime.parse("2026-01-16T00:00:00"));
+			search.setTo(null);
+			assertEquals(0, search.search(List.of(file)).size());
+
+		} finally {
+			LogSearch.CHUNK_SIZE = chunkSize;
+		}
+
+	}
+
+	@Test
+	public void testLimit() throws IOException {
+
+		File file = new File(folder, "cloudgene.log");
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < 10; i++) {
+			content.append(String.format("10:00:%02d.000 [main] INFO  cloudgene.Test - message %d\n", i, i));
+		}
+		Files.writeString(file.toPath(), content);
+
+		LogSearch search = new LogSearch();
+		search.setLimit(3);
+		List<LogSearch.Entry> entries = search.search(List.of(file));
+		assertEquals(3, entries.size());
+		assertTrue(entries.get(2).message().endsWith("message 2"));
+
+		assertThrows(IllegalArgumentException.class, () -> search.setLimit(0));
+		assertThrows(IllegalArgumentException.class, () -> search.setLimit(-1));
+
+	}
+
+}
@@ -0,0 +1,25 @@
+package cloudgene.mapred.util;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import cloudgene.mapred.jobs.AbstractJob;
+import genepi.io.FileUtil;
+
+public class LogTestUtil {
+
+	/**
+	 * Reads a log of a finished job, logs are stored compressed in the local
+	 * workspace.
+	 */
+	public static String readCompressedLog(Settings settings, String job, String name) throws IOException {
+		String path = FileUtil.path(settings.getLocalWorkspace(), job, "logs", name + AbstractJob.COMPRESSED_LOG_SUFFIX);
+		try (InputStream in = new GZIPInputStream(new FileInputStream(path))) {
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+}
@@ -0,0 +1,35 @@
+package cloudgene.mapred.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TextUtilTest {
+
+	@TempDir
+	File folder;
+
+	@Test
+	public void testTail() throws IOException {
+
+		File file = new File(folder, "tail.log");
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < 5000; i++) {
+			content.append("line " + i + "\n");
+		}
+		Files.writeString(file.toPath(), content);
+
+		assertEquals("line 4997\nline 4998\nline 4999\n", TextUtil.tail(file, 3));
+		assertEquals(content.toString(), TextUtil.tail(file, 10000));
+
+		Files.writeString(file.toPath(), "a\nb\nc");
+		assertEquals("b\nc", TextUtil.tail(file, 2));
+
+	}
+
+}